@@ -0,0 +1,38 @@
+package com.skylantern.gromoread;
+
+/**
+ * 视频和开屏广告的加载后端，不引用SDK类型
+ * 默认由 SdkAdBackend 调用 TTAdNative，离线压测时换成 SimulatedAdBackend；模板广告见 ExpressAdLoader
+ */
+interface AdBackend {
+    /**
+     * 开屏加载回调，加载成功后还要渲染，渲染成功才算可以展示
+     */
+    interface SplashCallback {
+        void onLoaded();
+
+        void onLoadFailed(int code, String message);
+
+        void onRendered(AdPool.Entry entry);
+
+        /**
+         * 渲染失败，ad 为已加载的广告，调用方负责销毁
+         */
+        void onRenderFailed(Object ad, int code, String message);
+    }
+
+    /**
+     * 是否可以发起加载
+     */
+    boolean isReady();
+
+    /**
+     * 加载一条视频广告，结果回调到 callback，回调线程由实现决定
+     */
+    void load(String adType, String adUnitId, AdLoadCallback callback);
+
+    /**
+     * 加载并渲染一条开屏广告，timeoutMs 为加载时限
+     */
+    void loadSplash(String adUnitId, int timeoutMs, SplashCallback callback);
+}
@@ -0,0 +1,10 @@
+package com.skylantern.gromoread;
+
+/**
+ * 单次广告加载回调
+ */
+interface AdLoadCallback {
+    void onLoaded(AdPool.Entry entry);
+
+    void onFailed(int code, String message);
+}
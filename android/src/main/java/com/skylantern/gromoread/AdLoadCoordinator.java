@@ -0,0 +1,277 @@
+package com.skylantern.gromoread;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 视频广告的加载编排：库存池、同广告位单飞、后台补货和唯一的后端加载入口
+ * 不依赖 ReactContext，加载结果通过 Listener 交给模块转成JS事件；
+ * 配合 SimulatedAdBackend 可以在普通 JVM 上运行
+ */
+final class AdLoadCoordinator {
+    private static final String TAG = "GroMoreModule";
+    // 后端一直不回调时以此错误码结束请求
+    static final int CODE_TIMEOUT = -4;
+    // 视频广告单次请求的时限，SDK 自身没有加载超时
+    static final long DEFAULT_LOAD_TIMEOUT_MS = 30000;
+
+    /**
+     * 每次后端请求的结果，模块据此派发JS事件
+     */
+    interface Listener {
+        void onAdLoaded(AdPool.Entry entry);
+
+        void onAdLoadFailed(String adType, String adUnitId, int code, String message);
+    }
+
+    /**
+     * 释放没能入池的广告，由模块提供
+     */
+    interface Releaser {
+        void release(AdPool.Entry entry);
+    }
+
+    private final AdPool pool;
+    private final AdMetrics metrics;
+    private final FrequencyCap frequencyCap;
+    private final Releaser releaser;
+    private final Listener listener;
+    private final InFlightLoads inFlightLoads = new InFlightLoads();
+    private final AdRefillScheduler refillScheduler;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GroMore-load-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile AdBackend backend;
+    private volatile long loadTimeoutMs = DEFAULT_LOAD_TIMEOUT_MS;
+
+    AdLoadCoordinator(AdPool pool, AdBackend backend, AdMetrics metrics, FrequencyCap frequencyCap,
+                      Releaser releaser, Listener listener) {
+        this.pool = pool;
+        this.backend = backend;
+        this.metrics = metrics;
+        this.frequencyCap = frequencyCap;
+        this.releaser = releaser;
+        this.listener = listener;
+        this.refillScheduler = new AdRefillScheduler(pool, this::loadIntoPool,
+                (adType, adUnitId) -> frequencyCap.limitResetMs(adType, adUnitId, System.currentTimeMillis()));
+    }
+
+    AdPool pool() {
+        return pool;
+    }
+
+    AdRefillScheduler refillScheduler() {
+        return refillScheduler;
+    }
+
+    AdBackend backend() {
+        return backend;
+    }
+
+    /**
+     * 切换加载后端，已发出的请求仍按原后端回调
+     */
+    void setBackend(AdBackend backend) {
+        this.backend = backend;
+    }
+
+    void setLoadTimeoutMs(long timeoutMs) {
+        loadTimeoutMs = Math.max(1, timeoutMs);
+    }
+
+    boolean isInFlight(String adType, String adUnitId) {
+        return inFlightLoads.isInFlight(adType, adUnitId);
+    }
+
+    long deduplicatedCount() {
+        return inFlightLoads.deduplicatedCount();
+    }
+
+    /**
+     * 放入库存，库存已满时释放广告，返回是否放入
+     */
+    boolean offerOrRelease(AdPool.Entry entry) {
+        if (pool.offer(entry)) {
+            return true;
+        }
+        GroLog.d(TAG, "Ad pool full, releasing ", entry.adType, "/", entry.adUnitId);
+        releaser.release(entry);
+        return false;
+    }
+
+    /**
+     * 加载一条广告放入库存池后通知所有等待方
+     * 该广告位已有加载在进行时只登记等待，不再发起后端请求
+     */
+    void loadShared(String adType, String adUnitId, InFlightLoads.Waiter waiter) {
+        if (!inFlightLoads.join(adType, adUnitId, waiter)) {
+            GroLog.d(TAG, "Joining in-flight load for ", adType, "/", adUnitId);
+            metrics.loadDeduplicated(adType, adUnitId);
+            return;
+        }
+
+        requestAd(adType, adUnitId, new AdLoadCallback() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                boolean stored = pool.offer(entry);
+                for (InFlightLoads.Waiter each : inFlightLoads.complete(adType, adUnitId)) {
+                    each.onLoaded(entry);
+                }
+                if (!stored) {
+                    // 等待方只从库存取广告，通知完再释放
+                    GroLog.d(TAG, "Ad pool full, dropping extra ad for ", adUnitId);
+                    releaser.release(entry);
+                }
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                refillScheduler.onLoadFailed(adType, adUnitId, code + ": " + message);
+                for (InFlightLoads.Waiter each : inFlightLoads.complete(adType, adUnitId)) {
+                    each.onFailed(code, message);
+                }
+            }
+        });
+    }
+
+    /**
+     * 补货入口：与显式加载一样走共享加载，同一广告位的补货和 loadAd/showAd 只发一次请求
+     */
+    private void loadIntoPool(String adType, String adUnitId, AdLoadCallback callback) {
+        loadShared(adType, adUnitId, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                callback.onLoaded(entry);
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                callback.onFailed(code, message);
+            }
+        });
+    }
+
+    /**
+     * 按类型向后端请求一条广告，结果不入池，由调用方决定存放或直接展示
+     * 所有视频广告加载都经过这里；时间窗内展示次数已用完时不发请求，以 FrequencyCap.CODE_CAPPED 失败；
+     * 后端超过 loadTimeoutMs 未回调时以 CODE_TIMEOUT 失败，单飞登记和补货占用的并发名额随之释放
+     */
+    void requestAd(String adType, String adUnitId, AdLoadCallback callback) {
+        AdBackend current = backend;
+        if (!current.isReady()) {
+            callback.onFailed(-1, "SDK not initialized");
+            return;
+        }
+
+        if (!AdTypes.REWARD_VIDEO.equals(adType) && !AdTypes.FULL_SCREEN_VIDEO.equals(adType)) {
+            callback.onFailed(-1, "Unsupported ad type: " + adType);
+            return;
+        }
+
+        long capWaitMs = frequencyCap.limitResetMs(adType, adUnitId, System.currentTimeMillis());
+        if (capWaitMs > 0) {
+            // 加载出来也不能展示，只会浪费请求
+            callback.onFailed(FrequencyCap.CODE_CAPPED, "Frequency cap reached, retry after " + capWaitMs + "ms");
+            return;
+        }
+
+        TimedLoad timed = new TimedLoad(adType, adUnitId, callback);
+        try {
+            timed.deadline = timer.schedule(timed, loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            timed.onFailed(-1, "Loader shut down");
+            return;
+        }
+        try {
+            current.load(adType, adUnitId, timed);
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception during ad loading: " + adType, e);
+            timed.onFailed(-1, "Exception: " + e.getMessage());
+        }
+    }
+
+    void shutdown() {
+        refillScheduler.shutdown();
+        timer.shutdownNow();
+    }
+
+    /**
+     * 一次后端请求：记录加载耗时与填充情况，到时限未回调时以 CODE_TIMEOUT 结束；
+     * 结果只交付一次，超时后才到的广告直接释放，迟到的失败忽略
+     */
+    private final class TimedLoad implements AdLoadCallback, Runnable {
+        final String adType;
+        final String adUnitId;
+        final AdLoadCallback callback;
+        final long startedAt = nowMs();
+        final AtomicBoolean settled = new AtomicBoolean();
+        volatile ScheduledFuture<?> deadline;
+
+        TimedLoad(String adType, String adUnitId, AdLoadCallback callback) {
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+            this.callback = callback;
+            metrics.loadStarted(adType, adUnitId);
+        }
+
+        @Override
+        public void onLoaded(AdPool.Entry entry) {
+            if (!settle()) {
+                GroLog.d(TAG, "Late fill after timeout, releasing ", adType, "/", adUnitId);
+                metrics.loadArrivedLate(adType, adUnitId, nowMs() - startedAt);
+                releaser.release(entry);
+                return;
+            }
+            metrics.loadSucceeded(adType, adUnitId, nowMs() - startedAt);
+            listener.onAdLoaded(entry);
+            callback.onLoaded(entry);
+        }
+
+        @Override
+        public void onFailed(int code, String message) {
+            if (!settle()) {
+                return;
+            }
+            metrics.loadFailed(adType, adUnitId, nowMs() - startedAt, code);
+            listener.onAdLoadFailed(adType, adUnitId, code, message);
+            callback.onFailed(code, message);
+        }
+
+        /**
+         * 到达时限
+         */
+        @Override
+        public void run() {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            String message = "Load timed out after " + loadTimeoutMs + "ms";
+            GroLog.w(TAG, "Load timed out for ", adUnitId);
+            metrics.loadTimedOut(adType, adUnitId);
+            listener.onAdLoadFailed(adType, adUnitId, CODE_TIMEOUT, message);
+            callback.onFailed(CODE_TIMEOUT, message);
+        }
+
+        private boolean settle() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> pending = deadline;
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            return true;
+        }
+    }
+
+    // 单调时钟，不依赖 SystemClock
+    private static long nowMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
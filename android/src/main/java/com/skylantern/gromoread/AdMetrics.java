@@ -0,0 +1,241 @@
+package com.skylantern.gromoread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 (adType, adUnitId) 统计的加载、渲染、展示指标
+ * 每个广告位只在第一次出现时分配一次，之后记录只做计数和直方图累加；
+ * 每次记录同时写入事件轨迹；传入账本时加载、渲染和展示结果也写入持久账本
+ */
+final class AdMetrics {
+
+    /**
+     * 单个广告位的计数器与耗时直方图
+     */
+    static final class UnitMetrics {
+        final String adType;
+        final String adUnitId;
+        long loadRequests;
+        long loadSuccesses;
+        long loadFailures;
+        long deduplicated;
+        long timeouts;
+        long renderFailures;
+        long showRequests;
+        long shows;
+        long showFailures;
+        final LatencyHistogram loadLatency = new LatencyHistogram();
+        final LatencyHistogram renderLatency = new LatencyHistogram();
+        final LatencyHistogram showLatency = new LatencyHistogram();
+        final LatencyHistogram showToClose = new LatencyHistogram();
+
+        UnitMetrics(String adType, String adUnitId) {
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+        }
+
+        void reset() {
+            loadRequests = 0;
+            loadSuccesses = 0;
+            loadFailures = 0;
+            deduplicated = 0;
+            timeouts = 0;
+            renderFailures = 0;
+            showRequests = 0;
+            shows = 0;
+            showFailures = 0;
+            loadLatency.reset();
+            renderLatency.reset();
+            showLatency.reset();
+            showToClose.reset();
+        }
+    }
+
+    // adType -> (adUnitId -> 指标)，两级查找避免拼接key
+    private final Map<String, Map<String, UnitMetrics>> units = new HashMap<>();
+    private long since = System.currentTimeMillis();
+    private final TraceRing trace;
+    private final PerformanceLedger ledger;
+
+    AdMetrics(TraceRing trace) {
+        this(trace, null);
+    }
+
+    AdMetrics(TraceRing trace, PerformanceLedger ledger) {
+        this.trace = trace;
+        this.ledger = ledger;
+    }
+
+    synchronized void loadStarted(String adType, String adUnitId) {
+        trace.record(TraceRing.LOAD_START, adType, adUnitId);
+        unit(adType, adUnitId).loadRequests++;
+    }
+
+    synchronized void loadSucceeded(String adType, String adUnitId, long latencyMs) {
+        trace.record(TraceRing.LOAD_OK, adType, adUnitId, latencyMs, 0);
+        UnitMetrics unit = unit(adType, adUnitId);
+        unit.loadSuccesses++;
+        unit.loadLatency.record(latencyMs);
+        if (ledger != null) {
+            ledger.loadSucceeded(adType, adUnitId, latencyMs);
+        }
+    }
+
+    synchronized void loadFailed(String adType, String adUnitId, long latencyMs, int code) {
+        trace.record(TraceRing.LOAD_FAIL, adType, adUnitId, latencyMs, code);
+        UnitMetrics unit = unit(adType, adUnitId);
+        unit.loadFailures++;
+        unit.loadLatency.record(latencyMs);
+        if (ledger != null) {
+            ledger.loadFailed(adType, adUnitId, latencyMs, code);
+        }
+    }
+
+    /**
+     * 并发加载挂到了进行中的请求上，没有再发起SDK请求
+     */
+    synchronized void loadDeduplicated(String adType, String adUnitId) {
+        trace.record(TraceRing.LOAD_DEDUP, adType, adUnitId);
+        unit(adType, adUnitId).deduplicated++;
+    }
+
+    synchronized void loadTimedOut(String adType, String adUnitId) {
+        trace.record(TraceRing.LOAD_TIMEOUT, adType, adUnitId);
+        unit(adType, adUnitId).timeouts++;
+        if (ledger != null) {
+            ledger.loadTimedOut(adType, adUnitId);
+        }
+    }
+
+    /**
+     * 已按超时计入的请求后来又返回了广告，只记录轨迹和账本的迟到填充，不再计一次请求
+     */
+    synchronized void loadArrivedLate(String adType, String adUnitId, long latencyMs) {
+        trace.record(TraceRing.LOAD_LATE, adType, adUnitId, latencyMs, 0);
+        if (ledger != null) {
+            ledger.lateFill(adType, adUnitId, latencyMs);
+        }
+    }
+
+    synchronized void rendered(String adType, String adUnitId, long latencyMs) {
+        trace.record(TraceRing.RENDER_OK, adType, adUnitId, latencyMs, 0);
+        unit(adType, adUnitId).renderLatency.record(latencyMs);
+    }
+
+    synchronized void renderFailed(String adType, String adUnitId, int code) {
+        trace.record(TraceRing.RENDER_FAIL, adType, adUnitId, 0, code);
+        unit(adType, adUnitId).renderFailures++;
+        if (ledger != null) {
+            ledger.renderFailed(adType, adUnitId, code);
+        }
+    }
+
+    synchronized void showStarted(String adType, String adUnitId) {
+        trace.record(TraceRing.SHOW_START, adType, adUnitId);
+        unit(adType, adUnitId).showRequests++;
+    }
+
+    synchronized void shown(String adType, String adUnitId, long latencyMs) {
+        shown(adType, adUnitId, latencyMs, -1);
+    }
+
+    /**
+     * ecpm 为展示时聚合返回的价格（分），取不到时为 -1
+     */
+    synchronized void shown(String adType, String adUnitId, long latencyMs, double ecpm) {
+        trace.record(TraceRing.SHOW_OK, adType, adUnitId, latencyMs, 0);
+        UnitMetrics unit = unit(adType, adUnitId);
+        unit.shows++;
+        unit.showLatency.record(latencyMs);
+        if (ledger != null) {
+            ledger.shown(adType, adUnitId, ecpm);
+        }
+    }
+
+    synchronized void showFailed(String adType, String adUnitId) {
+        trace.record(TraceRing.SHOW_FAIL, adType, adUnitId);
+        unit(adType, adUnitId).showFailures++;
+    }
+
+    synchronized void closed(String adType, String adUnitId, long shownForMs) {
+        trace.record(TraceRing.CLOSE, adType, adUnitId, shownForMs, 0);
+        unit(adType, adUnitId).showToClose.record(shownForMs);
+    }
+
+    synchronized long since() {
+        return since;
+    }
+
+    synchronized void reset() {
+        for (Map<String, UnitMetrics> byUnit : units.values()) {
+            for (UnitMetrics unit : byUnit.values()) {
+                unit.reset();
+            }
+        }
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * 导出所有广告位的指标快照
+     */
+    synchronized List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Map<String, UnitMetrics> byUnit : units.values()) {
+            for (UnitMetrics unit : byUnit.values()) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("adType", unit.adType);
+                item.put("adUnitId", unit.adUnitId);
+                item.put("loadRequests", unit.loadRequests);
+                item.put("loadSuccesses", unit.loadSuccesses);
+                item.put("loadFailures", unit.loadFailures);
+                item.put("fillRate", unit.loadRequests == 0 ? 0d : (double) unit.loadSuccesses / unit.loadRequests);
+                item.put("deduplicated", unit.deduplicated);
+                item.put("timeouts", unit.timeouts);
+                item.put("renderFailures", unit.renderFailures);
+                item.put("showRequests", unit.showRequests);
+                item.put("shows", unit.shows);
+                item.put("showFailures", unit.showFailures);
+                item.put("loadLatency", summarize(unit.loadLatency));
+                item.put("renderLatency", summarize(unit.renderLatency));
+                item.put("showLatency", summarize(unit.showLatency));
+                item.put("showToClose", summarize(unit.showToClose));
+                list.add(item);
+            }
+        }
+        return list;
+    }
+
+    private static Map<String, Object> summarize(LatencyHistogram histogram) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("count", histogram.count());
+        summary.put("mean", histogram.mean());
+        summary.put("p50", histogram.percentile(0.50));
+        summary.put("p90", histogram.percentile(0.90));
+        summary.put("p99", histogram.percentile(0.99));
+        summary.put("max", histogram.max());
+        List<Object> buckets = new ArrayList<>(LatencyHistogram.BOUNDS_MS.length);
+        for (int i = 0; i < LatencyHistogram.BOUNDS_MS.length; i++) {
+            buckets.add(histogram.bucketCount(i));
+        }
+        summary.put("buckets", buckets);
+        return summary;
+    }
+
+    private UnitMetrics unit(String adType, String adUnitId) {
+        Map<String, UnitMetrics> byUnit = units.get(adType);
+        if (byUnit == null) {
+            byUnit = new HashMap<>();
+            units.put(adType, byUnit);
+        }
+        String unitKey = adUnitId != null ? adUnitId : "";
+        UnitMetrics unit = byUnit.get(unitKey);
+        if (unit == null) {
+            unit = new UnitMetrics(adType, unitKey);
+            byUnit.put(unitKey, unit);
+        }
+        return unit;
+    }
+}
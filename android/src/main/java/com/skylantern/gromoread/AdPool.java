@@ -0,0 +1,525 @@
+package com.skylantern.gromoread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 已加载广告库存池
+ * 按 (adType, adUnitId) 保存多个就绪广告，展示时直接从池中取出，
+ * 只有对应广告位的池为空时才需要等待网络加载。
+ * 每条广告带有过期时间，过期的广告不会再被取出，也不计入数量；
+ * 读取时只跳过过期广告，移出统一由 evictExpired 完成，便于调用方释放资源并补货
+ */
+final class AdPool {
+    static final int DEFAULT_DEPTH = 2;
+    static final int MAX_DEPTH = 5;
+    // 预取不设上限，按库存深度
+    static final int UNLIMITED_PREFETCH = Integer.MAX_VALUE;
+    // 聚合平台缓存的视频广告一般在一小时内失效，这里留出余量
+    static final long DEFAULT_VIDEO_TTL_MS = 30 * 60 * 1000L;
+    static final long DEFAULT_SPLASH_TTL_MS = 10 * 60 * 1000L;
+
+    /**
+     * 池中的一条就绪广告
+     */
+    static final class Entry {
+        final String adType;
+        final String adUnitId;
+        final Object ad;
+        final long loadedAt;
+        // 入池时按广告位的TTL计算
+        long expiresAt = Long.MAX_VALUE;
+        // 视频素材是否已缓存到本地，未缓存时展示可能卡顿或黑屏
+        volatile boolean cached;
+        volatile long cachedAt;
+        private List<Runnable> cacheWaiters;
+
+        Entry(String adType, String adUnitId, Object ad, long loadedAt) {
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+            this.ad = ad;
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * 标记素材已缓存并通知等待方，重复调用无效
+         */
+        void markCached(long now) {
+            List<Runnable> waiters;
+            synchronized (this) {
+                if (cached) {
+                    return;
+                }
+                cachedAt = now;
+                cached = true;
+                waiters = cacheWaiters;
+                cacheWaiters = null;
+            }
+            if (waiters != null) {
+                for (Runnable waiter : waiters) {
+                    waiter.run();
+                }
+            }
+        }
+
+        /**
+         * 素材缓存后执行 action，已缓存时立即执行
+         */
+        void whenCached(Runnable action) {
+            synchronized (this) {
+                if (!cached) {
+                    if (cacheWaiters == null) {
+                        cacheWaiters = new ArrayList<>(1);
+                    }
+                    cacheWaiters.add(action);
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        long remainingMs(long now) {
+            return Math.max(0, expiresAt - now);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    // adType -> (adUnitId -> 按加载先后排列的就绪广告)
+    private final Map<String, Map<String, ArrayDeque<Entry>>> pools = new HashMap<>();
+    private final Map<String, Integer> depths = new HashMap<>();
+    private final Map<String, Long> unitTtls = new HashMap<>();
+    private final Map<String, Long> typeTtls = new HashMap<>();
+    // adType -> 后台预取最多备几条，由预取策略按网络和电量设置
+    private final Map<String, Integer> prefetchLimits = new HashMap<>();
+    private int defaultDepth = DEFAULT_DEPTH;
+    private Runnable expiryListener;
+    // 每次增删后发布的不可变视图：adType -> (adUnitId -> 各条广告的过期时间)，供同步查询无锁读取
+    private volatile Map<String, Map<String, long[]>> readyView = Collections.emptyMap();
+
+    /**
+     * 读取时发现过期广告就回调，回调在池锁内执行，不应阻塞；调用方据此尽快执行 evictExpired
+     */
+    synchronized void setExpiryListener(Runnable listener) {
+        expiryListener = listener;
+    }
+
+    /**
+     * 放入一条就绪广告，池已满时返回false
+     * 与 deficit 一致只按未过期的广告计数，等待淘汰的过期广告不占位，
+     * 否则补货按缺口加载回来的广告会被拒绝并销毁
+     */
+    synchronized boolean offer(Entry entry) {
+        ArrayDeque<Entry> queue = queueFor(entry.adType, entry.adUnitId, true);
+        if (countLive(queue, System.currentTimeMillis(), false) >= depth(entry.adType, entry.adUnitId)) {
+            return false;
+        }
+        entry.expiresAt = entry.loadedAt + ttl(entry.adType, entry.adUnitId);
+        queue.addLast(entry);
+        publish();
+        return true;
+    }
+
+    /**
+     * 按入池顺序取出指定广告位第一条未过期的广告，池为空时返回null
+     */
+    synchronized Entry poll(String adType, String adUnitId) {
+        ArrayDeque<Entry> queue = queueFor(adType, adUnitId, false);
+        if (queue == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = queue.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.isExpired(now)) {
+                notifyExpired();
+                continue;
+            }
+            it.remove();
+            publish();
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * 取出该类型下任意广告位中最早加载的广告，供不区分广告位的旧接口使用
+     */
+    synchronized Entry pollAny(String adType) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Entry oldest = null;
+        ArrayDeque<Entry> owner = null;
+        for (ArrayDeque<Entry> queue : units.values()) {
+            for (Entry entry : queue) {
+                if (entry.isExpired(now)) {
+                    notifyExpired();
+                } else if (oldest == null || entry.loadedAt < oldest.loadedAt) {
+                    oldest = entry;
+                    owner = queue;
+                }
+            }
+        }
+        if (oldest == null) {
+            return null;
+        }
+        owner.remove(oldest);
+        publish();
+        return oldest;
+    }
+
+    synchronized int size(String adType, String adUnitId) {
+        ArrayDeque<Entry> queue = queueFor(adType, adUnitId, false);
+        return queue == null ? 0 : countLive(queue, System.currentTimeMillis(), false);
+    }
+
+    /**
+     * 素材已缓存的广告数
+     */
+    synchronized int cachedSize(String adType, String adUnitId) {
+        ArrayDeque<Entry> queue = queueFor(adType, adUnitId, false);
+        return queue == null ? 0 : countLive(queue, System.currentTimeMillis(), true);
+    }
+
+    synchronized int cachedSizeOfType(String adType) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int total = 0;
+        for (ArrayDeque<Entry> queue : units.values()) {
+            total += countLive(queue, now, true);
+        }
+        return total;
+    }
+
+    /**
+     * 按取出顺序复制广告位当前的就绪广告，用于查询各条广告的状态
+     */
+    synchronized List<Entry> entries(String adType, String adUnitId) {
+        ArrayDeque<Entry> queue = queueFor(adType, adUnitId, false);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<>(queue.size());
+        addLive(queue, System.currentTimeMillis(), entries);
+        return entries;
+    }
+
+    /**
+     * 复制该类型下各广告位的就绪广告，unitIds 不为 null 时只包含其中的广告位
+     */
+    synchronized List<Entry> entriesOfType(String adType, Set<String> unitIds) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, ArrayDeque<Entry>> unit : units.entrySet()) {
+            if (unitIds != null && !unitIds.contains(unit.getKey())) {
+                continue;
+            }
+            addLive(unit.getValue(), now, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * 取出指定的一条广告，已被其他调用方取走或已过期时返回false
+     */
+    synchronized boolean remove(Entry entry) {
+        ArrayDeque<Entry> queue = queueFor(entry.adType, entry.adUnitId, false);
+        if (queue == null || entry.isExpired(System.currentTimeMillis()) || !queue.remove(entry)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+
+    /**
+     * 下一条将被取出的广告剩余有效期，没有广告时返回0
+     */
+    synchronized long remainingMs(String adType, String adUnitId, long now) {
+        ArrayDeque<Entry> queue = queueFor(adType, adUnitId, false);
+        if (queue == null) {
+            return 0;
+        }
+        for (Entry entry : queue) {
+            if (!entry.isExpired(now)) {
+                return entry.remainingMs(now);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 淘汰所有已过期的广告并返回被淘汰的条目
+     */
+    synchronized List<Entry> evictExpired(long now) {
+        List<Entry> evicted = null;
+        for (Map<String, ArrayDeque<Entry>> units : pools.values()) {
+            for (ArrayDeque<Entry> queue : units.values()) {
+                Iterator<Entry> it = queue.iterator();
+                while (it.hasNext()) {
+                    Entry entry = it.next();
+                    if (entry.isExpired(now)) {
+                        it.remove();
+                        if (evicted == null) {
+                            evicted = new ArrayList<>();
+                        }
+                        evicted.add(entry);
+                    }
+                }
+            }
+        }
+        if (evicted == null) {
+            return Collections.emptyList();
+        }
+        publish();
+        return evicted;
+    }
+
+    /**
+     * 内存紧张时收缩该类型的库存，每个广告位只保留最新加载的 keepPerUnit 条，
+     * 返回被淘汰的条目（最早加载、最接近过期的先淘汰）
+     */
+    synchronized List<Entry> trim(String adType, int keepPerUnit) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> evicted = null;
+        for (ArrayDeque<Entry> queue : units.values()) {
+            while (queue.size() > keepPerUnit) {
+                if (evicted == null) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(queue.pollFirst());
+            }
+        }
+        if (evicted == null) {
+            return Collections.emptyList();
+        }
+        publish();
+        return evicted;
+    }
+
+    /**
+     * 广告位的TTL，优先使用广告位配置，其次类型配置
+     */
+    synchronized long ttl(String adType, String adUnitId) {
+        Long ttl = unitTtls.get(key(adType, adUnitId));
+        if (ttl == null) {
+            ttl = typeTtls.get(adType);
+        }
+        if (ttl != null) {
+            return ttl;
+        }
+        return AdTypes.SPLASH.equals(adType) ? DEFAULT_SPLASH_TTL_MS : DEFAULT_VIDEO_TTL_MS;
+    }
+
+    synchronized void setTtl(String adType, String adUnitId, long ttlMs) {
+        unitTtls.put(key(adType, adUnitId), Math.max(1000, ttlMs));
+    }
+
+    synchronized void setTypeTtl(String adType, long ttlMs) {
+        typeTtls.put(adType, Math.max(1000, ttlMs));
+    }
+
+    /**
+     * 该类型下所有广告位的就绪广告总数
+     */
+    synchronized int sizeOfType(String adType) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int total = 0;
+        for (ArrayDeque<Entry> queue : units.values()) {
+            total += countLive(queue, now, false);
+        }
+        return total;
+    }
+
+    /**
+     * 距离目标深度还差几条广告
+     */
+    synchronized int deficit(String adType, String adUnitId) {
+        return Math.max(0, depth(adType, adUnitId) - size(adType, adUnitId));
+    }
+
+    /**
+     * 后台补货和预取还差几条，受预取策略限制；显式加载仍按 deficit 判断
+     */
+    synchronized int prefetchDeficit(String adType, String adUnitId) {
+        Integer limit = prefetchLimits.get(adType);
+        int target = depth(adType, adUnitId);
+        if (limit != null) {
+            target = Math.min(target, limit);
+        }
+        return Math.max(0, target - size(adType, adUnitId));
+    }
+
+    /**
+     * 设置该类型后台预取的上限，UNLIMITED_PREFETCH 表示按库存深度
+     */
+    synchronized void setPrefetchLimit(String adType, int limit) {
+        if (limit == UNLIMITED_PREFETCH) {
+            prefetchLimits.remove(adType);
+        } else {
+            prefetchLimits.put(adType, Math.max(0, limit));
+        }
+    }
+
+    synchronized int depth(String adType, String adUnitId) {
+        Integer depth = depths.get(key(adType, adUnitId));
+        return depth != null ? depth : defaultDepth;
+    }
+
+    synchronized void setDepth(String adType, String adUnitId, int depth) {
+        depths.put(key(adType, adUnitId), clampDepth(depth));
+    }
+
+    synchronized int defaultDepth() {
+        return defaultDepth;
+    }
+
+    synchronized void setDefaultDepth(int depth) {
+        defaultDepth = clampDepth(depth);
+    }
+
+    synchronized void clear() {
+        pools.clear();
+        publish();
+    }
+
+    /**
+     * 不加锁读取未过期的广告数，adUnitId 为空时统计该类型全部广告位
+     * 读的是最近一次增删后发布的视图，供JS线程上的同步查询使用，不会等待池锁；
+     * 与 size 不同，发现过期广告时不回调 expiryListener
+     */
+    int readySize(String adType, String adUnitId, long now) {
+        Map<String, long[]> units = readyView.get(adType);
+        if (units == null) {
+            return 0;
+        }
+        if (adUnitId != null && !adUnitId.isEmpty()) {
+            return countUnexpired(units.get(adUnitId), now);
+        }
+        int total = 0;
+        for (long[] expiries : units.values()) {
+            total += countUnexpired(expiries, now);
+        }
+        return total;
+    }
+
+    static String key(String adType, String adUnitId) {
+        return adType + "|" + adUnitId;
+    }
+
+    /**
+     * 未过期的广告数，cachedOnly 为 true 时只数素材已缓存的；
+     * 放回的广告排在队尾，过期的广告可能在队列任意位置，需要逐条检查
+     */
+    private int countLive(ArrayDeque<Entry> queue, long now, boolean cachedOnly) {
+        int count = 0;
+        for (Entry entry : queue) {
+            if (entry.isExpired(now)) {
+                notifyExpired();
+            } else if (!cachedOnly || entry.cached) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void addLive(ArrayDeque<Entry> queue, long now, List<Entry> out) {
+        for (Entry entry : queue) {
+            if (entry.isExpired(now)) {
+                notifyExpired();
+            } else {
+                out.add(entry);
+            }
+        }
+    }
+
+    private static int countUnexpired(long[] expiries, long now) {
+        if (expiries == null) {
+            return 0;
+        }
+        int count = 0;
+        for (long expiresAt : expiries) {
+            if (now < expiresAt) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在池锁内调用，复制当前库存的过期时间并整体替换视图
+     */
+    private void publish() {
+        Map<String, Map<String, long[]>> view = new HashMap<>();
+        for (Map.Entry<String, Map<String, ArrayDeque<Entry>>> type : pools.entrySet()) {
+            Map<String, long[]> units = new HashMap<>();
+            for (Map.Entry<String, ArrayDeque<Entry>> unit : type.getValue().entrySet()) {
+                if (unit.getValue().isEmpty()) {
+                    continue;
+                }
+                long[] expiries = new long[unit.getValue().size()];
+                int i = 0;
+                for (Entry entry : unit.getValue()) {
+                    expiries[i++] = entry.expiresAt;
+                }
+                units.put(unit.getKey(), expiries);
+            }
+            if (!units.isEmpty()) {
+                view.put(type.getKey(), Collections.unmodifiableMap(units));
+            }
+        }
+        readyView = Collections.unmodifiableMap(view);
+    }
+
+    private void notifyExpired() {
+        if (expiryListener != null) {
+            expiryListener.run();
+        }
+    }
+
+    private static int clampDepth(int depth) {
+        return Math.max(1, Math.min(MAX_DEPTH, depth));
+    }
+
+    private ArrayDeque<Entry> queueFor(String adType, String adUnitId, boolean create) {
+        Map<String, ArrayDeque<Entry>> units = pools.get(adType);
+        if (units == null) {
+            if (!create) {
+                return null;
+            }
+            units = new HashMap<>();
+            pools.put(adType, units);
+        }
+        ArrayDeque<Entry> queue = units.get(adUnitId);
+        if (queue == null && create) {
+            queue = new ArrayDeque<>();
+            units.put(adUnitId, queue);
+        }
+        return queue;
+    }
+}
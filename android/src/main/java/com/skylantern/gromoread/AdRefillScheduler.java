@@ -0,0 +1,322 @@
+package com.skylantern.gromoread;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 广告库存后台补货调度器
+ * 广告被消耗、加载失败或过期后在后台补一条新广告，
+ * 失败时按带抖动的指数退避重试，并限制同时进行的加载数量；补货数量受 AdPool 的预取上限约束。
+ * 频次已用完的广告位不算失败，等时间窗重置后再补
+ */
+final class AdRefillScheduler {
+    static final int DEFAULT_MAX_CONCURRENT = 2;
+    static final long DEFAULT_BASE_BACKOFF_MS = 2000;
+    static final long DEFAULT_MAX_BACKOFF_MS = 120000;
+    // 连续失败达到该次数后暂停补货，等下一次显式加载或消耗再恢复
+    static final int MAX_CONSECUTIVE_FAILURES = 6;
+    // 并发已满时的重新排队间隔
+    private static final long BUSY_RETRY_MS = 500;
+
+    /**
+     * 加载一条广告放入库存，回调时广告已入池或已释放；与同一广告位的显式加载共享请求
+     */
+    interface Loader {
+        void load(String adType, String adUnitId, AdLoadCallback callback);
+    }
+
+    /**
+     * 广告位当前不允许加载时返回需要等待的时长，例如频次已用完
+     */
+    interface Throttle {
+        long retryAfterMs(String adType, String adUnitId);
+    }
+
+    /**
+     * 单个广告位的补货状态
+     */
+    private static final class Slot {
+        final String adType;
+        final String adUnitId;
+        boolean enabled = true;
+        boolean inFlight;
+        // 等频次时间窗重置，不计入失败
+        boolean capped;
+        int failures;
+        long nextAttemptAt;
+        String lastError;
+        ScheduledFuture<?> pending;
+
+        Slot(String adType, String adUnitId) {
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+        }
+    }
+
+    private final AdPool pool;
+    private final Loader loader;
+    private final Throttle throttle;
+    private final ScheduledExecutorService executor;
+    private final Random random = new Random();
+    private final Map<String, Slot> slots = new LinkedHashMap<>();
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private long baseBackoffMs = DEFAULT_BASE_BACKOFF_MS;
+    private long maxBackoffMs = DEFAULT_MAX_BACKOFF_MS;
+    private int inFlight;
+
+    AdRefillScheduler(AdPool pool, Loader loader, Throttle throttle) {
+        this.pool = pool;
+        this.loader = loader;
+        this.throttle = throttle;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "GroMore-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 登记需要自动补货的广告位，已登记时重置失败计数
+     */
+    synchronized void register(String adType, String adUnitId) {
+        Slot slot = slotFor(adType, adUnitId);
+        slot.failures = 0;
+    }
+
+    synchronized void setEnabled(String adType, String adUnitId, boolean enabled) {
+        Slot slot = slotFor(adType, adUnitId);
+        slot.enabled = enabled;
+        if (!enabled) {
+            cancelPending(slot);
+        }
+    }
+
+    synchronized void configure(int maxConcurrent, long baseBackoffMs, long maxBackoffMs) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.baseBackoffMs = Math.max(100, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * 广告已展示并关闭，立即补货
+     */
+    synchronized void onConsumed(String adType, String adUnitId) {
+        Slot slot = slots.get(AdPool.key(adType, adUnitId));
+        if (slot == null || !slot.enabled) {
+            return;
+        }
+        slot.failures = 0;
+        schedule(slot, 0);
+    }
+
+    /**
+     * 显式加载失败，按退避策略安排重试
+     */
+    synchronized void onLoadFailed(String adType, String adUnitId, String error) {
+        Slot slot = slots.get(AdPool.key(adType, adUnitId));
+        if (slot == null || !slot.enabled || slot.inFlight) {
+            return;
+        }
+        recordFailure(slot, error);
+    }
+
+    /**
+     * 库存中的广告过期被淘汰，立即补货
+     */
+    synchronized void onExpired(String adType, String adUnitId) {
+        Slot slot = slots.get(AdPool.key(adType, adUnitId));
+        if (slot == null || !slot.enabled) {
+            return;
+        }
+        schedule(slot, 0);
+    }
+
+    /**
+     * 预取限制放宽后给所有启用的广告位补货，受限期间累计的失败不再计入退避
+     */
+    synchronized void resume() {
+        for (Slot slot : slots.values()) {
+            if (!slot.enabled || pool.prefetchDeficit(slot.adType, slot.adUnitId) == 0) {
+                continue;
+            }
+            slot.failures = 0;
+            cancelPending(slot);
+            schedule(slot, 0);
+        }
+    }
+
+    synchronized void shutdown() {
+        for (Slot slot : slots.values()) {
+            cancelPending(slot);
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * 当前补货状态快照，供JS查询
+     */
+    synchronized List<Map<String, Object>> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> list = new ArrayList<>(slots.size());
+        for (Slot slot : slots.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("adType", slot.adType);
+            item.put("adUnitId", slot.adUnitId);
+            item.put("enabled", slot.enabled);
+            item.put("state", stateOf(slot));
+            item.put("failures", slot.failures);
+            item.put("nextAttemptInMs", slot.pending != null ? Math.max(0, slot.nextAttemptAt - now) : 0);
+            item.put("lastError", slot.lastError);
+            list.add(item);
+        }
+        return list;
+    }
+
+    synchronized int inFlightCount() {
+        return inFlight;
+    }
+
+    synchronized int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    private static String stateOf(Slot slot) {
+        if (slot.inFlight) {
+            return "inFlight";
+        }
+        if (slot.pending != null && slot.capped) {
+            return "capped";
+        }
+        if (slot.pending != null) {
+            return slot.failures > 0 ? "backoff" : "pending";
+        }
+        if (slot.failures >= MAX_CONSECUTIVE_FAILURES) {
+            return "parked";
+        }
+        return "idle";
+    }
+
+    private Slot slotFor(String adType, String adUnitId) {
+        String key = AdPool.key(adType, adUnitId);
+        Slot slot = slots.get(key);
+        if (slot == null) {
+            slot = new Slot(adType, adUnitId);
+            slots.put(key, slot);
+        }
+        return slot;
+    }
+
+    private void schedule(Slot slot, long delayMs) {
+        if (executor.isShutdown() || slot.inFlight) {
+            return;
+        }
+        long at = System.currentTimeMillis() + delayMs;
+        if (slot.pending != null) {
+            if (slot.nextAttemptAt <= at) {
+                return;
+            }
+            slot.pending.cancel(false);
+        }
+        slot.nextAttemptAt = at;
+        slot.pending = executor.schedule(() -> attempt(slot), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPending(Slot slot) {
+        if (slot.pending != null) {
+            slot.pending.cancel(false);
+            slot.pending = null;
+        }
+    }
+
+    private void attempt(Slot slot) {
+        synchronized (this) {
+            slot.pending = null;
+            if (!slot.enabled || slot.inFlight || pool.prefetchDeficit(slot.adType, slot.adUnitId) == 0) {
+                return;
+            }
+            if (waitForThrottle(slot)) {
+                return;
+            }
+            if (inFlight >= maxConcurrent) {
+                schedule(slot, BUSY_RETRY_MS);
+                return;
+            }
+            slot.capped = false;
+            slot.inFlight = true;
+            inFlight++;
+        }
+
+        loader.load(slot.adType, slot.adUnitId, new AdLoadCallback() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                synchronized (AdRefillScheduler.this) {
+                    finish(slot);
+                    slot.failures = 0;
+                    slot.lastError = null;
+                    if (pool.prefetchDeficit(slot.adType, slot.adUnitId) > 0) {
+                        schedule(slot, 0);
+                    }
+                }
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                synchronized (AdRefillScheduler.this) {
+                    finish(slot);
+                    recordFailure(slot, code + ": " + message);
+                }
+            }
+        });
+    }
+
+    private void finish(Slot slot) {
+        slot.inFlight = false;
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    private void recordFailure(Slot slot, String error) {
+        if (waitForThrottle(slot)) {
+            slot.lastError = error;
+            return;
+        }
+        slot.failures++;
+        slot.lastError = error;
+        if (slot.failures >= MAX_CONSECUTIVE_FAILURES) {
+            cancelPending(slot);
+            return;
+        }
+        schedule(slot, backoffDelay(slot.failures));
+    }
+
+    /**
+     * 广告位被限制时推迟到限制解除再尝试，返回是否已推迟
+     */
+    private boolean waitForThrottle(Slot slot) {
+        long waitMs = throttle.retryAfterMs(slot.adType, slot.adUnitId);
+        if (waitMs <= 0) {
+            slot.capped = false;
+            return false;
+        }
+        slot.capped = true;
+        cancelPending(slot);
+        schedule(slot, waitMs);
+        return true;
+    }
+
+    /**
+     * 指数退避加抖动：取 [delay/2, delay] 之间的随机值，避免多个广告位同时重试
+     */
+    private long backoffDelay(int failures) {
+        long delay = baseBackoffMs << Math.min(failures - 1, 16);
+        delay = Math.min(delay, maxBackoffMs);
+        long half = delay / 2;
+        return half + (long) (random.nextDouble() * (delay - half));
+    }
+}
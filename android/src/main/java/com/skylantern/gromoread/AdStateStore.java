@@ -0,0 +1,141 @@
+package com.skylantern.gromoread;
+
+import com.bytedance.sdk.openadsdk.CSJSplashAd;
+import com.bytedance.sdk.openadsdk.TTAdNative;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 模块的广告状态
+ * 所有状态变更都在专用的单线程执行器上串行执行，每次变更发布一个新的不可变快照，
+ * 任何线程读取 snapshot() 都不需要加锁。视图操作不在这里，仍由调用方切到主线程；
+ * 开屏容器和热启动加载进度只在主线程读写，不放入快照，库存数量由 AdPool.readySize 无锁读取
+ */
+final class AdStateStore {
+
+    /**
+     * 某一时刻的完整状态，只能通过 with* 方法派生新快照
+     */
+    static final class Snapshot {
+        static final Snapshot INITIAL = new Snapshot(false, null, null, null, false, HotSplashConfig.DISABLED);
+
+        final boolean sdkReady;
+        final TTAdNative adNative;
+        // 正在展示的开屏，同一时刻最多一条
+        final CSJSplashAd splashAd;
+        final String splashUnitId;
+        // 全屏广告或广告落地页引起的切后台，回来时不展示热启动开屏
+        final boolean adActivityActive;
+        final HotSplashConfig hotSplash;
+
+        private Snapshot(boolean sdkReady, TTAdNative adNative, CSJSplashAd splashAd, String splashUnitId,
+                         boolean adActivityActive, HotSplashConfig hotSplash) {
+            this.sdkReady = sdkReady;
+            this.adNative = adNative;
+            this.splashAd = splashAd;
+            this.splashUnitId = splashUnitId;
+            this.adActivityActive = adActivityActive;
+            this.hotSplash = hotSplash;
+        }
+
+        Snapshot withSdkReady(TTAdNative adNative) {
+            return new Snapshot(true, adNative, splashAd, splashUnitId, adActivityActive, hotSplash);
+        }
+
+        Snapshot withSplash(CSJSplashAd ad, String adUnitId) {
+            return new Snapshot(sdkReady, adNative, ad, adUnitId, adActivityActive, hotSplash);
+        }
+
+        Snapshot withoutSplash() {
+            return new Snapshot(sdkReady, adNative, null, null, adActivityActive, hotSplash);
+        }
+
+        Snapshot withAdActivity(boolean active) {
+            return active == adActivityActive ? this
+                    : new Snapshot(sdkReady, adNative, splashAd, splashUnitId, active, hotSplash);
+        }
+
+        Snapshot withHotSplash(HotSplashConfig config) {
+            return new Snapshot(sdkReady, adNative, splashAd, splashUnitId, adActivityActive, config);
+        }
+    }
+
+    /**
+     * 热启动开屏配置
+     */
+    static final class HotSplashConfig {
+        static final HotSplashConfig DISABLED = new HotSplashConfig(false, null, 0, 0, 0);
+
+        final boolean enabled;
+        final String adUnitId;
+        final long thresholdMs;
+        final long maxAgeMs;
+        final long maxWaitMs;
+
+        HotSplashConfig(boolean enabled, String adUnitId, long thresholdMs, long maxAgeMs, long maxWaitMs) {
+            this.enabled = enabled;
+            this.adUnitId = adUnitId;
+            this.thresholdMs = thresholdMs;
+            this.maxAgeMs = maxAgeMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    /**
+     * 由当前快照计算下一个快照，在状态执行器上调用，不应阻塞
+     */
+    interface Transition {
+        Snapshot apply(Snapshot current);
+    }
+
+    /**
+     * 变更发布后在状态执行器上回调，用于按变更结果继续处理
+     */
+    interface Committed {
+        void onCommitted(Snapshot previous, Snapshot current);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GroMoreAdState");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot = Snapshot.INITIAL;
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    void update(Transition transition) {
+        update(transition, null);
+    }
+
+    /**
+     * 提交一次状态变更，变更按提交顺序串行执行
+     * 执行器已关闭时返回 false，变更和回调都不会执行
+     */
+    boolean update(Transition transition, Committed committed) {
+        if (executor.isShutdown()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                Snapshot previous = snapshot;
+                Snapshot current = transition.apply(previous);
+                snapshot = current;
+                if (committed != null) {
+                    committed.onCommitted(previous, current);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,33 @@
+package com.skylantern.gromoread;
+
+/**
+ * 广告类型常量
+ * JS层传入的类型名大小写不固定，统一在这里规范化
+ */
+final class AdTypes {
+    static final String SPLASH = "splash";
+    static final String REWARD_VIDEO = "rewardvideo";
+    static final String FULL_SCREEN_VIDEO = "fullscreenvideo";
+
+    private AdTypes() {
+    }
+
+    /**
+     * 规范化广告类型，不支持的类型返回null
+     */
+    static String normalize(String adType) {
+        if (adType == null) {
+            return null;
+        }
+        switch (adType.toLowerCase()) {
+            case SPLASH:
+                return SPLASH;
+            case REWARD_VIDEO:
+                return REWARD_VIDEO;
+            case FULL_SCREEN_VIDEO:
+                return FULL_SCREEN_VIDEO;
+            default:
+                return null;
+        }
+    }
+}
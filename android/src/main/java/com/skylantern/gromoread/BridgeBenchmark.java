@@ -0,0 +1,180 @@
+package com.skylantern.gromoread;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 原生热路径的微基准
+ * 使用独立的库存池、发件箱和指标实例，库存里放假广告对象，不调用SDK也不需要网络，
+ * 不影响模块的真实状态。结果是每次调用的平均纳秒数，用作回归对比的基线
+ */
+final class BridgeBenchmark {
+    static final int DEFAULT_ITERATIONS = 20000;
+    static final int MAX_ITERATIONS = 1000000;
+
+    private static final int UNIT_COUNT = 8;
+    // 混合大小写，和JS层实际传入的类型名一致
+    private static final String[] AD_TYPES = {"rewardVideo", "fullScreenVideo", "splash", "RewardVideo"};
+    private static final String[] EVENT_NAMES = {"onRewardVideoShow", "onRewardVideoClick", "onRewardVideoClose", "onAdExpired"};
+
+    /**
+     * 单个测量项，i 为迭代序号
+     */
+    private interface Case {
+        void run(int i);
+    }
+
+    private final String[] unitIds = new String[UNIT_COUNT];
+    private final AdPool pool = new AdPool();
+    private final InFlightLoads inFlightLoads = new InFlightLoads();
+    private final TraceRing trace = new TraceRing();
+    private final AdMetrics metrics = new AdMetrics(trace);
+    private final EventOutbox immediateOutbox;
+    private final EventOutbox batchedOutbox;
+    // 防止被优化掉的结果汇总
+    private int sink;
+
+    BridgeBenchmark() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        EventOutbox.Emitter discard = (eventName, params) -> sink += eventName.length();
+        immediateOutbox = new EventOutbox(handler, discard);
+        batchedOutbox = new EventOutbox(handler, discard);
+        batchedOutbox.configure(true, EventOutbox.MAX_INTERVAL_MS, null);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < UNIT_COUNT; i++) {
+            unitIds[i] = "bench-unit-" + i;
+            pool.setDepth(AdTypes.REWARD_VIDEO, unitIds[i], 2);
+            pool.offer(new AdPool.Entry(AdTypes.REWARD_VIDEO, unitIds[i], new Object(), now));
+            pool.offer(new AdPool.Entry(AdTypes.REWARD_VIDEO, unitIds[i], new Object(), now));
+        }
+    }
+
+    /**
+     * 依次运行所有测量项，每项先预热 iterations/10 次
+     */
+    List<Map<String, Object>> run(int iterations) {
+        List<Map<String, Object>> results = new ArrayList<>();
+        results.add(measure("eventMap", iterations, this::eventMap));
+        results.add(measure("eventEmit", iterations, this::eventEmit));
+        results.add(measure("eventEmitBatched", iterations, this::eventEmitBatched));
+        results.add(measure("adTypeDispatch", iterations, this::adTypeDispatch));
+        results.add(measure("isAdLoaded", iterations, this::isAdLoaded));
+        results.add(measure("loadListener", iterations, this::loadListener));
+        results.add(measure("metricsRecord", iterations, this::metricsRecord));
+        batchedOutbox.configure(false, EventOutbox.DEFAULT_INTERVAL_MS, null);
+        return results;
+    }
+
+    private Map<String, Object> measure(String name, int iterations, Case benchmarkCase) {
+        int warmup = Math.max(1, iterations / 10);
+        for (int i = 0; i < warmup; i++) {
+            benchmarkCase.run(i);
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            benchmarkCase.run(i);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("name", name);
+        result.put("iterations", iterations);
+        result.put("totalMs", elapsed / 1e6);
+        result.put("nsPerOp", (double) elapsed / iterations);
+        return result;
+    }
+
+    /**
+     * 构造带广告位ID的事件参数
+     */
+    private void eventMap(int i) {
+        WritableMap data = Arguments.createMap();
+        data.putString("adUnitId", unitIds[i & (UNIT_COUNT - 1)]);
+        data.putString("adType", AdTypes.REWARD_VIDEO);
+        sink += data.hashCode();
+    }
+
+    /**
+     * 构造参数并逐条发出
+     */
+    private void eventEmit(int i) {
+        WritableMap data = Arguments.createMap();
+        data.putString("adUnitId", unitIds[i & (UNIT_COUNT - 1)]);
+        immediateOutbox.send(EVENT_NAMES[i & 3], data);
+    }
+
+    /**
+     * 批量模式下入队，每64条合并发出一次
+     */
+    private void eventEmitBatched(int i) {
+        WritableMap data = Arguments.createMap();
+        data.putString("adUnitId", unitIds[i & (UNIT_COUNT - 1)]);
+        batchedOutbox.send(EVENT_NAMES[i & 3], data);
+        if ((i & 63) == 63) {
+            batchedOutbox.flush();
+        }
+    }
+
+    /**
+     * loadAd/showAd 入口的类型规范化
+     */
+    private void adTypeDispatch(int i) {
+        String type = AdTypes.normalize(AD_TYPES[i & 3]);
+        sink += type != null ? type.length() : 0;
+    }
+
+    /**
+     * 与 isAdLoaded 相同的库存查询和结果构造
+     */
+    private void isAdLoaded(int i) {
+        String type = AdTypes.normalize(AD_TYPES[i & 1]);
+        String adUnitId = unitIds[i & (UNIT_COUNT - 1)];
+        int count = pool.size(type, adUnitId);
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("isLoaded", count > 0);
+        result.putInt("count", count);
+        result.putDouble("remainingMs", pool.remainingMs(type, adUnitId, System.currentTimeMillis()));
+        result.putDouble("ttlMs", pool.ttl(type, adUnitId));
+        sink += result.hashCode();
+    }
+
+    /**
+     * 构造加载回调并走一遍并发去重登记
+     */
+    private void loadListener(int i) {
+        final String adUnitId = unitIds[i & (UNIT_COUNT - 1)];
+        InFlightLoads.Waiter waiter = new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                sink++;
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                sink--;
+            }
+        };
+        inFlightLoads.join(AdTypes.REWARD_VIDEO, adUnitId, waiter);
+        for (InFlightLoads.Waiter each : inFlightLoads.complete(AdTypes.REWARD_VIDEO, adUnitId)) {
+            each.onLoaded(null);
+        }
+    }
+
+    /**
+     * 一次完整加载记录的指标和轨迹写入
+     */
+    private void metricsRecord(int i) {
+        String adUnitId = unitIds[i & (UNIT_COUNT - 1)];
+        metrics.loadStarted(AdTypes.REWARD_VIDEO, adUnitId);
+        metrics.loadSucceeded(AdTypes.REWARD_VIDEO, adUnitId, i & 1023);
+    }
+}
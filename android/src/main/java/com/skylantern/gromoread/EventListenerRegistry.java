@@ -0,0 +1,150 @@
+package com.skylantern.gromoread;
+
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JS事件订阅登记
+ * 记录每个事件名的订阅数，没有订阅时模块不构造也不发送事件；
+ * 奖励、关闭等关键事件在无人订阅时暂存在定长环形缓冲区里，等订阅建立后补发
+ */
+final class EventListenerRegistry {
+    static final int REPLAY_CAPACITY = 32;
+    static final long REPLAY_MAX_AGE_MS = 5 * 60 * 1000L;
+
+    // 无人订阅时需要暂存补发的事件
+    private static final Set<String> CRITICAL_EVENTS = new HashSet<>(Arrays.asList(
+            "onSdkReady",
+            "onRewardVideoReward",
+            "onRewardVideoClose",
+            "onFullScreenVideoClose",
+            "onSplashClose",
+            "onSplashAdSkip"
+    ));
+
+    /**
+     * 暂存的一条事件
+     */
+    static final class Pending {
+        final String eventName;
+        final WritableMap params;
+        final long timestamp;
+
+        Pending(String eventName, WritableMap params, long timestamp) {
+            this.eventName = eventName;
+            this.params = params;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private int total;
+    private final Pending[] ring = new Pending[REPLAY_CAPACITY];
+    private int ringHead;
+    private int ringSize;
+
+    /**
+     * JS NativeEventEmitter 订阅事件时调用
+     */
+    synchronized void add(String eventName) {
+        Integer count = counts.get(eventName);
+        counts.put(eventName, count == null ? 1 : count + 1);
+        total++;
+    }
+
+    /**
+     * JS NativeEventEmitter 取消订阅时调用，RN只告诉我们数量不告诉事件名，
+     * 总数归零时清空所有事件名计数
+     */
+    synchronized void removeCount(int count) {
+        total = Math.max(0, total - count);
+        if (total == 0) {
+            counts.clear();
+        }
+    }
+
+    /**
+     * 带事件名的取消订阅，由本插件的JS封装在取消订阅时补充调用
+     */
+    synchronized void release(String eventName) {
+        Integer count = counts.get(eventName);
+        if (count == null) {
+            return;
+        }
+        if (count <= 1) {
+            counts.remove(eventName);
+        } else {
+            counts.put(eventName, count - 1);
+        }
+    }
+
+    synchronized boolean hasListeners(String eventName) {
+        return total > 0 && counts.containsKey(eventName);
+    }
+
+    /**
+     * 事件是否值得构造：有订阅，或者是需要暂存补发的关键事件
+     */
+    synchronized boolean isWanted(String eventName) {
+        return hasListeners(eventName) || CRITICAL_EVENTS.contains(eventName);
+    }
+
+    /**
+     * 暂存无人订阅的关键事件，缓冲区满时覆盖最早的一条；非关键事件直接丢弃
+     */
+    synchronized void buffer(String eventName, WritableMap params) {
+        if (!CRITICAL_EVENTS.contains(eventName)) {
+            return;
+        }
+        int index = (ringHead + ringSize) % REPLAY_CAPACITY;
+        ring[index] = new Pending(eventName, params, System.currentTimeMillis());
+        if (ringSize < REPLAY_CAPACITY) {
+            ringSize++;
+        } else {
+            ringHead = (ringHead + 1) % REPLAY_CAPACITY;
+        }
+    }
+
+    /**
+     * 取出该事件名下暂存且未过期的事件，按发生顺序返回
+     */
+    synchronized List<Pending> drain(String eventName) {
+        if (ringSize == 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        List<Pending> drained = null;
+        Pending[] kept = new Pending[REPLAY_CAPACITY];
+        int keptSize = 0;
+        for (int i = 0; i < ringSize; i++) {
+            Pending pending = ring[(ringHead + i) % REPLAY_CAPACITY];
+            if (now - pending.timestamp > REPLAY_MAX_AGE_MS) {
+                continue;
+            }
+            if (pending.eventName.equals(eventName)) {
+                if (drained == null) {
+                    drained = new ArrayList<>();
+                }
+                drained.add(pending);
+            } else {
+                kept[keptSize++] = pending;
+            }
+        }
+        Arrays.fill(ring, null);
+        System.arraycopy(kept, 0, ring, 0, keptSize);
+        ringHead = 0;
+        ringSize = keptSize;
+        return drained;
+    }
+
+    synchronized int bufferedCount() {
+        return ringSize;
+    }
+}
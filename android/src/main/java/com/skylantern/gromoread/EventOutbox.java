@@ -0,0 +1,121 @@
+package com.skylantern.gromoread;
+
+import android.os.Handler;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 事件发件箱
+ * 批量模式下把SDK生命周期事件排队，按帧间隔合并成一次 onGroMoreEvents 发给JS，
+ * 减少JS线程繁忙时的bridge往返次数。未开启批量或被标记为立即发送的事件照常逐条发送
+ */
+final class EventOutbox {
+    static final String BATCH_EVENT = "onGroMoreEvents";
+    // 约一帧
+    static final long DEFAULT_INTERVAL_MS = 16;
+    static final long MAX_INTERVAL_MS = 1000;
+
+    /**
+     * 实际发往JS的出口
+     */
+    interface Emitter {
+        void emit(String eventName, WritableMap params);
+    }
+
+    private final Handler handler;
+    private final Emitter emitter;
+    private final Set<String> immediateEvents = new HashSet<>();
+    private ArrayList<String> pendingNames = new ArrayList<>();
+    private ArrayList<WritableMap> pendingParams = new ArrayList<>();
+    private ArrayList<Long> pendingTimes = new ArrayList<>();
+    private boolean batching = false;
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private boolean flushScheduled = false;
+
+    private final Runnable flushTask = this::flush;
+
+    EventOutbox(Handler handler, Emitter emitter) {
+        this.handler = handler;
+        this.emitter = emitter;
+    }
+
+    /**
+     * 配置投递方式，关闭批量时立即冲刷已排队的事件
+     */
+    void configure(boolean batching, long intervalMs, Set<String> immediateEvents) {
+        synchronized (this) {
+            this.batching = batching;
+            this.intervalMs = Math.max(1, Math.min(MAX_INTERVAL_MS, intervalMs));
+            this.immediateEvents.clear();
+            if (immediateEvents != null) {
+                this.immediateEvents.addAll(immediateEvents);
+            }
+        }
+        if (!batching) {
+            flush();
+        }
+    }
+
+    synchronized boolean isBatching() {
+        return batching;
+    }
+
+    void send(String eventName, WritableMap params) {
+        synchronized (this) {
+            if (batching && !immediateEvents.contains(eventName)) {
+                pendingNames.add(eventName);
+                pendingParams.add(params);
+                pendingTimes.add(System.currentTimeMillis());
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    handler.postDelayed(flushTask, intervalMs);
+                }
+                return;
+            }
+        }
+        // 立即发送前先冲刷已排队的事件，保证同一事件流内的顺序
+        flush();
+        emitter.emit(eventName, params);
+    }
+
+    /**
+     * 把排队中的事件合并成一次发送
+     */
+    void flush() {
+        ArrayList<String> names;
+        ArrayList<WritableMap> params;
+        ArrayList<Long> times;
+        synchronized (this) {
+            handler.removeCallbacks(flushTask);
+            flushScheduled = false;
+            if (pendingNames.isEmpty()) {
+                return;
+            }
+            names = pendingNames;
+            params = pendingParams;
+            times = pendingTimes;
+            pendingNames = new ArrayList<>();
+            pendingParams = new ArrayList<>();
+            pendingTimes = new ArrayList<>();
+        }
+
+        WritableArray events = Arguments.createArray();
+        for (int i = 0; i < names.size(); i++) {
+            WritableMap event = Arguments.createMap();
+            event.putString("name", names.get(i));
+            event.putMap("data", params.get(i));
+            event.putDouble("timestamp", times.get(i));
+            events.pushMap(event);
+        }
+        WritableMap batch = Arguments.createMap();
+        batch.putArray("events", events);
+        batch.putInt("count", names.size());
+        emitter.emit(BATCH_EVENT, batch);
+    }
+}
@@ -0,0 +1,34 @@
+package com.skylantern.gromoread;
+
+import com.bytedance.sdk.openadsdk.TTNativeExpressAd;
+
+import java.util.List;
+
+/**
+ * 模板广告（信息流、横幅）的加载入口，只有 SdkAdBackend 实现
+ * 模板广告的视图由SDK渲染，与 AdBackend 分开，AdBackend 不依赖SDK类型
+ */
+interface ExpressAdLoader {
+    // 模板广告的种类
+    int FEED = 0;
+    int BANNER = 1;
+
+    /**
+     * 模板广告加载回调
+     */
+    interface Callback {
+        void onLoaded(List<TTNativeExpressAd> ads);
+
+        void onFailed(int code, String message);
+    }
+
+    /**
+     * 是否可以发起加载
+     */
+    boolean isReady();
+
+    /**
+     * 加载模板广告，kind 为 FEED 或 BANNER，heightDp 为 0 表示自适应高度
+     */
+    void loadExpress(int kind, String adUnitId, int widthDp, int heightDp, int count, Callback callback);
+}
@@ -0,0 +1,406 @@
+package com.skylantern.gromoread;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.View;
+
+import com.bytedance.sdk.openadsdk.TTNativeExpressAd;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 信息流广告预取队列
+ * 按广告位预先加载并渲染好模板广告，列表行挂载时直接绑定，不在滚动中等网络。
+ * 预取深度随滚动速度变化，已渲染广告（待用 + 按行暂存）总数有上限。
+ * 所有方法都在主线程调用
+ */
+final class FeedAdPrefetcher {
+    private static final String TAG = "FeedAdPrefetcher";
+    static final int MIN_DEPTH = 1;
+    static final int MAX_DEPTH = 5;
+    // 单次请求最多的广告条数
+    static final int MAX_BATCH = 3;
+    // 已渲染广告的总数上限
+    static final int MAX_RENDERED = 10;
+    // 按行暂存的已展示广告上限，滚回该行时复用而不重新请求
+    static final int PARKED_CAPACITY = 6;
+    // 每多少 px/s 的滚动速度多预取一条
+    static final float VELOCITY_PER_AD = 1500f;
+    static final long AD_TTL_MS = 30 * 60 * 1000L;
+    static final int DEFAULT_WIDTH_DP = 360;
+
+    private static FeedAdPrefetcher instance;
+    // 预取策略给出的深度上限，有行在等待时仍会加载
+    private static int depthLimit = MAX_DEPTH;
+
+    /**
+     * 已渲染好的一条信息流广告
+     */
+    static final class Rendered {
+        final String adUnitId;
+        final TTNativeExpressAd ad;
+        final View view;
+        final float width;
+        final float height;
+        final long renderedAt;
+        boolean shown;
+        Host host;
+
+        Rendered(String adUnitId, TTNativeExpressAd ad, View view, float width, float height) {
+            this.adUnitId = adUnitId;
+            this.ad = ad;
+            this.view = view;
+            this.width = width;
+            this.height = height;
+            this.renderedAt = SystemClock.elapsedRealtime();
+        }
+
+        boolean isExpired(long now) {
+            return now - renderedAt > AD_TTL_MS;
+        }
+    }
+
+    /**
+     * 当前绑定广告的视图，接收展示与点击回调
+     */
+    interface Host {
+        void onAdShow(Rendered rendered);
+
+        void onAdClick(Rendered rendered);
+
+        /**
+         * 宿主Activity销毁，广告即将被销毁，视图应立即移除它
+         */
+        void onAdRevoked(Rendered rendered);
+    }
+
+    /**
+     * 等待广告的列表行
+     */
+    interface Consumer {
+        void onAdReady(Rendered rendered);
+    }
+
+    private static final class UnitQueue {
+        final String adUnitId;
+        final ArrayDeque<Rendered> ready = new ArrayDeque<>();
+        final ArrayDeque<Consumer> waiting = new ArrayDeque<>();
+        int widthDp = DEFAULT_WIDTH_DP;
+        int targetDepth = MIN_DEPTH;
+        boolean loading;
+        int rendering;
+
+        UnitQueue(String adUnitId) {
+            this.adUnitId = adUnitId;
+        }
+    }
+
+    private final ExpressAdLoader backend;
+    private final Map<String, UnitQueue> queues = new HashMap<>();
+    // unit|slotKey -> 已展示过的广告，按访问顺序淘汰
+    private final LinkedHashMap<String, Rendered> parked = new LinkedHashMap<>(16, 0.75f, true);
+    // 已交给列表行、尚未交还的广告
+    private final Set<Rendered> bound = new HashSet<>();
+
+    private FeedAdPrefetcher(ExpressAdLoader backend) {
+        this.backend = backend;
+    }
+
+    static synchronized FeedAdPrefetcher get(Context context) {
+        if (instance == null) {
+            instance = new FeedAdPrefetcher(SdkAdBackend.shared(context));
+        }
+        return instance;
+    }
+
+    /**
+     * 已创建时返回实例，不触发创建
+     */
+    static synchronized FeedAdPrefetcher peek() {
+        return instance;
+    }
+
+    /**
+     * 设置预取深度上限，实例创建前设置也会生效
+     */
+    static void setDepthLimit(int limit) {
+        depthLimit = Math.max(MIN_DEPTH, Math.min(MAX_DEPTH, limit));
+    }
+
+    void setWidth(String adUnitId, int widthDp) {
+        if (widthDp > 0) {
+            queue(adUnitId).widthDp = widthDp;
+        }
+    }
+
+    /**
+     * 上报列表滚动速度（px/s），速度越快预取越深，停止滚动后回到最小深度
+     */
+    void reportScroll(String adUnitId, float velocity) {
+        UnitQueue queue = queue(adUnitId);
+        int depth = MIN_DEPTH + Math.round(Math.abs(velocity) / VELOCITY_PER_AD);
+        queue.targetDepth = Math.max(MIN_DEPTH, Math.min(MAX_DEPTH, depth));
+        fill(queue);
+    }
+
+    /**
+     * 主动预取到指定深度，列表首屏出现前调用
+     */
+    void prefetch(String adUnitId, int depth) {
+        UnitQueue queue = queue(adUnitId);
+        queue.targetDepth = Math.max(MIN_DEPTH, Math.min(MAX_DEPTH, depth));
+        fill(queue);
+    }
+
+    /**
+     * 为列表行取一条广告：优先取该行暂存的广告，其次取预取队列；
+     * 都没有时登记等待，返回 null
+     */
+    Rendered acquire(String adUnitId, String slotKey, Consumer consumer) {
+        if (slotKey != null) {
+            Rendered kept = parked.remove(parkKey(adUnitId, slotKey));
+            if (kept != null && !kept.isExpired(SystemClock.elapsedRealtime())) {
+                bound.add(kept);
+                return kept;
+            }
+            if (kept != null) {
+                destroy(kept);
+            }
+        }
+
+        UnitQueue queue = queue(adUnitId);
+        Rendered next = pollReady(queue);
+        if (next == null) {
+            queue.waiting.add(consumer);
+        } else {
+            bound.add(next);
+        }
+        fill(queue);
+        return next;
+    }
+
+    void cancel(String adUnitId, Consumer consumer) {
+        UnitQueue queue = queues.get(adUnitId);
+        if (queue != null) {
+            queue.waiting.remove(consumer);
+        }
+    }
+
+    /**
+     * 列表行回收时交还广告：有行标识的暂存等待滚回，未展示过的放回队首，其余销毁
+     */
+    void release(Rendered rendered, String slotKey) {
+        bound.remove(rendered);
+        rendered.host = null;
+        if (rendered.isExpired(SystemClock.elapsedRealtime())) {
+            destroy(rendered);
+            return;
+        }
+        if (slotKey != null) {
+            parked.put(parkKey(rendered.adUnitId, slotKey), rendered);
+            enforceLimits();
+            return;
+        }
+        if (!rendered.shown) {
+            UnitQueue queue = queue(rendered.adUnitId);
+            Consumer waiter = queue.waiting.poll();
+            if (waiter != null) {
+                bound.add(rendered);
+                waiter.onAdReady(rendered);
+            } else {
+                queue.ready.addFirst(rendered);
+                enforceLimits();
+            }
+            return;
+        }
+        destroy(rendered);
+    }
+
+    /**
+     * 把已渲染广告总数压到 keep 以内，先淘汰暂存的，再淘汰队列中最旧的
+     */
+    void trim(int keep) {
+        Iterator<Rendered> parkedIt = parked.values().iterator();
+        while (renderedCount() > keep && parkedIt.hasNext()) {
+            Rendered rendered = parkedIt.next();
+            parkedIt.remove();
+            destroy(rendered);
+        }
+        for (UnitQueue queue : queues.values()) {
+            while (renderedCount() > keep && !queue.ready.isEmpty()) {
+                destroy(queue.ready.pollLast());
+            }
+        }
+    }
+
+    /**
+     * 列表行不再使用的广告（例如用户选择不感兴趣）直接销毁
+     */
+    void discard(Rendered rendered) {
+        bound.remove(rendered);
+        destroy(rendered);
+    }
+
+    /**
+     * 宿主Activity销毁时调用：销毁所有广告，包括正绑定在列表行上的，并清空等待中的列表行，
+     * 单例之后不再引用任何视图
+     */
+    void clear() {
+        for (UnitQueue queue : queues.values()) {
+            queue.waiting.clear();
+        }
+        List<Rendered> revoked = new ArrayList<>(bound);
+        bound.clear();
+        for (Rendered rendered : revoked) {
+            Host host = rendered.host;
+            if (host != null) {
+                host.onAdRevoked(rendered);
+            }
+            destroy(rendered);
+        }
+        trim(0);
+    }
+
+    int renderedCount() {
+        int count = parked.size();
+        for (UnitQueue queue : queues.values()) {
+            count += queue.ready.size();
+        }
+        return count;
+    }
+
+    private void enforceLimits() {
+        while (parked.size() > PARKED_CAPACITY) {
+            Iterator<Rendered> it = parked.values().iterator();
+            Rendered eldest = it.next();
+            it.remove();
+            destroy(eldest);
+        }
+        if (renderedCount() > MAX_RENDERED) {
+            trim(MAX_RENDERED);
+        }
+    }
+
+    private Rendered pollReady(UnitQueue queue) {
+        long now = SystemClock.elapsedRealtime();
+        Rendered next;
+        while ((next = queue.ready.poll()) != null) {
+            if (!next.isExpired(now)) {
+                return next;
+            }
+            destroy(next);
+        }
+        return null;
+    }
+
+    private void fill(UnitQueue queue) {
+        if (queue.loading || !backend.isReady()) {
+            return;
+        }
+        int need = Math.min(queue.targetDepth, depthLimit) + queue.waiting.size() - queue.ready.size() - queue.rendering;
+        // 没有行在等待时受总量上限约束
+        if (queue.waiting.isEmpty()) {
+            need = Math.min(need, MAX_RENDERED - renderedCount() - queue.rendering);
+        }
+        if (need <= 0) {
+            return;
+        }
+        load(queue, Math.min(need, MAX_BATCH));
+    }
+
+    private void load(UnitQueue queue, int count) {
+        queue.loading = true;
+        backend.loadExpress(ExpressAdLoader.FEED, queue.adUnitId, queue.widthDp, 0, count, new ExpressAdLoader.Callback() {
+            @Override
+            public void onFailed(int code, String message) {
+                GroLog.e(TAG, "Feed ad load failed", code, message);
+                queue.loading = false;
+            }
+
+            @Override
+            public void onLoaded(List<TTNativeExpressAd> ads) {
+                queue.loading = false;
+                if (ads == null) {
+                    return;
+                }
+                for (TTNativeExpressAd ad : ads) {
+                    render(queue, ad);
+                }
+            }
+        });
+    }
+
+    private void render(UnitQueue queue, TTNativeExpressAd ad) {
+        queue.rendering++;
+        final Rendered[] holder = new Rendered[1];
+        ad.setExpressInteractionListener(new TTNativeExpressAd.ExpressAdInteractionListener() {
+            @Override
+            public void onAdClicked(View view, int type) {
+                Rendered rendered = holder[0];
+                if (rendered != null && rendered.host != null) {
+                    rendered.host.onAdClick(rendered);
+                }
+            }
+
+            @Override
+            public void onAdShow(View view, int type) {
+                Rendered rendered = holder[0];
+                if (rendered != null) {
+                    rendered.shown = true;
+                    if (rendered.host != null) {
+                        rendered.host.onAdShow(rendered);
+                    }
+                }
+            }
+
+            @Override
+            public void onRenderFail(View view, String message, int code) {
+                GroLog.e(TAG, "Feed ad render failed", code, message);
+                queue.rendering--;
+                ad.destroy();
+            }
+
+            @Override
+            public void onRenderSuccess(View view, float width, float height) {
+                queue.rendering--;
+                Rendered rendered = new Rendered(queue.adUnitId, ad, view, width, height);
+                holder[0] = rendered;
+                Consumer waiter = queue.waiting.poll();
+                if (waiter != null) {
+                    bound.add(rendered);
+                    waiter.onAdReady(rendered);
+                } else {
+                    queue.ready.add(rendered);
+                    enforceLimits();
+                }
+            }
+        });
+        ad.render();
+    }
+
+    private void destroy(Rendered rendered) {
+        rendered.host = null;
+        rendered.ad.destroy();
+    }
+
+    private UnitQueue queue(String adUnitId) {
+        UnitQueue queue = queues.get(adUnitId);
+        if (queue == null) {
+            queue = new UnitQueue(adUnitId);
+            queues.put(adUnitId, queue);
+        }
+        return queue;
+    }
+
+    private static String parkKey(String adUnitId, String slotKey) {
+        return adUnitId + "|" + slotKey;
+    }
+}
@@ -0,0 +1,318 @@
+package com.skylantern.gromoread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 原生频次控制
+ * 按广告位和广告类型分别限制时间窗内的展示次数和两次展示的最小间隔。
+ * 计数保存在定长记录的内存映射文件里：检查只读内存，写入由系统回写磁盘，进程被杀也不丢；
+ * 规则不持久化，由调用方每次启动时配置
+ */
+final class FrequencyCap {
+    static final long DEFAULT_WINDOW_MS = 24 * 60 * 60 * 1000L;
+    static final String REASON_INTERVAL = "interval";
+    static final String REASON_LIMIT = "limit";
+    // 被频次控制拦截时返回的错误码
+    static final int CODE_CAPPED = -2;
+
+    private static final String TAG = "GroMoreModule";
+    // "GMFC"
+    private static final int MAGIC = 0x474d4643;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    // 键哈希(8) + 时间窗起点(8) + 上次展示时间(8) + 次数(4) + 保留(4)
+    private static final int RECORD_BYTES = 32;
+    private static final int MAX_RECORDS = 128;
+    private static final int OFFSET_WINDOW_START = 8;
+    private static final int OFFSET_LAST_SHOWN = 16;
+    private static final int OFFSET_COUNT = 24;
+
+    /**
+     * 一条频次规则，maxImpressions 为 0 时不限次数，minIntervalMs 为 0 时不限间隔
+     */
+    static final class Rule {
+        final int maxImpressions;
+        final long windowMs;
+        final long minIntervalMs;
+
+        Rule(int maxImpressions, long windowMs, long minIntervalMs) {
+            this.maxImpressions = Math.max(0, maxImpressions);
+            this.windowMs = windowMs > 0 ? windowMs : DEFAULT_WINDOW_MS;
+            this.minIntervalMs = Math.max(0, minIntervalMs);
+        }
+    }
+
+    private final File file;
+    private ByteBuffer buffer;
+    // 键哈希 -> 记录序号
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Map<String, Rule> unitRules = new HashMap<>();
+    private final Map<String, Rule> typeRules = new HashMap<>();
+
+    FrequencyCap(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 设置规则，adUnitId 为空时作用于整个类型，rule 为 null 时删除
+     */
+    synchronized void setRule(String adType, String adUnitId, Rule rule) {
+        if (adUnitId == null || adUnitId.isEmpty()) {
+            if (rule != null) {
+                typeRules.put(adType, rule);
+            } else {
+                typeRules.remove(adType);
+            }
+        } else if (rule != null) {
+            unitRules.put(AdPool.key(adType, adUnitId), rule);
+        } else {
+            unitRules.remove(AdPool.key(adType, adUnitId));
+        }
+    }
+
+    synchronized boolean hasRules() {
+        return !unitRules.isEmpty() || !typeRules.isEmpty();
+    }
+
+    /**
+     * 距离允许下一次展示还要等多久，0 表示现在可以展示
+     */
+    synchronized long retryAfterMs(String adType, String adUnitId, long now) {
+        if (unitRules.isEmpty() && typeRules.isEmpty()) {
+            return 0;
+        }
+        long wait = 0;
+        Rule unitRule = unitRules.get(AdPool.key(adType, adUnitId));
+        if (unitRule != null) {
+            wait = Math.max(wait, waitFor(unitRule, hash(adType, adUnitId), now, true));
+        }
+        Rule typeRule = typeRules.get(adType);
+        if (typeRule != null) {
+            wait = Math.max(wait, waitFor(typeRule, hash(adType, null), now, true));
+        }
+        return wait;
+    }
+
+    /**
+     * 时间窗内的展示次数是否已用完；只受间隔限制时仍可加载，供之后展示
+     */
+    synchronized boolean isLimitReached(String adType, String adUnitId, long now) {
+        return limitResetMs(adType, adUnitId, now) > 0;
+    }
+
+    /**
+     * 次数用完时距离时间窗重置还要多久，0 表示可以加载；不看展示间隔
+     */
+    synchronized long limitResetMs(String adType, String adUnitId, long now) {
+        if (unitRules.isEmpty() && typeRules.isEmpty()) {
+            return 0;
+        }
+        long wait = 0;
+        Rule unitRule = unitRules.get(AdPool.key(adType, adUnitId));
+        if (unitRule != null) {
+            wait = waitFor(unitRule, hash(adType, adUnitId), now, false);
+        }
+        Rule typeRule = typeRules.get(adType);
+        if (typeRule != null) {
+            wait = Math.max(wait, waitFor(typeRule, hash(adType, null), now, false));
+        }
+        return wait;
+    }
+
+    /**
+     * 记录一次展示，同时计入广告位和类型；没有规则时也计数，之后配置的规则立即生效
+     */
+    synchronized void recordImpression(String adType, String adUnitId, long now) {
+        if (adUnitId != null && !adUnitId.isEmpty()) {
+            Rule unitRule = unitRules.get(AdPool.key(adType, adUnitId));
+            increment(hash(adType, adUnitId), unitRule != null ? unitRule.windowMs : DEFAULT_WINDOW_MS, now);
+        }
+        Rule typeRule = typeRules.get(adType);
+        increment(hash(adType, null), typeRule != null ? typeRule.windowMs : DEFAULT_WINDOW_MS, now);
+    }
+
+    /**
+     * 广告位当前的频次状态
+     */
+    synchronized Map<String, Object> state(String adType, String adUnitId, long now) {
+        Map<String, Object> state = new HashMap<>();
+        Rule unitRule = unitRules.get(AdPool.key(adType, adUnitId));
+        Rule typeRule = typeRules.get(adType);
+        long intervalWait = 0;
+        long limitWait = 0;
+        if (unitRule != null) {
+            intervalWait = waitFor(unitRule, hash(adType, adUnitId), now, true);
+            limitWait = waitFor(unitRule, hash(adType, adUnitId), now, false);
+        }
+        if (typeRule != null) {
+            intervalWait = Math.max(intervalWait, waitFor(typeRule, hash(adType, null), now, true));
+            limitWait = Math.max(limitWait, waitFor(typeRule, hash(adType, null), now, false));
+        }
+        long wait = Math.max(intervalWait, limitWait);
+        state.put("allowed", wait == 0);
+        state.put("retryAfterMs", wait);
+        state.put("reason", wait == 0 ? null : limitWait > 0 ? REASON_LIMIT : REASON_INTERVAL);
+        state.put("unitCount", count(hash(adType, adUnitId), unitRule != null ? unitRule.windowMs : DEFAULT_WINDOW_MS, now));
+        state.put("typeCount", count(hash(adType, null), typeRule != null ? typeRule.windowMs : DEFAULT_WINDOW_MS, now));
+        int slot = slotOf(hash(adType, adUnitId), false);
+        state.put("lastShownAt", slot >= 0 ? buffer.getLong(offset(slot) + OFFSET_LAST_SHOWN) : 0);
+        return state;
+    }
+
+    /**
+     * 清空所有计数，规则保留
+     */
+    synchronized void reset() {
+        ByteBuffer buf = buffer();
+        for (int i = 0; i < MAX_RECORDS * RECORD_BYTES; i += 8) {
+            buf.putLong(HEADER_BYTES + i, 0);
+        }
+        slots.clear();
+    }
+
+    /**
+     * includeInterval 为 false 时只看次数限制
+     */
+    private long waitFor(Rule rule, long hash, long now, boolean includeInterval) {
+        int slot = slotOf(hash, false);
+        if (slot < 0) {
+            return 0;
+        }
+        int offset = offset(slot);
+        long wait = 0;
+        long lastShownAt = buffer.getLong(offset + OFFSET_LAST_SHOWN);
+        // 系统时间被调回时不按间隔拦截
+        if (includeInterval && rule.minIntervalMs > 0 && now >= lastShownAt) {
+            wait = Math.max(0, lastShownAt + rule.minIntervalMs - now);
+        }
+        if (rule.maxImpressions > 0) {
+            long windowStart = buffer.getLong(offset + OFFSET_WINDOW_START);
+            boolean inWindow = now >= windowStart && now - windowStart < rule.windowMs;
+            if (inWindow && buffer.getInt(offset + OFFSET_COUNT) >= rule.maxImpressions) {
+                wait = Math.max(wait, windowStart + rule.windowMs - now);
+            }
+        }
+        return wait;
+    }
+
+    private int count(long hash, long windowMs, long now) {
+        int slot = slotOf(hash, false);
+        if (slot < 0) {
+            return 0;
+        }
+        int offset = offset(slot);
+        long windowStart = buffer.getLong(offset + OFFSET_WINDOW_START);
+        return now >= windowStart && now - windowStart < windowMs ? buffer.getInt(offset + OFFSET_COUNT) : 0;
+    }
+
+    private void increment(long hash, long windowMs, long now) {
+        int offset = offset(slotOf(hash, true));
+        long windowStart = buffer.getLong(offset + OFFSET_WINDOW_START);
+        int count = buffer.getInt(offset + OFFSET_COUNT);
+        if (now < windowStart || now - windowStart >= windowMs) {
+            // 新的时间窗
+            buffer.putLong(offset + OFFSET_WINDOW_START, now);
+            count = 0;
+        }
+        buffer.putInt(offset + OFFSET_COUNT, count + 1);
+        buffer.putLong(offset + OFFSET_LAST_SHOWN, now);
+    }
+
+    /**
+     * 查找记录序号，create 为 true 时分配新记录；记录已满时复用最久未展示的一条
+     */
+    private int slotOf(long hash, boolean create) {
+        ByteBuffer buf = buffer();
+        Integer slot = slots.get(hash);
+        if (slot != null) {
+            return slot;
+        }
+        if (!create) {
+            return -1;
+        }
+        int target = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_RECORDS; i++) {
+            int offset = offset(i);
+            if (buf.getLong(offset) == 0) {
+                target = i;
+                break;
+            }
+            long lastShownAt = buf.getLong(offset + OFFSET_LAST_SHOWN);
+            if (lastShownAt < oldest) {
+                oldest = lastShownAt;
+                target = i;
+            }
+        }
+        int offset = offset(target);
+        long previous = buf.getLong(offset);
+        if (previous != 0) {
+            slots.remove(previous);
+        }
+        buf.putLong(offset, hash);
+        buf.putLong(offset + OFFSET_WINDOW_START, 0);
+        buf.putLong(offset + OFFSET_LAST_SHOWN, 0);
+        buf.putLong(offset + OFFSET_COUNT, 0);
+        slots.put(hash, target);
+        return target;
+    }
+
+    /**
+     * 首次使用时映射文件并建立索引，映射失败时退化为只在内存中计数
+     */
+    private ByteBuffer buffer() {
+        if (buffer != null) {
+            return buffer;
+        }
+        int size = HEADER_BYTES + MAX_RECORDS * RECORD_BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            GroLog.w(TAG, "Frequency cap store unavailable, counting in memory: ", e.getMessage());
+            buffer = ByteBuffer.allocate(size);
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            for (int i = 0; i < size; i += 8) {
+                buffer.putLong(i, 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        } else {
+            for (int i = 0; i < MAX_RECORDS; i++) {
+                long hash = buffer.getLong(offset(i));
+                if (hash != 0) {
+                    slots.put(hash, i);
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    /**
+     * 广告位或类型（adUnitId 为 null）的 64 位 FNV-1a 哈希，0 保留给空记录
+     */
+    private static long hash(String adType, String adUnitId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < adType.length(); i++) {
+            h = (h ^ adType.charAt(i)) * 0x100000001b3L;
+        }
+        // 类型和广告位用不同的分隔符，空广告位不会与类型撞键
+        h = (h ^ (adUnitId != null ? '|' : '*')) * 0x100000001b3L;
+        if (adUnitId != null) {
+            for (int i = 0; i < adUnitId.length(); i++) {
+                h = (h ^ adUnitId.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        return h != 0 ? h : 1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.skylantern.gromoread;
+
+import android.util.Log;
+
+/**
+ * 插件日志
+ * 按级别开关，发布构建默认只输出警告和错误。
+ * 消息按片段传入，只有级别开启时才拼接字符串，关闭时调用方不产生任何分配；
+ * 带数字的调试日志由调用方先判断 isDebug()
+ */
+final class GroLog {
+    static final int DEBUG = Log.DEBUG;
+    static final int INFO = Log.INFO;
+    static final int WARN = Log.WARN;
+    static final int ERROR = Log.ERROR;
+    static final int NONE = Log.ERROR + 2;
+
+    private static volatile int level = BuildConfig.DEBUG ? DEBUG : WARN;
+
+    private GroLog() {
+    }
+
+    static void setLevel(int newLevel) {
+        level = newLevel;
+    }
+
+    static int level() {
+        return level;
+    }
+
+    /**
+     * 按名称解析级别，无法识别时返回 -1
+     */
+    static int parseLevel(String name) {
+        if (name == null) {
+            return -1;
+        }
+        switch (name.toLowerCase()) {
+            case "debug":
+                return DEBUG;
+            case "info":
+                return INFO;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "none":
+                return NONE;
+            default:
+                return -1;
+        }
+    }
+
+    static String levelName(int value) {
+        if (value <= DEBUG) {
+            return "debug";
+        } else if (value == INFO) {
+            return "info";
+        } else if (value == WARN) {
+            return "warn";
+        } else if (value == ERROR) {
+            return "error";
+        }
+        return "none";
+    }
+
+    static boolean isDebug() {
+        return level <= DEBUG;
+    }
+
+    static void d(String tag, String message) {
+        if (level <= DEBUG) {
+            Log.d(tag, message);
+        }
+    }
+
+    static void d(String tag, String part1, String part2) {
+        if (level <= DEBUG) {
+            Log.d(tag, part1 + part2);
+        }
+    }
+
+    static void d(String tag, String part1, String part2, String part3, String part4) {
+        if (level <= DEBUG) {
+            Log.d(tag, part1 + part2 + part3 + part4);
+        }
+    }
+
+    static void w(String tag, String message) {
+        if (level <= WARN) {
+            Log.w(tag, message);
+        }
+    }
+
+    static void w(String tag, String part1, String part2) {
+        if (level <= WARN) {
+            Log.w(tag, part1 + part2);
+        }
+    }
+
+    static void e(String tag, String message) {
+        if (level <= ERROR) {
+            Log.e(tag, message);
+        }
+    }
+
+    static void e(String tag, String message, Throwable error) {
+        if (level <= ERROR) {
+            Log.e(tag, message, error);
+        }
+    }
+
+    /**
+     * SDK错误回调的常见格式："<message>: <code>, <detail>"
+     */
+    static void e(String tag, String message, int code, String detail) {
+        if (level <= ERROR) {
+            Log.e(tag, message + ": " + code + ", " + detail);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.skylantern.gromoread;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+import com.bytedance.sdk.openadsdk.TTAdDislike;
+import com.bytedance.sdk.openadsdk.TTNativeExpressAd;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+
+import java.util.List;
+
+/**
+ * 横幅广告视图
+ * 只有在已挂载、屏幕内可见且宿主在前台时才按间隔刷新；
+ * 刷新到期时不可见则等视图重新滚入屏幕再刷新，销毁时立即释放广告
+ */
+final class GroMoreBannerView extends FrameLayout implements LifecycleEventListener {
+    private static final String TAG = "GroMoreBannerView";
+    // 与 DEFAULT_AD_CONFIG.BANNER_CONFIG.refreshInterval 保持一致
+    static final int DEFAULT_REFRESH_INTERVAL_MS = 30000;
+    static final int MIN_REFRESH_INTERVAL_MS = 10000;
+    static final int DEFAULT_WIDTH_DP = 320;
+    static final int DEFAULT_HEIGHT_DP = 50;
+
+    private final ReactContext reactContext;
+    private final ExpressAdLoader backend;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Rect visibleRect = new Rect();
+
+    private String adUnitId;
+    private int refreshIntervalMs = DEFAULT_REFRESH_INTERVAL_MS;
+    private int widthDp = DEFAULT_WIDTH_DP;
+    private int heightDp = DEFAULT_HEIGHT_DP;
+
+    private TTNativeExpressAd bannerAd;
+    private String loadedAdUnitId;
+    private boolean loading = false;
+    private boolean attached = false;
+    private boolean hostResumed = true;
+    private boolean refreshDue = false;
+    private boolean scrollListening = false;
+    private boolean destroyed = false;
+    // 用户通过不感兴趣关闭后不再加载，直到广告位变化
+    private boolean dismissed = false;
+    private long loadedAt;
+
+    private final Runnable refreshTask = new Runnable() {
+        @Override
+        public void run() {
+            refreshDue = true;
+            refreshIfVisible();
+        }
+    };
+
+    private final ViewTreeObserver.OnScrollChangedListener scrollListener = this::refreshIfVisible;
+
+    // RN 不会为原生添加的子视图做布局，需要手动测量
+    private final Runnable measureAndLayout = new Runnable() {
+        @Override
+        public void run() {
+            measure(
+                    MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+            layout(getLeft(), getTop(), getLeft() + getWidth(), getTop() + getHeight());
+        }
+    };
+
+    GroMoreBannerView(ReactContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.backend = SdkAdBackend.shared(reactContext);
+        reactContext.addLifecycleEventListener(this);
+    }
+
+    void setAdUnitId(String adUnitId) {
+        if (adUnitId == null ? this.adUnitId != null : !adUnitId.equals(this.adUnitId)) {
+            dismissed = false;
+        }
+        this.adUnitId = adUnitId;
+    }
+
+    void setRefreshInterval(int refreshIntervalMs) {
+        // 0 表示不自动刷新
+        this.refreshIntervalMs = refreshIntervalMs <= 0 ? 0 : Math.max(MIN_REFRESH_INTERVAL_MS, refreshIntervalMs);
+    }
+
+    void setAdSize(int widthDp, int heightDp) {
+        this.widthDp = widthDp > 0 ? widthDp : DEFAULT_WIDTH_DP;
+        this.heightDp = heightDp > 0 ? heightDp : DEFAULT_HEIGHT_DP;
+    }
+
+    /**
+     * 属性更新后调用，广告位变化时重新加载
+     */
+    void onPropsUpdated() {
+        if (destroyed || adUnitId == null || adUnitId.isEmpty()) {
+            return;
+        }
+        if (!adUnitId.equals(loadedAdUnitId) && attached) {
+            load();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        post(measureAndLayout);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        attached = true;
+        if (bannerAd == null) {
+            onPropsUpdated();
+        } else {
+            resumeRefresh();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        attached = false;
+        pauseRefresh();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == VISIBLE) {
+            resumeRefresh();
+        } else {
+            pauseRefresh();
+        }
+    }
+
+    @Override
+    public void onHostResume() {
+        hostResumed = true;
+        resumeRefresh();
+    }
+
+    @Override
+    public void onHostPause() {
+        hostResumed = false;
+        pauseRefresh();
+    }
+
+    @Override
+    public void onHostDestroy() {
+        destroy();
+    }
+
+    /**
+     * 释放广告和所有回调，视图被RN回收时调用
+     */
+    void destroy() {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        pauseRefresh();
+        removeCallbacks(measureAndLayout);
+        reactContext.removeLifecycleEventListener(this);
+        releaseAd();
+        GroLog.d(TAG, "Banner destroyed for ", adUnitId);
+    }
+
+    private void load() {
+        if (loading || destroyed || dismissed) {
+            return;
+        }
+        if (!backend.isReady()) {
+            emitError(-1, "SDK not initialized");
+            return;
+        }
+
+        final String requestedUnitId = adUnitId;
+        loading = true;
+        refreshDue = false;
+        backend.loadExpress(ExpressAdLoader.BANNER, requestedUnitId, widthDp, heightDp, 1, new ExpressAdLoader.Callback() {
+            @Override
+            public void onFailed(int code, String message) {
+                GroLog.e(TAG, "Banner load failed", code, message);
+                loading = false;
+                if (destroyed) {
+                    return;
+                }
+                emitError(code, message);
+                // 失败后按同样的间隔重试，仍受可见性约束
+                scheduleRefresh(refreshIntervalMs);
+            }
+
+            @Override
+            public void onLoaded(List<TTNativeExpressAd> ads) {
+                loading = false;
+                if (ads == null || ads.isEmpty()) {
+                    onFailed(-1, "No banner ad returned");
+                    return;
+                }
+                TTNativeExpressAd ad = ads.get(0);
+                if (destroyed) {
+                    ad.destroy();
+                    return;
+                }
+                bindAd(ad, requestedUnitId);
+            }
+        });
+    }
+
+    private void bindAd(TTNativeExpressAd ad, String requestedUnitId) {
+        ad.setExpressInteractionListener(new TTNativeExpressAd.ExpressAdInteractionListener() {
+            @Override
+            public void onAdClicked(View view, int type) {
+                emit("topAdClick", Arguments.createMap());
+            }
+
+            @Override
+            public void onAdShow(View view, int type) {
+                emit("topAdShow", Arguments.createMap());
+            }
+
+            @Override
+            public void onRenderFail(View view, String message, int code) {
+                GroLog.e(TAG, "Banner render failed", code, message);
+                ad.destroy();
+                if (!destroyed) {
+                    emitError(code, message);
+                    scheduleRefresh(refreshIntervalMs);
+                }
+            }
+
+            @Override
+            public void onRenderSuccess(View view, float width, float height) {
+                if (destroyed || dismissed) {
+                    ad.destroy();
+                    return;
+                }
+                // 新广告渲染成功后再替换旧广告，避免刷新时闪白
+                releaseAd();
+                bannerAd = ad;
+                loadedAdUnitId = requestedUnitId;
+                loadedAt = SystemClock.elapsedRealtime();
+                addView(view);
+                requestLayout();
+
+                WritableMap data = Arguments.createMap();
+                data.putDouble("width", width);
+                data.putDouble("height", height);
+                emit("topAdLoaded", data);
+                scheduleRefresh(refreshIntervalMs);
+            }
+        });
+
+        Activity activity = reactContext.getCurrentActivity();
+        if (activity != null) {
+            ad.setDislikeCallback(activity, new TTAdDislike.DislikeInteractionCallback() {
+                @Override
+                public void onShow() {
+                }
+
+                @Override
+                public void onSelected(int position, String value, boolean enforce) {
+                    // 用户关闭后不再刷新，回到前台或重新可见时也不重新加载
+                    dismissed = true;
+                    pauseRefresh();
+                    releaseAd();
+                    WritableMap data = Arguments.createMap();
+                    data.putString("reason", value);
+                    emit("topAdClose", data);
+                }
+
+                @Override
+                public void onCancel() {
+                }
+            });
+        }
+        ad.render();
+    }
+
+    private void releaseAd() {
+        removeAllViews();
+        if (bannerAd != null) {
+            bannerAd.destroy();
+            bannerAd = null;
+        }
+    }
+
+    private boolean canRefresh() {
+        return !destroyed && !dismissed && attached && hostResumed && refreshIntervalMs > 0;
+    }
+
+    private void scheduleRefresh(long delayMs) {
+        mainHandler.removeCallbacks(refreshTask);
+        if (canRefresh()) {
+            mainHandler.postDelayed(refreshTask, Math.max(0, delayMs));
+        }
+    }
+
+    /**
+     * 暂停刷新：取消计时并停止监听滚动
+     */
+    private void pauseRefresh() {
+        mainHandler.removeCallbacks(refreshTask);
+        setScrollListening(false);
+    }
+
+    /**
+     * 恢复刷新：已过期的广告立即检查刷新，否则补足剩余间隔
+     */
+    private void resumeRefresh() {
+        if (!canRefresh()) {
+            return;
+        }
+        if (bannerAd == null) {
+            // 上次加载失败后被暂停，回到前台时重试
+            if (!loading && adUnitId != null && !adUnitId.isEmpty()) {
+                refreshDue = true;
+                refreshIfVisible();
+            }
+            return;
+        }
+        long elapsed = SystemClock.elapsedRealtime() - loadedAt;
+        if (refreshDue || elapsed >= refreshIntervalMs) {
+            refreshDue = true;
+            refreshIfVisible();
+        } else {
+            scheduleRefresh(refreshIntervalMs - elapsed);
+        }
+    }
+
+    /**
+     * 刷新到期且视图在屏幕内时才真正加载，否则等待滚动回可见区域
+     */
+    private void refreshIfVisible() {
+        if (!refreshDue || !canRefresh()) {
+            setScrollListening(false);
+            return;
+        }
+        if (isShown() && getGlobalVisibleRect(visibleRect)) {
+            setScrollListening(false);
+            load();
+        } else {
+            setScrollListening(true);
+        }
+    }
+
+    private void setScrollListening(boolean listening) {
+        if (scrollListening == listening) {
+            return;
+        }
+        ViewTreeObserver observer = getViewTreeObserver();
+        if (observer == null || !observer.isAlive()) {
+            scrollListening = false;
+            return;
+        }
+        if (listening) {
+            observer.addOnScrollChangedListener(scrollListener);
+        } else {
+            observer.removeOnScrollChangedListener(scrollListener);
+        }
+        scrollListening = listening;
+    }
+
+    private void emitError(int code, String message) {
+        WritableMap data = Arguments.createMap();
+        data.putInt("code", code);
+        data.putString("message", message);
+        emit("topAdError", data);
+    }
+
+    private void emit(String eventName, WritableMap data) {
+        if (adUnitId != null) {
+            data.putString("adUnitId", adUnitId);
+        }
+        reactContext.getJSModule(RCTEventEmitter.class).receiveEvent(getId(), eventName, data);
+    }
+}
@@ -0,0 +1,70 @@
+package com.skylantern.gromoread;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.SimpleViewManager;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+import java.util.Map;
+
+/**
+ * 横幅广告原生视图，JS侧组件名 GroMoreBannerView
+ */
+public class GroMoreBannerViewManager extends SimpleViewManager<GroMoreBannerView> {
+    static final String NAME = "GroMoreBannerView";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected GroMoreBannerView createViewInstance(ThemedReactContext reactContext) {
+        return new GroMoreBannerView(reactContext);
+    }
+
+    @ReactProp(name = "adUnitId")
+    public void setAdUnitId(GroMoreBannerView view, String adUnitId) {
+        view.setAdUnitId(adUnitId);
+    }
+
+    @ReactProp(name = "refreshInterval", defaultInt = GroMoreBannerView.DEFAULT_REFRESH_INTERVAL_MS)
+    public void setRefreshInterval(GroMoreBannerView view, int refreshIntervalMs) {
+        view.setRefreshInterval(refreshIntervalMs);
+    }
+
+    @ReactProp(name = "adSize")
+    public void setAdSize(GroMoreBannerView view, ReadableMap size) {
+        if (size == null) {
+            view.setAdSize(0, 0);
+            return;
+        }
+        view.setAdSize(
+                size.hasKey("width") ? size.getInt("width") : 0,
+                size.hasKey("height") ? size.getInt("height") : 0);
+    }
+
+    @Override
+    protected void onAfterUpdateTransaction(GroMoreBannerView view) {
+        super.onAfterUpdateTransaction(view);
+        view.onPropsUpdated();
+    }
+
+    @Override
+    public void onDropViewInstance(GroMoreBannerView view) {
+        view.destroy();
+        super.onDropViewInstance(view);
+    }
+
+    @Override
+    public Map<String, Object> getExportedCustomDirectEventTypeConstants() {
+        return MapBuilder.<String, Object>builder()
+                .put("topAdLoaded", MapBuilder.of("registrationName", "onAdLoaded"))
+                .put("topAdError", MapBuilder.of("registrationName", "onAdError"))
+                .put("topAdShow", MapBuilder.of("registrationName", "onAdShow"))
+                .put("topAdClick", MapBuilder.of("registrationName", "onAdClick"))
+                .put("topAdClose", MapBuilder.of("registrationName", "onAdClose"))
+                .build();
+    }
+}
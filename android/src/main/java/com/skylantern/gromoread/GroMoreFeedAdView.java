@@ -0,0 +1,208 @@
+package com.skylantern.gromoread;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.FrameLayout;
+
+import com.bytedance.sdk.openadsdk.TTAdDislike;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+
+/**
+ * 信息流广告行视图
+ * 从预取队列取已渲染的广告直接绑定，被RN回收后交还广告并进入视图复用池
+ */
+final class GroMoreFeedAdView extends FrameLayout
+        implements FeedAdPrefetcher.Consumer, FeedAdPrefetcher.Host {
+    private final ReactContext reactContext;
+    private final FeedAdPrefetcher prefetcher;
+
+    private String adUnitId;
+    private String slotKey;
+    private int widthDp;
+    private String boundUnitId;
+    private String boundSlotKey;
+    private FeedAdPrefetcher.Rendered rendered;
+    private boolean waiting = false;
+
+    // RN 不会为原生添加的子视图做布局，需要手动测量
+    private final Runnable measureAndLayout = new Runnable() {
+        @Override
+        public void run() {
+            measure(
+                    MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+            layout(getLeft(), getTop(), getLeft() + getWidth(), getTop() + getHeight());
+        }
+    };
+
+    GroMoreFeedAdView(ReactContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.prefetcher = FeedAdPrefetcher.get(reactContext);
+    }
+
+    ReactContext reactContext() {
+        return reactContext;
+    }
+
+    void setAdUnitId(String adUnitId) {
+        this.adUnitId = adUnitId;
+    }
+
+    void setSlotKey(String slotKey) {
+        this.slotKey = slotKey;
+    }
+
+    void setAdWidth(int widthDp) {
+        this.widthDp = widthDp;
+    }
+
+    /**
+     * 属性更新后调用，广告位或行标识变化时重新绑定
+     */
+    void onPropsUpdated() {
+        if (adUnitId == null || adUnitId.isEmpty()) {
+            return;
+        }
+        if (adUnitId.equals(boundUnitId) && equalsNullable(slotKey, boundSlotKey)) {
+            return;
+        }
+        unbind();
+        prefetcher.setWidth(adUnitId, widthDp);
+        boundUnitId = adUnitId;
+        boundSlotKey = slotKey;
+        FeedAdPrefetcher.Rendered ready = prefetcher.acquire(adUnitId, slotKey, this);
+        if (ready != null) {
+            bind(ready);
+        } else {
+            waiting = true;
+        }
+    }
+
+    /**
+     * 交还广告并清空状态，放入复用池前调用
+     */
+    void recycle() {
+        unbind();
+        boundUnitId = null;
+        boundSlotKey = null;
+        adUnitId = null;
+        slotKey = null;
+        widthDp = 0;
+        removeCallbacks(measureAndLayout);
+    }
+
+    @Override
+    public void onAdReady(FeedAdPrefetcher.Rendered ready) {
+        waiting = false;
+        bind(ready);
+    }
+
+    @Override
+    public void onAdShow(FeedAdPrefetcher.Rendered ad) {
+        emit("topAdShow", Arguments.createMap());
+    }
+
+    @Override
+    public void onAdClick(FeedAdPrefetcher.Rendered ad) {
+        emit("topAdClick", Arguments.createMap());
+    }
+
+    @Override
+    public void onAdRevoked(FeedAdPrefetcher.Rendered ad) {
+        if (rendered != ad) {
+            return;
+        }
+        rendered = null;
+        removeAllViews();
+        boundUnitId = null;
+        boundSlotKey = null;
+    }
+
+    @Override
+    public void requestLayout() {
+        super.requestLayout();
+        post(measureAndLayout);
+    }
+
+    private void bind(FeedAdPrefetcher.Rendered ready) {
+        rendered = ready;
+        ready.host = this;
+        detach(ready.view);
+        removeAllViews();
+        addView(ready.view);
+        requestLayout();
+
+        Activity activity = reactContext.getCurrentActivity();
+        if (activity != null) {
+            ready.ad.setDislikeCallback(activity, new TTAdDislike.DislikeInteractionCallback() {
+                @Override
+                public void onShow() {
+                }
+
+                @Override
+                public void onSelected(int position, String value, boolean enforce) {
+                    // 用户不感兴趣：销毁广告，由JS移除这一行
+                    FeedAdPrefetcher.Rendered closed = rendered;
+                    rendered = null;
+                    removeAllViews();
+                    if (closed != null) {
+                        prefetcher.discard(closed);
+                    }
+                    WritableMap data = Arguments.createMap();
+                    data.putString("reason", value);
+                    emit("topAdClose", data);
+                }
+
+                @Override
+                public void onCancel() {
+                }
+            });
+        }
+
+        WritableMap data = Arguments.createMap();
+        data.putDouble("width", ready.width);
+        data.putDouble("height", ready.height);
+        emit("topAdLoaded", data);
+        if (ready.shown) {
+            // 滚回的暂存广告已经展示过，SDK不会再回调
+            emit("topAdShow", Arguments.createMap());
+        }
+    }
+
+    private void unbind() {
+        if (waiting && boundUnitId != null) {
+            prefetcher.cancel(boundUnitId, this);
+        }
+        waiting = false;
+        if (rendered != null) {
+            FeedAdPrefetcher.Rendered released = rendered;
+            rendered = null;
+            removeAllViews();
+            prefetcher.release(released, boundSlotKey);
+        }
+    }
+
+    private void emit(String eventName, WritableMap data) {
+        if (boundUnitId != null) {
+            data.putString("adUnitId", boundUnitId);
+        }
+        reactContext.getJSModule(RCTEventEmitter.class).receiveEvent(getId(), eventName, data);
+    }
+
+    private static void detach(View view) {
+        ViewParent parent = view.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(view);
+        }
+    }
+
+    private static boolean equalsNullable(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,102 @@
+package com.skylantern.gromoread;
+
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.common.MapBuilder;
+import com.facebook.react.uimanager.SimpleViewManager;
+import com.facebook.react.uimanager.ThemedReactContext;
+import com.facebook.react.uimanager.annotations.ReactProp;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * 信息流广告原生视图，JS侧组件名 GroMoreFeedAdView
+ * 被回收的行视图进入复用池，列表滚动时新行直接复用，不再重复创建；
+ * 宿主Activity销毁时清空复用池，视图持有的上下文不会留到Activity之后
+ */
+public class GroMoreFeedAdViewManager extends SimpleViewManager<GroMoreFeedAdView> {
+    static final String NAME = "GroMoreFeedAdView";
+    static final int MAX_RECYCLED_VIEWS = 8;
+
+    private final ArrayDeque<GroMoreFeedAdView> recycled = new ArrayDeque<>();
+    private boolean listening = false;
+    // 宿主已销毁，之后回收的视图不再进入复用池
+    private boolean hostDestroyed = false;
+    private final LifecycleEventListener hostListener = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            hostDestroyed = false;
+        }
+
+        @Override
+        public void onHostPause() {
+        }
+
+        @Override
+        public void onHostDestroy() {
+            hostDestroyed = true;
+            recycled.clear();
+        }
+    };
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected GroMoreFeedAdView createViewInstance(ThemedReactContext reactContext) {
+        if (!listening) {
+            reactContext.addLifecycleEventListener(hostListener);
+            listening = true;
+        }
+        hostDestroyed = false;
+        GroMoreFeedAdView view;
+        while ((view = recycled.poll()) != null) {
+            if (view.reactContext() == reactContext && view.getParent() == null) {
+                return view;
+            }
+        }
+        return new GroMoreFeedAdView(reactContext);
+    }
+
+    @ReactProp(name = "adUnitId")
+    public void setAdUnitId(GroMoreFeedAdView view, String adUnitId) {
+        view.setAdUnitId(adUnitId);
+    }
+
+    @ReactProp(name = "slotKey")
+    public void setSlotKey(GroMoreFeedAdView view, String slotKey) {
+        view.setSlotKey(slotKey);
+    }
+
+    @ReactProp(name = "adWidth")
+    public void setAdWidth(GroMoreFeedAdView view, int widthDp) {
+        view.setAdWidth(widthDp);
+    }
+
+    @Override
+    protected void onAfterUpdateTransaction(GroMoreFeedAdView view) {
+        super.onAfterUpdateTransaction(view);
+        view.onPropsUpdated();
+    }
+
+    @Override
+    public void onDropViewInstance(GroMoreFeedAdView view) {
+        view.recycle();
+        super.onDropViewInstance(view);
+        if (!hostDestroyed && recycled.size() < MAX_RECYCLED_VIEWS) {
+            recycled.add(view);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getExportedCustomDirectEventTypeConstants() {
+        return MapBuilder.<String, Object>builder()
+                .put("topAdLoaded", MapBuilder.of("registrationName", "onAdLoaded"))
+                .put("topAdShow", MapBuilder.of("registrationName", "onAdShow"))
+                .put("topAdClick", MapBuilder.of("registrationName", "onAdClick"))
+                .put("topAdClose", MapBuilder.of("registrationName", "onAdClose"))
+                .build();
+    }
+}
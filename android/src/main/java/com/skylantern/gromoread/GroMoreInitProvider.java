@@ -0,0 +1,79 @@
+package com.skylantern.gromoread;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+
+/**
+ * 应用启动阶段的SDK预初始化入口
+ * 仅当宿主应用在 AndroidManifest 的 application 节点下声明了
+ * {@code com.skylantern.gromoread.WARM_START_APP_ID} meta-data 时才会初始化，
+ * 这样SDK可以在JS bridge启动前就开始初始化。
+ * 可选的 {@code APP_NAME}、{@code SUPPORT_MULTI_PROCESS} meta-data 对应 init 的同名配置
+ */
+public class GroMoreInitProvider extends ContentProvider {
+    private static final String TAG = "GroMoreInitProvider";
+    static final String META_APP_ID = "com.skylantern.gromoread.WARM_START_APP_ID";
+    static final String META_APP_NAME = "com.skylantern.gromoread.APP_NAME";
+    static final String META_SUPPORT_MULTI_PROCESS = "com.skylantern.gromoread.SUPPORT_MULTI_PROCESS";
+
+    @Override
+    public boolean onCreate() {
+        Context context = getContext();
+        if (context == null) {
+            return false;
+        }
+
+        try {
+            ApplicationInfo info = context.getPackageManager()
+                    .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+            Bundle metaData = info.metaData;
+            // 纯数字的appId会被解析成Integer，读取为Object后统一转成字符串
+            Object appId = metaData != null ? metaData.get(META_APP_ID) : null;
+            if (appId == null) {
+                return false;
+            }
+            GroMoreSdk.Options options = new GroMoreSdk.Options();
+            String appName = metaData.getString(META_APP_NAME);
+            if (appName != null) {
+                options.appName(appName);
+            }
+            options.supportMultiProcess(metaData.getBoolean(META_SUPPORT_MULTI_PROCESS, false));
+            GroLog.d(TAG, "Warm starting GroMore SDK");
+            GroMoreSdk.warmStart(context, String.valueOf(appId), options);
+        } catch (Exception e) {
+            GroLog.e(TAG, "Warm start failed", e);
+        }
+        return false;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        return null;
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return null;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        return 0;
+    }
+}
@@ -3,105 +3,313 @@ package com.skylantern.gromoread;
 import android.os.Bundle;
 import android.os.Handler;
 
-import com.bytedance.sdk.openadsdk.AdSlot;
-import com.bytedance.sdk.openadsdk.CSJAdError;
 import com.bytedance.sdk.openadsdk.CSJSplashAd;
 // GroMore SDK imports
-import com.bytedance.sdk.openadsdk.TTAdConfig;
 import com.bytedance.sdk.openadsdk.TTAdConstant;
-import com.bytedance.sdk.openadsdk.TTAdNative;
 import com.bytedance.sdk.openadsdk.TTAdSdk;
 import com.bytedance.sdk.openadsdk.TTFullScreenVideoAd;
 import com.bytedance.sdk.openadsdk.TTRewardVideoAd;
+import com.bytedance.sdk.openadsdk.mediation.manager.MediationAdEcpmInfo;
+import com.bytedance.sdk.openadsdk.mediation.manager.MediationBaseManager;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewParent;
 import android.widget.FrameLayout;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * GroMore广告模块
  * 提供完整的GroMore SDK集成功能
+ * 新架构下继承 codegen 生成的 TurboModule 规范，旧架构下是普通的 bridge 模块（见 GroMoreModuleSpec）
  */
-public class GroMoreModule extends ReactContextBaseJavaModule implements LifecycleEventListener {
+public class GroMoreModule extends GroMoreModuleSpec implements LifecycleEventListener {
+    public static final String NAME = "GroMoreModule";
     private static final String TAG = "GroMoreModule";
+    // 冷启动开屏的默认时限，与 DEFAULT_AD_CONFIG.SPLASH_AD_CONFIG.timeout 保持一致
+    private static final int DEFAULT_SPLASH_DEADLINE_MS = 5000;
+    private static final int MIN_SPLASH_DEADLINE_MS = 500;
+    private static final String SPLASH_LOADED = "loaded";
+    private static final String SPLASH_FAILED = "failed";
+    private static final String SPLASH_TIMEOUT = "timeout";
+    private static final String SPLASH_CAPPED = "capped";
+    // 热启动开屏：后台停留超过该时长才预加载并在回到前台时展示
+    private static final long DEFAULT_HOT_SPLASH_THRESHOLD_MS = 30 * 1000L;
+    // 预加载的开屏超过该时长视为不新鲜，不再展示
+    private static final long DEFAULT_HOT_SPLASH_MAX_AGE_MS = 5 * 60 * 1000L;
+    // 回到前台时开屏尚未就绪，最多等待的时长，超时则不展示
+    private static final long DEFAULT_HOT_SPLASH_MAX_WAIT_MS = 500;
+    private static final int HOT_SPLASH_LOAD_TIMEOUT_MS = 5000;
+    private static final String RACE_FIRST = "first";
+    private static final String RACE_BEST = "best";
+    // waitForCache 时等待素材缓存的默认时长，超时按未缓存返回
+    private static final long DEFAULT_CACHE_WAIT_MS = 10 * 1000L;
+    // 过期广告清理间隔
+    private static final long EVICTION_INTERVAL_MS = 60 * 1000L;
+    private static final String[] POOLED_TYPES = {AdTypes.SPLASH, AdTypes.FULL_SCREEN_VIDEO, AdTypes.REWARD_VIDEO};
     private ReactApplicationContext reactContext;
-    private TTAdNative adNative;
-    private CSJSplashAd splashAd;
-    private TTRewardVideoAd rewardVideoAd;
-    private TTFullScreenVideoAd fullScreenVideoAd;
-    private boolean isSDKInitialized = false;
+    // SDK就绪、正在展示的开屏、热启动开屏配置等跨线程状态，变更串行执行，读取无锁
+    private final AdStateStore stateStore = new AdStateStore();
+    private final AdPool adPool = new AdPool();
+    private final TraceRing trace = new TraceRing();
+    private final PerformanceLedger ledger = new PerformanceLedger();
+    private final AdMetrics metrics = new AdMetrics(trace, ledger);
+    private final SdkAdBackend sdkBackend;
+    // 视频广告的库存、单飞和补货，加载后端调试构建可切换为模拟后端
+    private final AdLoadCoordinator loads;
+    private final AdRefillScheduler refillScheduler;
+    private final FrequencyCap frequencyCap;
+    // 按网络、电量和省电模式限制后台预取
+    private final PrefetchPolicy prefetchPolicy;
+    private SimulatedAdBackend simulatedBackend;
+    private final Runnable evictionTask = new Runnable() {
+        @Override
+        public void run() {
+            evictExpiredAds();
+            mainHandler.postDelayed(this, EVICTION_INTERVAL_MS);
+        }
+    };
     private Handler mainHandler = new Handler(Looper.getMainLooper());
+    // 读取库存时发现过期广告，合并成一次淘汰
+    private final AtomicBoolean expiryEvictionPosted = new AtomicBoolean();
+    private final Runnable expiryEvictionTask = () -> {
+        expiryEvictionPosted.set(false);
+        evictExpiredAds();
+    };
+    private final EventOutbox eventOutbox = new EventOutbox(mainHandler, this::emitEvent);
+    private final EventListenerRegistry listenerRegistry = new EventListenerRegistry();
+    // 以下视图和热启动进度只在主线程访问
     private ViewGroup splashContainer;
+    private long backgroundedAt = 0;
+    private boolean hotSplashLoading = false;
+    private boolean hotSplashWaiting = false;
+    private final Runnable hotSplashPreloadTask = this::preloadHotSplash;
+    private final Runnable hotSplashWaitTimeout = () -> {
+        if (hotSplashWaiting) {
+            hotSplashWaiting = false;
+            sendHotSplashEvent("timeout", 0);
+        }
+    };
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            trimAds(level);
+        }
+
+        @Override
+        public void onLowMemory() {
+            trimAds(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+    };
+    private final GroMoreSdk.Listener sdkReadyListener = new GroMoreSdk.Listener() {
+        @Override
+        public void onReady() {
+            onSdkReady(null);
+        }
+
+        @Override
+        public void onFailed(int code, String message) {
+            GroLog.e(TAG, "Warm start failed", code, message);
+            trace.record(TraceRing.SDK_FAILED, null, null, 0, code);
+        }
+    };
+
+    private final AdLoadCoordinator.Listener loadListener = new AdLoadCoordinator.Listener() {
+        @Override
+        public void onAdLoaded(AdPool.Entry entry) {
+            final String adType = entry.adType;
+            final String adUnitId = entry.adUnitId;
+            if (AdTypes.REWARD_VIDEO.equals(adType)) {
+                sendUnitEvent("onRewardVideoLoaded", adUnitId);
+            }
+            entry.whenCached(() -> {
+                trace.record(TraceRing.CACHED, adType, adUnitId, entry.cachedAt - entry.loadedAt, 0);
+                if (AdTypes.REWARD_VIDEO.equals(adType)) {
+                    sendUnitEvent("onRewardVideoCached", adUnitId);
+                }
+            });
+        }
+
+        @Override
+        public void onAdLoadFailed(String adType, String adUnitId, int code, String message) {
+            if (AdTypes.REWARD_VIDEO.equals(adType) && isEventWanted("onRewardVideoError")) {
+                WritableMap errorData = Arguments.createMap();
+                errorData.putInt("code", code);
+                errorData.putString("message", message);
+                errorData.putString("adUnitId", adUnitId);
+                sendEvent("onRewardVideoError", errorData);
+            }
+        }
+    };
 
     public GroMoreModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.sdkBackend = SdkAdBackend.shared(reactContext);
+        // 展示计数不随应用数据备份迁移到新设备
+        this.frequencyCap = new FrequencyCap(new File(reactContext.getNoBackupFilesDir(), "gromore_frequency_cap.bin"));
+        this.loads = new AdLoadCoordinator(adPool, sdkBackend, metrics, frequencyCap, GroMoreModule::releaseAd, loadListener);
+        this.refillScheduler = loads.refillScheduler();
+        ledger.open(new File(reactContext.getNoBackupFilesDir(), "gromore_ledger.bin"));
+        adPool.setExpiryListener(() -> {
+            if (expiryEvictionPosted.compareAndSet(false, true)) {
+                mainHandler.post(expiryEvictionTask);
+            }
+        });
+        this.prefetchPolicy = new PrefetchPolicy(reactContext, mainHandler, this::onPrefetchPolicyChanged);
+        mainHandler.post(prefetchPolicy::start);
         reactContext.addLifecycleEventListener(this);
-        Log.d(TAG, "GroMoreModule 构造函数被调用");
+        reactContext.getApplicationContext().registerComponentCallbacks(memoryCallbacks);
+        GroLog.d(TAG, "GroMoreModule 构造函数被调用");
+
+        // 预初始化已完成或稍后完成时，模块直接进入就绪状态
+        if (GroMoreSdk.state() != GroMoreSdk.STATE_IDLE) {
+            GroMoreSdk.addListener(sdkReadyListener);
+        }
     }
 
     @Override
     public String getName() {
-        return "GroMoreModule";
+        return NAME;
     }
 
     @Override
     public void onHostResume() {
-        Log.d(TAG, "onHostResume");
+        GroLog.d(TAG, "onHostResume");
+        // 回到前台时立即清理一次，之后按固定间隔清理
+        mainHandler.removeCallbacks(evictionTask);
+        mainHandler.post(evictionTask);
+        onHotLaunch();
     }
 
     @Override
     public void onHostPause() {
-        Log.d(TAG, "onHostPause");
+        GroLog.d(TAG, "onHostPause");
+        mainHandler.removeCallbacks(evictionTask);
+        eventOutbox.flush();
+
+        backgroundedAt = SystemClock.elapsedRealtime();
+        mainHandler.removeCallbacks(hotSplashWaitTimeout);
+        hotSplashWaiting = false;
+        AdStateStore.Snapshot snapshot = stateStore.snapshot();
+        if (snapshot.hotSplash.enabled && !snapshot.adActivityActive) {
+            // 在后台停留够久才预加载，短暂切出不消耗开屏请求
+            mainHandler.removeCallbacks(hotSplashPreloadTask);
+            mainHandler.postDelayed(hotSplashPreloadTask, snapshot.hotSplash.thresholdMs);
+        }
     }
 
     @Override
     public void onHostDestroy() {
-        Log.d(TAG, "onHostDestroy");
-        if (splashAd != null) {
-            splashAd = null;
+        GroLog.d(TAG, "onHostDestroy");
+        mainHandler.removeCallbacks(evictionTask);
+        mainHandler.removeCallbacks(hotSplashPreloadTask);
+        mainHandler.removeCallbacks(hotSplashWaitTimeout);
+        eventOutbox.flush();
+        // 开屏容器挂在Activity的视图树上，不能留到Activity销毁之后
+        if (splashContainer != null) {
+            removeFromParent(splashContainer);
+            splashContainer = null;
+        }
+        stateStore.update(s -> s.withoutSplash().withAdActivity(false));
+        hotSplashLoading = false;
+        hotSplashWaiting = false;
+        for (String adType : POOLED_TYPES) {
+            for (AdPool.Entry entry : adPool.trim(adType, 0)) {
+                releaseAd(entry);
+            }
         }
-        if (rewardVideoAd != null) {
-            rewardVideoAd = null;
+        adPool.clear();
+        FeedAdPrefetcher feedPrefetcher = FeedAdPrefetcher.peek();
+        if (feedPrefetcher != null) {
+            mainHandler.post(feedPrefetcher::clear);
         }
-        if (fullScreenVideoAd != null) {
-            fullScreenVideoAd = null;
+    }
+
+    @Override
+    public void invalidate() {
+        reactContext.getApplicationContext().unregisterComponentCallbacks(memoryCallbacks);
+        if (simulatedBackend != null) {
+            simulatedBackend.shutdown();
         }
+        loads.shutdown();
+        mainHandler.post(prefetchPolicy::stop);
+        stateStore.shutdown();
+        ledger.shutdown();
+        super.invalidate();
     }
 
     // Required for React Native's NativeEventEmitter bridge
     // See: https://reactnative.dev/docs/native-modules-android#sending-events-to-javascript
     @ReactMethod
     public void addListener(String eventName) {
-        // No-op: RN JS side manages subscriptions; this method is required to avoid warnings
+        listenerRegistry.add(eventName);
+
+        // 补发订阅建立前暂存的关键事件
+        List<EventListenerRegistry.Pending> replay = listenerRegistry.drain(eventName);
+        if (replay == null) {
+            return;
+        }
+        for (EventListenerRegistry.Pending pending : replay) {
+            pending.params.putBoolean("replayed", true);
+            pending.params.putDouble("occurredAt", pending.timestamp);
+            eventOutbox.send(pending.eventName, pending.params);
+        }
     }
 
     @ReactMethod
     public void removeListeners(double count) {
-        // No-op: RN JS side manages subscriptions; this method is required to avoid warnings
+        listenerRegistry.removeCount((int) count);
     }
 
     /**
-     * 初始化GroMore SDK
+     * 按事件名取消一次订阅
+     * RN 的 removeListeners 只有数量，本插件的JS封装会额外调用这里以便精确跳过无人订阅的事件
      */
     @ReactMethod
-    public void init(String appId, Promise promise) {
-        Log.d(TAG, "init called with appId: " + appId);
-        
-        if (isSDKInitialized) {
-            Log.d(TAG, "SDK already initialized");
+    public void releaseListener(String eventName) {
+        listenerRegistry.release(eventName);
+    }
+
+    /**
+     * 初始化GroMore SDK，应用启动阶段已预初始化时复用同一次初始化
+     * options 可配置 appName、debug、supportMultiProcess、allowShowNotify、
+     * useTextureView、titleBarTheme、directDownloadNetworkTypes，为 null 时使用默认配置
+     */
+    @ReactMethod
+    public void init(String appId, ReadableMap options, Promise promise) {
+        GroLog.d(TAG, "init called with appId: ", appId);
+
+        if (stateStore.snapshot().sdkReady) {
+            GroLog.d(TAG, "SDK already initialized");
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
             result.putString("message", "SDK already initialized");
@@ -109,293 +317,2127 @@ public class GroMoreModule extends ReactContextBaseJavaModule implements Lifecyc
             return;
         }
 
-        try {
-            // 创建SDK配置
-            TTAdConfig adConfig = new TTAdConfig.Builder()
-                    .appId(appId)
-                    .appName("SkyLanternWishes")
-                    .titleBarTheme(TTAdConstant.TITLE_BAR_THEME_DARK)
-                    .allowShowNotify(true)
-                    .debug(true)
-                    .directDownloadNetworkType(TTAdConstant.NETWORK_STATE_WIFI, TTAdConstant.NETWORK_STATE_3G)
-                    .supportMultiProcess(false)
-                    .useMediation(true)
-                    .build();
-
-            // 初始化SDK
-            boolean initResult = TTAdSdk.init(reactContext, adConfig);
-            Log.d(TAG, "TTAdSdk.init() result: " + initResult);
-
-            if (initResult) {
-                // 启动SDK
-                TTAdSdk.start(new TTAdSdk.Callback() {
-                    @Override
-                    public void success() {
-                        Log.d(TAG, "GroMore SDK started successfully");
-                        isSDKInitialized = true;
-                        adNative = TTAdSdk.getAdManager().createAdNative(reactContext);
-                        
-                        WritableMap result = Arguments.createMap();
-                        result.putBoolean("success", true);
-                        result.putString("message", "SDK initialized successfully");
-                        result.putString("sdkVersion", TTAdSdk.getAdManager().getSDKVersion());
-                        promise.resolve(result);
-                    }
+        GroMoreSdk.start(reactContext, appId, sdkOptions(options));
+        GroMoreSdk.addListener(new GroMoreSdk.Listener() {
+            @Override
+            public void onReady() {
+                // 就绪状态发布后再返回，JS随后的调用不会读到未就绪
+                onSdkReady(() -> {
+                    WritableMap result = Arguments.createMap();
+                    result.putBoolean("success", true);
+                    result.putString("message", "SDK initialized successfully");
+                    result.putString("sdkVersion", TTAdSdk.getAdManager().getSDKVersion());
+                    result.putBoolean("warmStart", GroMoreSdk.isWarmStart());
+                    result.putDouble("initCallMs", GroMoreSdk.initCallMs());
+                    result.putDouble("initDurationMs", GroMoreSdk.initDurationMs());
+                    result.putArray("adapters", toWritableArray(Arrays.asList(GroMoreSdk.adapters())));
+                    promise.resolve(result);
+                });
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                trace.record(TraceRing.SDK_FAILED, null, null, 0, code);
+                promise.reject(code == -1 ? "SDK_INIT_FAILED" : "SDK_START_FAILED", message);
+            }
+        });
+    }
 
-                    @Override
-                    public void fail(int code, String msg) {
-                        Log.e(TAG, "GroMore SDK start failed: " + code + ", " + msg);
-                        WritableMap result = Arguments.createMap();
-                        result.putBoolean("success", false);
-                        result.putString("message", "SDK start failed: " + msg);
-                        result.putInt("code", code);
-                        promise.reject("SDK_START_FAILED", msg);
+    /**
+     * 查询SDK初始化状态
+     */
+    @ReactMethod
+    public void getSdkState(Promise promise) {
+        promise.resolve(sdkStateMap());
+    }
+
+    /**
+     * 等待SDK就绪，超时后按当前状态返回
+     */
+    @ReactMethod
+    public void awaitSdkReady(double timeoutMs, Promise promise) {
+        if (stateStore.snapshot().sdkReady) {
+            promise.resolve(sdkStateMap());
+            return;
+        }
+
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        final GroMoreSdk.Listener listener = new GroMoreSdk.Listener() {
+            @Override
+            public void onReady() {
+                onSdkReady(() -> {
+                    if (settled.compareAndSet(false, true)) {
+                        promise.resolve(sdkStateMap());
                     }
                 });
-            } else {
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("success", false);
-                result.putString("message", "SDK init failed");
-                promise.reject("SDK_INIT_FAILED", "SDK init failed");
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Exception during SDK initialization", e);
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "Exception: " + e.getMessage());
-            promise.reject("SDK_INIT_EXCEPTION", e.getMessage());
-        }
+
+            @Override
+            public void onFailed(int code, String message) {
+                if (settled.compareAndSet(false, true)) {
+                    promise.resolve(sdkStateMap());
+                }
+            }
+        };
+        mainHandler.postDelayed(() -> {
+            if (settled.compareAndSet(false, true)) {
+                GroMoreSdk.removeListener(listener);
+                promise.resolve(sdkStateMap());
+            }
+        }, (long) timeoutMs);
+        GroMoreSdk.addListener(listener);
     }
 
     /**
      * 加载并显示开屏广告
+     * 使用默认的冷启动时限
      */
     @ReactMethod
     public void loadSplashAd(String adUnitId, Promise promise) {
-        Log.d(TAG, "loadSplashAd called with adUnitId: " + adUnitId);
-        
-        if (!isSDKInitialized || adNative == null) {
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "SDK not initialized");
-            promise.resolve(result);
+        GroLog.d(TAG, "loadSplashAd called with adUnitId: ", adUnitId);
+        loadSplashAdWithDeadline(adUnitId, DEFAULT_SPLASH_DEADLINE_MS, promise);
+    }
+
+    /**
+     * 在限定时间内加载并显示开屏广告
+     * 原生侧自行计时，promise 一定且只会结束一次：loaded / failed / timeout，并附带耗时。
+     * 超时后才到达的广告不会再盖到应用上，而是放入库存供下次使用
+     */
+    @ReactMethod
+    public void loadSplashAdWithDeadline(String adUnitId, double deadlineMs, Promise promise) {
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "loadSplashAdWithDeadline called with adUnitId: " + adUnitId + ", deadlineMs: " + deadlineMs);
+        }
+
+        final SplashSession session = new SplashSession(adUnitId, promise);
+        final int deadline = (int) Math.max(MIN_SPLASH_DEADLINE_MS, deadlineMs);
+
+        final AdStateStore.Snapshot snapshot = stateStore.snapshot();
+        if (!snapshot.sdkReady) {
+            session.settle(SPLASH_FAILED, -1, "SDK not initialized");
+            return;
+        }
+        long capWaitMs = frequencyCap.retryAfterMs(AdTypes.SPLASH, adUnitId, System.currentTimeMillis());
+        if (capWaitMs > 0) {
+            session.settle(SPLASH_CAPPED, FrequencyCap.CODE_CAPPED, "Frequency capped, retry after " + capWaitMs + "ms");
             return;
         }
 
         try {
             Activity currentActivity = getCurrentActivity();
             if (currentActivity == null) {
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("success", false);
-                result.putString("message", "No current activity");
-                promise.resolve(result);
+                session.settle(SPLASH_FAILED, -1, "No current activity");
+                return;
+            }
+
+            // 上次超时后缓存下来的开屏广告可以直接展示
+            AdPool.Entry cached = adPool.poll(AdTypes.SPLASH, adUnitId);
+            if (cached != null) {
+                GroLog.d(TAG, "Showing cached splash ad");
+                if (session.settle(SPLASH_LOADED, 0, "Splash ad loaded from cache")) {
+                    presentSplash(cached);
+                }
                 return;
             }
 
-            // 创建开屏广告请求参数
-            AdSlot adSlot = new AdSlot.Builder()
-                    .setCodeId(adUnitId)
-                    .setImageAcceptedSize(1080, 2400)
-                    .build();
+            metrics.loadStarted(AdTypes.SPLASH, adUnitId);
+            mainHandler.postDelayed(session.timeoutTask, deadline);
 
-            // 加载开屏广告
-            adNative.loadSplashAd(adSlot, new TTAdNative.CSJSplashAdListener() {
+            // 加载开屏广告，后端超时与原生计时使用同一时限
+            loads.backend().loadSplash(adUnitId, deadline, new AdBackend.SplashCallback() {
                 @Override
-                public void onSplashLoadSuccess(CSJSplashAd ad) {
-                    Log.d(TAG, "Splash ad loaded successfully");
-                    splashAd = ad;
-                    
+                public void onLoaded() {
+                    session.loadedAt = SystemClock.elapsedRealtime();
+                    if (session.isSettled()) {
+                        // 已按超时计入一次请求结果，这条广告等渲染完成后入库存，渲染失败时销毁
+                        GroLog.d(TAG, "Splash ad loaded after deadline");
+                        metrics.loadArrivedLate(AdTypes.SPLASH, adUnitId, session.loadedAt - session.startedAt);
+                        return;
+                    }
+                    GroLog.d(TAG, "Splash ad loaded successfully");
+                    metrics.loadSucceeded(AdTypes.SPLASH, adUnitId, session.loadedAt - session.startedAt);
                     // 发送加载成功事件
-                    sendEvent("onSplashAdLoaded", Arguments.createMap());
-                    
+                    sendEvent("onSplashAdLoaded");
+                }
+
+                @Override
+                public void onLoadFailed(int code, String message) {
+                    GroLog.e(TAG, "Splash load fail", code, message);
+                    if (session.settle(SPLASH_FAILED, code, message)) {
+                        metrics.loadFailed(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - session.startedAt, code);
+                    }
+                }
+
+                @Override
+                public void onRenderFailed(Object ad, int code, String message) {
+                    GroLog.e(TAG, "Splash render fail", code, message);
+                    if (!session.settle(SPLASH_FAILED, code, message)) {
+                        // 超时后才到达的广告渲染失败，不会再被展示
+                        destroyAd(ad);
+                        return;
+                    }
+                    metrics.renderFailed(AdTypes.SPLASH, adUnitId, code);
+                    if (isEventWanted("onSplashAdRenderFail")) {
+                        WritableMap errorData = Arguments.createMap();
+                        errorData.putInt("code", code);
+                        errorData.putString("message", message);
+                        sendEvent("onSplashAdRenderFail", errorData);
+                    }
+                }
+
+                @Override
+                public void onRendered(AdPool.Entry entry) {
+                    if (session.loadedAt > 0) {
+                        metrics.rendered(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - session.loadedAt);
+                    }
+                    if (!session.settle(SPLASH_LOADED, 0, "Splash ad loaded")) {
+                        // 已超时：不再展示，缓存起来留给下一次
+                        GroLog.d(TAG, "Splash rendered after deadline; caching instead of showing");
+                        loads.offerOrRelease(entry);
+                        return;
+                    }
+                    GroLog.d(TAG, "Splash render success; preparing to show");
+                    presentSplash(entry);
+                }
+            });
+
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception during splash ad loading", e);
+            session.settle(SPLASH_FAILED, -1, "Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 加载激励视频广告
+     * 加载结果放入库存池，池已满时直接返回，不再发起网络请求；options 见 loadAd
+     */
+    @ReactMethod
+    public void loadRewardVideoAd(String adUnitId, ReadableMap options, Promise promise) {
+        GroLog.d(TAG, "loadRewardVideoAd called with adUnitId: ", adUnitId);
+        loadIntoPool(AdTypes.REWARD_VIDEO, adUnitId, options, promise);
+    }
+
+    /**
+     * 显示激励视频广告
+     * 旧接口不区分广告位，取池中最早加载的一条
+     */
+    @ReactMethod
+    public void showRewardVideoAd(Promise promise) {
+        GroLog.d(TAG, "showRewardVideoAd called");
+
+        AdPool.Entry entry = adPool.pollAny(AdTypes.REWARD_VIDEO);
+        if (entry == null) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "No reward video ad loaded");
+            promise.resolve(result);
+            return;
+        }
+        presentAd(entry, promise);
+    }
+
+    /**
+     * 加载全屏视频广告
+     * 加载结果放入库存池，池已满时直接返回，不再发起网络请求；options 见 loadAd
+     */
+    @ReactMethod
+    public void loadFullScreenVideoAd(String adUnitId, ReadableMap options, Promise promise) {
+        GroLog.d(TAG, "loadFullScreenVideoAd called with adUnitId: ", adUnitId);
+        loadIntoPool(AdTypes.FULL_SCREEN_VIDEO, adUnitId, options, promise);
+    }
+
+    /**
+     * 显示全屏视频广告
+     * 旧接口不区分广告位，取池中最早加载的一条
+     */
+    @ReactMethod
+    public void showFullScreenVideoAd(Promise promise) {
+        GroLog.d(TAG, "showFullScreenVideoAd called");
+
+        AdPool.Entry entry = adPool.pollAny(AdTypes.FULL_SCREEN_VIDEO);
+        if (entry == null) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "No full screen video ad loaded");
+            promise.resolve(result);
+            return;
+        }
+        presentAd(entry, promise);
+    }
+
+    /**
+     * 通用加载广告方法
+     * options.waitForCache 为 true 时等视频素材缓存完成才返回，最多等待 cacheTimeoutMs（默认10秒），
+     * 超时按 cached: false 返回，广告仍留在库存中
+     */
+    @ReactMethod
+    public void loadAd(String adType, String adUnitId, ReadableMap options, Promise promise) {
+        GroLog.d(TAG, "loadAd called with adType: ", adType, ", adUnitId: ", adUnitId);
+
+        String type = AdTypes.normalize(adType);
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        loadIntoPool(type, adUnitId, options, promise);
+    }
+
+    /**
+     * 通用显示广告方法
+     * 优先从对应广告位的库存池取广告，池为空时才等待网络加载；
+     * 该广告位已有加载在进行时直接等待它的结果
+     */
+    @ReactMethod
+    public void showAd(String adType, String adUnitId, Promise promise) {
+        GroLog.d(TAG, "showAd called with adType: ", adType, ", adUnitId: ", adUnitId);
+
+        String type = AdTypes.normalize(adType);
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        // 被频次控制拦截时不取库存，也不为展示发起加载
+        long capWaitMs = frequencyCap.retryAfterMs(type, adUnitId, System.currentTimeMillis());
+        if (capWaitMs > 0) {
+            promise.resolve(cappedResult("Frequency capped", capWaitMs));
+            return;
+        }
+
+        AdPool.Entry entry = adPool.poll(type, adUnitId);
+        if (entry != null) {
+            presentAd(entry, promise);
+            return;
+        }
+
+        GroLog.d(TAG, "Pool empty, loading before show: ", type, "/", adUnitId);
+        loads.loadShared(type, adUnitId, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry loaded) {
+                // 结果已入池，可能已被同时等待的其他展示取走
+                AdPool.Entry next = adPool.poll(type, adUnitId);
+                if (next == null) {
                     WritableMap result = Arguments.createMap();
-                    result.putBoolean("success", true);
-                    result.putString("message", "Splash ad loaded");
+                    result.putBoolean("success", false);
+                    result.putString("message", "Loaded ad was taken by another caller");
                     promise.resolve(result);
+                    return;
                 }
+                presentAd(next, promise);
+            }
 
-                @Override
-                public void onSplashLoadFail(CSJAdError adError) {
-                    Log.e(TAG, "Splash load fail: " + adError.getCode() + ", " + adError.getMsg());
+            @Override
+            public void onFailed(int code, String message) {
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", false);
+                result.putString("message", message);
+                result.putInt("code", code);
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * 在该类型的所有就绪广告中展示期望收益最高的一条，未选中的广告留在池中供之后展示
+     * 收益按聚合返回的 eCPM 乘以新鲜度估算：剩余有效期过半之前权重为 1，之后线性降到过期时的 0.5；
+     * 没有报价的按 0 计，收益相同时先展示较早加载的。adUnitIds 为空时不限广告位，
+     * 池中没有可展示的广告时按 adUnitIds 的第一个广告位走 showAd 的加载流程
+     */
+    @ReactMethod
+    public void showBestAd(String adType, ReadableArray adUnitIds, Promise promise) {
+        String type = AdTypes.normalize(adType);
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        Set<String> units = null;
+        String fallbackUnitId = null;
+        if (adUnitIds != null && adUnitIds.size() > 0) {
+            units = new HashSet<>();
+            for (int i = 0; i < adUnitIds.size(); i++) {
+                units.add(adUnitIds.getString(i));
+            }
+            fallbackUnitId = adUnitIds.getString(0);
+        }
+
+        // 报价在池锁外读取，被频次控制拦截的广告位不参与选择
+        long now = System.currentTimeMillis();
+        long capWaitMs = Long.MAX_VALUE;
+        List<AdPool.Entry> candidates = new ArrayList<>();
+        List<Double> ecpms = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        for (AdPool.Entry entry : adPool.entriesOfType(type, units)) {
+            long waitMs = frequencyCap.retryAfterMs(type, entry.adUnitId, now);
+            if (waitMs > 0) {
+                capWaitMs = Math.min(capWaitMs, waitMs);
+                continue;
+            }
+            double ecpm = ecpmOf(entry.ad, false);
+            candidates.add(entry);
+            ecpms.add(ecpm);
+            values.add(expectedValue(ecpm, entry, now));
+        }
+
+        List<Object> summary = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("adUnitId", candidates.get(i).adUnitId);
+            item.put("ecpm", ecpms.get(i) >= 0 ? ecpms.get(i) : null);
+            item.put("remainingMs", candidates.get(i).remainingMs(now));
+            item.put("value", values.get(i));
+            summary.add(item);
+        }
+
+        while (!candidates.isEmpty()) {
+            int best = 0;
+            for (int i = 1; i < candidates.size(); i++) {
+                int order = Double.compare(values.get(i), values.get(best));
+                if (order > 0 || (order == 0 && candidates.get(i).loadedAt < candidates.get(best).loadedAt)) {
+                    best = i;
+                }
+            }
+            AdPool.Entry entry = candidates.get(best);
+            if (adPool.remove(entry)) {
+                GroLog.d(TAG, "Best ad selected: ", type, "/", entry.adUnitId);
+                WritableMap selection = Arguments.createMap();
+                if (ecpms.get(best) >= 0) {
+                    selection.putDouble("ecpm", ecpms.get(best));
+                } else {
+                    selection.putNull("ecpm");
                 }
+                selection.putDouble("remainingMs", entry.remainingMs(now));
+                selection.putArray("candidates", toWritableArray(summary));
+                presentAd(entry, promise, selection);
+                return;
+            }
+            // 已被同时进行的其他展示取走
+            candidates.remove(best);
+            ecpms.remove(best);
+            values.remove(best);
+        }
+
+        if (capWaitMs != Long.MAX_VALUE) {
+            promise.resolve(cappedResult("Frequency capped", capWaitMs));
+            return;
+        }
+        if (fallbackUnitId != null) {
+            showAd(type, fallbackUnitId, promise);
+            return;
+        }
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", false);
+        result.putString("message", "No ready ad");
+        promise.resolve(result);
+    }
 
-                // Removed deprecated onNoAd; using onSplashLoadFail instead
+    /**
+     * 配置热启动开屏
+     * 开启后应用在后台停留超过 backgroundThresholdMs 时预加载并渲染开屏，回到前台立即展示；
+     * 预加载的开屏超过 maxAgeMs 不展示，回到前台时未就绪最多等待 maxWaitMs，超时则本次不展示
+     */
+    @ReactMethod
+    public void configureHotSplash(ReadableMap options, Promise promise) {
+        final boolean enabled = options.hasKey("enabled") && options.getBoolean("enabled");
+        // 未传广告位时沿用上次配置的广告位
+        final String adUnitId = options.hasKey("adUnitId") && !options.isNull("adUnitId")
+                ? options.getString("adUnitId") : stateStore.snapshot().hotSplash.adUnitId;
+        long thresholdMs = options.hasKey("backgroundThresholdMs")
+                ? (long) options.getDouble("backgroundThresholdMs") : DEFAULT_HOT_SPLASH_THRESHOLD_MS;
+        long maxAgeMs = options.hasKey("maxAgeMs")
+                ? (long) options.getDouble("maxAgeMs") : DEFAULT_HOT_SPLASH_MAX_AGE_MS;
+        long maxWaitMs = options.hasKey("maxWaitMs")
+                ? (long) options.getDouble("maxWaitMs") : DEFAULT_HOT_SPLASH_MAX_WAIT_MS;
+
+        final boolean missingUnit = enabled && (adUnitId == null || adUnitId.isEmpty());
+        final AdStateStore.HotSplashConfig config = new AdStateStore.HotSplashConfig(
+                enabled && !missingUnit, adUnitId, thresholdMs, maxAgeMs, maxWaitMs);
+        stateStore.update(s -> s.withHotSplash(config), (previous, current) -> {
+            WritableMap result = Arguments.createMap();
+            if (missingUnit) {
+                result.putBoolean("success", false);
+                result.putString("message", "adUnitId is required for hot splash");
+                promise.resolve(result);
+                return;
+            }
+            if (!config.enabled) {
+                mainHandler.post(() -> mainHandler.removeCallbacks(hotSplashPreloadTask));
+            }
+            result.putBoolean("success", true);
+            result.putBoolean("enabled", config.enabled);
+            promise.resolve(result);
+        });
+    }
+
+    /**
+     * 多个广告位并发加载竞速
+     * strategy 为 first 时第一条广告到达即返回；为 best 时等到全部结束或到时限，按 eCPM 选出最优，
+     * eCPM 相同或未知时按 unitIds 的顺序（高价位在前）。所有成功的广告都留在各自的库存池中供后续展示
+     */
+    @ReactMethod
+    public void loadAdRace(String adType, ReadableArray unitIds, double deadlineMs, String strategy, Promise promise) {
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "loadAdRace called with adType: " + adType + ", units: " + unitIds.size() + ", deadlineMs: " + deadlineMs);
+        }
+
+        String type = AdTypes.normalize(adType);
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        if (unitIds.size() == 0) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "No ad unit ids");
+            promise.resolve(result);
+            return;
+        }
 
+        String[] units = new String[unitIds.size()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = unitIds.getString(i);
+        }
+        final RaceSession race = new RaceSession(type, units, RACE_BEST.equals(strategy), promise);
+        mainHandler.postDelayed(race.deadlineTask, (long) Math.max(0, deadlineMs));
+
+        for (int i = 0; i < units.length; i++) {
+            final int index = i;
+            final String adUnitId = units[i];
+            refillScheduler.register(type, adUnitId);
+            List<AdPool.Entry> pooled = adPool.entries(type, adUnitId);
+            if (!pooled.isEmpty()) {
+                // 库存中已有广告，视为立即到达，按下一条将被展示的广告报价参与比较
+                race.onLoaded(index, ecpmOf(pooled.get(0).ad, false), false, true);
+                continue;
+            }
+            loads.loadShared(type, adUnitId, new InFlightLoads.Waiter() {
                 @Override
-                public void onSplashRenderFail(CSJSplashAd ad, CSJAdError adError) {
-                    Log.e(TAG, "Splash render fail: " + adError.getCode() + ", " + adError.getMsg());
-                    WritableMap errorData = Arguments.createMap();
-                    errorData.putInt("code", adError.getCode());
-                    errorData.putString("message", adError.getMsg());
-                    sendEvent("onSplashAdRenderFail", errorData);
+                public void onLoaded(AdPool.Entry entry) {
+                    race.onLoaded(index, ecpmOf(entry.ad, false), deduplicated, false);
                 }
 
                 @Override
-                public void onSplashRenderSuccess(CSJSplashAd ad) {
-                    Log.d(TAG, "Splash render success; preparing to show");
-                    splashAd = ad;
-
-                    // 绑定交互监听
-                    ad.setSplashAdListener(new CSJSplashAd.SplashAdListener() {
-                        @Override
-                        public void onSplashAdShow(CSJSplashAd splash) {
-                            sendEvent("onSplashShow", Arguments.createMap());
-                        }
+                public void onFailed(int code, String message) {
+                    race.onFailed(index, code, message);
+                }
+            });
+        }
+    }
+
+    /**
+     * 预加载广告，把指定广告位的库存补满到目标深度
+     */
+    @ReactMethod
+    public void preloadAd(String adType, String adUnitId, Promise promise) {
+        GroLog.d(TAG, "preloadAd called with adType: ", adType, ", adUnitId: ", adUnitId);
+
+        String type = AdTypes.normalize(adType);
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        refillScheduler.register(type, adUnitId);
+        final int requested = adPool.prefetchDeficit(type, adUnitId);
+        if (requested == 0) {
+            boolean limited = adPool.deficit(type, adUnitId) > 0;
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            result.putString("message", limited ? "Limited by prefetch policy" : "Ad pool already full");
+            result.putString("prefetchLevel", prefetchPolicy.current().level);
+            result.putInt("requested", 0);
+            result.putInt("loaded", 0);
+            result.putInt("poolSize", adPool.size(type, adUnitId));
+            promise.resolve(result);
+            return;
+        }
+
+        preloadNext(type, adUnitId, requested, new int[2], promise);
+    }
+
+    /**
+     * 逐条补库存，每条都走共享加载：进行中的加载或补货会被复用，不另发请求；
+     * 失败或库存已满时提前结束，失败的重试交给补货调度器
+     */
+    private void preloadNext(String type, String adUnitId, int requested, int[] counters, Promise promise) {
+        // counters: [完成数, 成功数]
+        loads.loadShared(type, adUnitId, new InFlightLoads.Waiter() {
+            private boolean capped;
+
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                counters[1]++;
+                next(true);
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                capped = code == FrequencyCap.CODE_CAPPED;
+                next(false);
+            }
+
+            private void next(boolean loaded) {
+                counters[0]++;
+                if (loaded && counters[0] < requested && adPool.prefetchDeficit(type, adUnitId) > 0) {
+                    preloadNext(type, adUnitId, requested, counters, promise);
+                    return;
+                }
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", counters[1] > 0);
+                result.putString("message", "Preloaded " + counters[1] + "/" + requested);
+                result.putInt("requested", requested);
+                result.putInt("loaded", counters[1]);
+                result.putInt("poolSize", adPool.size(type, adUnitId));
+                if (capped) {
+                    result.putBoolean("capped", true);
+                    result.putDouble("retryAfterMs", frequencyCap.limitResetMs(type, adUnitId, System.currentTimeMillis()));
+                }
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * 设置广告位的库存深度
+     * adUnitId 为空时修改默认深度
+     */
+    @ReactMethod
+    public void setPoolDepth(String adType, String adUnitId, double depthValue, Promise promise) {
+        int depth = (int) depthValue;
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "setPoolDepth called with adType: " + adType + ", adUnitId: " + adUnitId + ", depth: " + depth);
+        }
+
+        String type = AdTypes.normalize(adType);
+        if (adUnitId == null || adUnitId.isEmpty()) {
+            adPool.setDefaultDepth(depth);
+        } else if (type != null) {
+            adPool.setDepth(type, adUnitId, depth);
+        } else {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        result.putInt("depth", adUnitId == null || adUnitId.isEmpty()
+                ? adPool.defaultDepth() : adPool.depth(type, adUnitId));
+        promise.resolve(result);
+    }
+
+    /**
+     * 检查广告是否已加载
+     * 传入 adUnitId 时只统计该广告位的库存
+     */
+    @ReactMethod
+    public void isAdLoaded(String adType, String adUnitId, Promise promise) {
+        GroLog.d(TAG, "isAdLoaded called with adType: ", adType, ", adUnitId: ", adUnitId);
+
+        WritableMap result = Arguments.createMap();
+        String type = AdTypes.normalize(adType);
+
+        if (AdTypes.SPLASH.equals(type)) {
+            // 只看库存中等待展示的开屏，正在展示的那条不算
+            int count = adUnitId == null || adUnitId.isEmpty()
+                    ? adPool.sizeOfType(type) : adPool.size(type, adUnitId);
+            result.putBoolean("isLoaded", count > 0);
+            result.putInt("count", count);
+            result.putInt("cachedCount", count);
+        } else if (type != null) {
+            int count = adUnitId == null || adUnitId.isEmpty()
+                    ? adPool.sizeOfType(type)
+                    : adPool.size(type, adUnitId);
+            int cachedCount = adUnitId == null || adUnitId.isEmpty()
+                    ? adPool.cachedSizeOfType(type)
+                    : adPool.cachedSize(type, adUnitId);
+            result.putBoolean("isLoaded", count > 0);
+            result.putInt("count", count);
+            // 素材已缓存、可以立即流畅播放的广告数
+            result.putBoolean("isCached", cachedCount > 0);
+            result.putInt("cachedCount", cachedCount);
+            if (adUnitId != null && !adUnitId.isEmpty()) {
+                long now = System.currentTimeMillis();
+                // 下一条将被展示的广告还剩多久过期，便于调用方决定是否提前预加载
+                result.putDouble("remainingMs", adPool.remainingMs(type, adUnitId, now));
+                result.putDouble("ttlMs", adPool.ttl(type, adUnitId));
+                // 按展示顺序列出每条广告的状态
+                WritableArray ads = Arguments.createArray();
+                for (AdPool.Entry entry : adPool.entries(type, adUnitId)) {
+                    WritableMap ad = Arguments.createMap();
+                    ad.putString("state", entry.cached ? "cached" : "loaded");
+                    ad.putDouble("ageMs", now - entry.loadedAt);
+                    ad.putDouble("remainingMs", entry.remainingMs(now));
+                    ads.pushMap(ad);
+                }
+                result.putArray("ads", ads);
+            }
+        } else {
+            result.putBoolean("isLoaded", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+        }
+
+        promise.resolve(result);
+    }
+
+    /**
+     * 同步查询SDK是否就绪，新架构下是JSI直接调用，不经过bridge往返
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean isSdkReady() {
+        return stateStore.snapshot().sdkReady;
+    }
+
+    /**
+     * 同步查询广告位是否有可展示的广告，开屏同样按库存判断，正在展示的开屏不算
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean isAdReady(String adType, String adUnitId) {
+        String type = AdTypes.normalize(adType);
+        if (type == null) {
+            return false;
+        }
+        return poolSize(type, adUnitId) > 0;
+    }
+
+    /**
+     * 同步查询库存数量，adUnitId 为空时统计该类型全部广告位
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getPoolSize(String adType, String adUnitId) {
+        String type = AdTypes.normalize(adType);
+        return type == null ? 0 : poolSize(type, adUnitId);
+    }
+
+    /**
+     * 同步获取SDK版本，SDK不可用时返回空字符串
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public String getSDKVersionSync() {
+        try {
+            return TTAdSdk.getAdManager().getSDKVersion();
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception getting SDK version", e);
+            return "";
+        }
+    }
+
+    /**
+     * 设置广告有效期
+     * adUnitId 为空时设置该类型的默认有效期
+     */
+    @ReactMethod
+    public void setAdTtl(String adType, String adUnitId, double ttlMs, Promise promise) {
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "setAdTtl called with adType: " + adType + ", adUnitId: " + adUnitId + ", ttlMs: " + ttlMs);
+        }
+
+        String type = AdTypes.normalize(adType);
+        WritableMap result = Arguments.createMap();
+        if (type == null) {
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        if (adUnitId == null || adUnitId.isEmpty()) {
+            adPool.setTypeTtl(type, (long) ttlMs);
+        } else {
+            adPool.setTtl(type, adUnitId, (long) ttlMs);
+        }
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 设置频次控制规则
+     * adUnitId 为空时作用于整个类型；rule 为 { maxImpressions, windowMs, minIntervalMs }，为 null 时删除规则。
+     * 展示计数保存在本地文件中，应用重启后仍然有效
+     */
+    @ReactMethod
+    public void setFrequencyCap(String adType, String adUnitId, ReadableMap rule, Promise promise) {
+        String type = AdTypes.normalize(adType);
+        WritableMap result = Arguments.createMap();
+        if (type == null) {
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        FrequencyCap.Rule capRule = null;
+        if (rule != null) {
+            capRule = new FrequencyCap.Rule(
+                    rule.hasKey("maxImpressions") ? rule.getInt("maxImpressions") : 0,
+                    rule.hasKey("windowMs") ? (long) rule.getDouble("windowMs") : FrequencyCap.DEFAULT_WINDOW_MS,
+                    rule.hasKey("minIntervalMs") ? (long) rule.getDouble("minIntervalMs") : 0);
+        }
+        frequencyCap.setRule(type, adUnitId, capRule);
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 查询广告位的频次状态：是否允许展示、需要等待的时长、原因和时间窗内的展示次数
+     */
+    @ReactMethod
+    public void getFrequencyCapState(String adType, String adUnitId, Promise promise) {
+        String type = AdTypes.normalize(adType);
+        if (type == null) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        WritableMap result = toWritableMap(frequencyCap.state(type, adUnitId, System.currentTimeMillis()));
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 清空所有展示计数，规则保留
+     */
+    @ReactMethod
+    public void resetFrequencyCap(Promise promise) {
+        frequencyCap.reset();
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 开启或关闭广告位的后台自动补货
+     */
+    @ReactMethod
+    public void setAutoRefill(String adType, String adUnitId, boolean enabled, Promise promise) {
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "setAutoRefill called with adType: " + adType + ", adUnitId: " + adUnitId + ", enabled: " + enabled);
+        }
+
+        String type = AdTypes.normalize(adType);
+        WritableMap result = Arguments.createMap();
+        if (!AdTypes.REWARD_VIDEO.equals(type) && !AdTypes.FULL_SCREEN_VIDEO.equals(type)) {
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+
+        refillScheduler.setEnabled(type, adUnitId, enabled);
+        if (enabled) {
+            refillScheduler.onConsumed(type, adUnitId);
+        }
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 配置自动补货的并发上限与退避时间
+     */
+    @ReactMethod
+    public void configureRefill(ReadableMap options, Promise promise) {
+        int maxConcurrent = options.hasKey("maxConcurrent")
+                ? options.getInt("maxConcurrent") : AdRefillScheduler.DEFAULT_MAX_CONCURRENT;
+        long baseBackoffMs = options.hasKey("baseBackoffMs")
+                ? (long) options.getDouble("baseBackoffMs") : AdRefillScheduler.DEFAULT_BASE_BACKOFF_MS;
+        long maxBackoffMs = options.hasKey("maxBackoffMs")
+                ? (long) options.getDouble("maxBackoffMs") : AdRefillScheduler.DEFAULT_MAX_BACKOFF_MS;
+        refillScheduler.configure(maxConcurrent, baseBackoffMs, maxBackoffMs);
+
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 配置预取策略
+     * enabled 为 false 时不按网络和电量限制；cellularVideo 为 true 时计费网络下仍预取一条视频广告；
+     * lowBatteryPercent 为未充电时开始减少预取的电量
+     */
+    @ReactMethod
+    public void configurePrefetchPolicy(ReadableMap options, Promise promise) {
+        PrefetchPolicy.Options policyOptions = new PrefetchPolicy.Options();
+        if (options != null) {
+            if (options.hasKey("enabled")) {
+                policyOptions.enabled = options.getBoolean("enabled");
+            }
+            if (options.hasKey("cellularVideo")) {
+                policyOptions.cellularVideo = options.getBoolean("cellularVideo");
+            }
+            if (options.hasKey("lowBatteryPercent")) {
+                policyOptions.lowBatteryPercent = Math.max(PrefetchPolicy.CRITICAL_BATTERY_PERCENT,
+                        Math.min(100, options.getInt("lowBatteryPercent")));
+            }
+        }
+        mainHandler.post(() -> {
+            prefetchPolicy.configure(policyOptions);
+            WritableMap result = toWritableMap(prefetchPolicy.current().toMap());
+            result.putBoolean("success", true);
+            promise.resolve(result);
+        });
+    }
+
+    /**
+     * 查询当前的预取策略：网络、电量、省电模式以及各类型的预取上限
+     */
+    @ReactMethod
+    public void getPrefetchPolicy(Promise promise) {
+        WritableMap result = toWritableMap(prefetchPolicy.current().toMap());
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 查询自动补货状态（等待、退避、加载中）
+     */
+    @ReactMethod
+    public void getRefillState(Promise promise) {
+        WritableMap result = Arguments.createMap();
+        result.putInt("maxConcurrent", refillScheduler.maxConcurrent());
+        result.putInt("inFlight", refillScheduler.inFlightCount());
+
+        WritableArray slots = Arguments.createArray();
+        for (Map<String, Object> slot : refillScheduler.snapshot()) {
+            slots.pushMap(toWritableMap(slot));
+        }
+        result.putArray("slots", slots);
+        promise.resolve(result);
+    }
+
+    /**
+     * 配置事件投递方式
+     * batching 为 true 时事件按 intervalMs 合并成一次 onGroMoreEvents 发送，
+     * immediateEvents 中的事件始终逐条立即发送
+     */
+    @ReactMethod
+    public void configureEventDelivery(ReadableMap options, Promise promise) {
+        boolean batching = options.hasKey("batching") && options.getBoolean("batching");
+        long intervalMs = options.hasKey("intervalMs")
+                ? (long) options.getDouble("intervalMs") : EventOutbox.DEFAULT_INTERVAL_MS;
+        Set<String> immediateEvents = new HashSet<>();
+        if (options.hasKey("immediateEvents") && !options.isNull("immediateEvents")) {
+            ReadableArray names = options.getArray("immediateEvents");
+            for (int i = 0; i < names.size(); i++) {
+                immediateEvents.add(names.getString(i));
+            }
+        }
+        eventOutbox.configure(batching, intervalMs, immediateEvents);
+
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        result.putBoolean("batching", batching);
+        result.putString("batchEvent", EventOutbox.BATCH_EVENT);
+        promise.resolve(result);
+    }
+
+    /**
+     * 上报信息流列表的滚动速度（px/s），预取深度随速度调整，停止滚动时传 0
+     */
+    @ReactMethod
+    public void reportFeedScroll(String adUnitId, double velocity) {
+        FeedAdPrefetcher feedPrefetcher = FeedAdPrefetcher.get(reactContext);
+        mainHandler.post(() -> feedPrefetcher.reportScroll(adUnitId, (float) velocity));
+    }
+
+    /**
+     * 预取信息流广告，列表出现前调用，首屏的广告行可以直接绑定
+     */
+    @ReactMethod
+    public void prefetchFeedAds(String adUnitId, double widthDp, double count, Promise promise) {
+        if (GroLog.isDebug()) {
+            GroLog.d(TAG, "prefetchFeedAds called with adUnitId: " + adUnitId + ", count: " + count);
+        }
+        FeedAdPrefetcher feedPrefetcher = FeedAdPrefetcher.get(reactContext);
+        mainHandler.post(() -> {
+            feedPrefetcher.setWidth(adUnitId, (int) widthDp);
+            feedPrefetcher.prefetch(adUnitId, (int) count);
+        });
+        WritableMap result = Arguments.createMap();
+        boolean sdkReady = stateStore.snapshot().sdkReady;
+        result.putBoolean("success", sdkReady);
+        result.putString("message", sdkReady ? "Feed prefetch scheduled" : "SDK not initialized");
+        promise.resolve(result);
+    }
+
+    /**
+     * 获取各广告位的加载、渲染、展示指标
+     * 耗时分位数按固定分桶估算，单位毫秒
+     */
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        WritableMap result = Arguments.createMap();
+        result.putDouble("since", metrics.since());
+        result.putArray("bucketBoundsMs", toWritableArray(boundsList()));
+        result.putDouble("deduplicatedLoads", loads.deduplicatedCount());
+        result.putArray("units", toWritableArray(metrics.snapshot()));
+        promise.resolve(result);
+    }
+
+    /**
+     * 清零所有指标
+     */
+    @ReactMethod
+    public void resetMetrics(Promise promise) {
+        metrics.reset();
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        promise.resolve(result);
+    }
+
+    /**
+     * 导出持久账本中各广告位的累计表现：请求、填充、无填充、超时、渲染失败、展示次数、
+     * 加载耗时和展示 eCPM 的滑动平均；adType 为空时导出全部类型
+     */
+    @ReactMethod
+    public void getPerformanceLedger(String adType, Promise promise) {
+        String type = adType == null || adType.isEmpty() ? null : AdTypes.normalize(adType);
+        if (adType != null && !adType.isEmpty() && type == null) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        ledger.snapshot(type, units -> {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            result.putArray("units", toWritableArray(units));
+            promise.resolve(result);
+        });
+    }
+
+    /**
+     * 按账本中每次请求的期望收益（填充率 × eCPM）排列广告位，样本不足的按传入顺序排在后面
+     */
+    @ReactMethod
+    public void rankAdUnits(String adType, ReadableArray unitIds, Promise promise) {
+        String type = AdTypes.normalize(adType);
+        if (type == null || unitIds == null) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Unsupported ad type: " + adType);
+            promise.resolve(result);
+            return;
+        }
+        List<String> ids = new ArrayList<>(unitIds.size());
+        for (int i = 0; i < unitIds.size(); i++) {
+            ids.add(unitIds.getString(i));
+        }
+        ledger.rank(type, ids, ranked -> {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            result.putArray("unitIds", toWritableArray(ranked));
+            promise.resolve(result);
+        });
+    }
+
+    /**
+     * 清空持久账本
+     */
+    @ReactMethod
+    public void clearPerformanceLedger(Promise promise) {
+        ledger.clear(() -> {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            promise.resolve(result);
+        });
+    }
+
+    /**
+     * 导出内存中的事件轨迹（最近 TraceRing.CAPACITY 条），clear 为 true 时导出后清空
+     */
+    @ReactMethod
+    public void dumpTrace(boolean clear, Promise promise) {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        result.putDouble("total", trace.total());
+        result.putInt("capacity", TraceRing.CAPACITY);
+        result.putArray("events", toWritableArray(trace.dump()));
+        if (clear) {
+            trace.clear();
+        }
+        promise.resolve(result);
+    }
+
+    /**
+     * 切换到模拟广告后端（仅调试构建），options 为 null 或 enabled 为 false 时切回SDK。
+     * 模拟后端覆盖视频和开屏，信息流与横幅仍走SDK；切换时清空库存，避免两种后端的广告混在一起
+     */
+    @ReactMethod
+    public void configureSimulatedBackend(ReadableMap options, Promise promise) {
+        WritableMap result = Arguments.createMap();
+        boolean enable = options != null && (!options.hasKey("enabled") || options.getBoolean("enabled"));
+        if (enable && !BuildConfig.DEBUG) {
+            result.putBoolean("success", false);
+            result.putString("message", "Simulated backend is only available in debug builds");
+            promise.resolve(result);
+            return;
+        }
+
+        // 先切走新请求，旧的模拟后端等已发出的请求回调完再停止，避免广告位卡在进行中
+        SimulatedAdBackend previous = simulatedBackend;
+        simulatedBackend = null;
+        loads.setBackend(sdkBackend);
+        if (previous != null) {
+            previous.retire();
+        }
+        for (String adType : POOLED_TYPES) {
+            for (AdPool.Entry entry : adPool.trim(adType, 0)) {
+                releaseAd(entry);
+            }
+        }
+
+        if (enable) {
+            SimulatedAdBackend.Config config = new SimulatedAdBackend.Config();
+            if (options.hasKey("seed")) {
+                config.seed((long) options.getDouble("seed"));
+            }
+            if (options.hasKey("fillRate")) {
+                config.fillRate(options.getDouble("fillRate"));
+            }
+            if (options.hasKey("renderFailureRate")) {
+                config.renderFailureRate(options.getDouble("renderFailureRate"));
+            }
+            if (options.hasKey("hangRate")) {
+                config.hangRate(options.getDouble("hangRate"));
+            }
+            if (options.hasKey("latencyMedianMs") || options.hasKey("latencyP99Ms")) {
+                long median = options.hasKey("latencyMedianMs")
+                        ? (long) options.getDouble("latencyMedianMs") : config.latencyMedianMs;
+                long p99 = options.hasKey("latencyP99Ms")
+                        ? (long) options.getDouble("latencyP99Ms") : Math.max(median, config.latencyP99Ms);
+                config.latency(median, p99);
+            }
+            if (options.hasKey("callbackThreads")) {
+                config.callbackThreads(options.getInt("callbackThreads"));
+            }
+            if (options.hasKey("rewardValidRate") || options.hasKey("rewardAmount")) {
+                config.reward(
+                        options.hasKey("rewardValidRate") ? options.getDouble("rewardValidRate") : config.rewardValidRate,
+                        options.hasKey("rewardAmount") ? options.getInt("rewardAmount") : config.rewardAmount);
+            }
+            if (options.hasKey("playDurationMs")) {
+                config.playDurationMs((long) options.getDouble("playDurationMs"));
+            }
+            if (options.hasKey("cacheLatencyMs")) {
+                config.cacheLatencyMs((long) options.getDouble("cacheLatencyMs"));
+            }
+            // 默认回调到主线程，与真实SDK一致
+            simulatedBackend = new SimulatedAdBackend(config, mainHandler::post);
+            loads.setBackend(simulatedBackend);
+        }
+
+        result.putBoolean("success", true);
+        result.putBoolean("simulated", enable);
+        promise.resolve(result);
+    }
+
+    /**
+     * 运行原生热路径微基准（仅调试构建），使用假广告，不影响真实库存和事件
+     */
+    @ReactMethod
+    public void runBridgeBenchmark(double iterations, Promise promise) {
+        if (!BuildConfig.DEBUG) {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Benchmark is only available in debug builds");
+            promise.resolve(result);
+            return;
+        }
+        int count = iterations > 0
+                ? (int) Math.min(iterations, BridgeBenchmark.MAX_ITERATIONS)
+                : BridgeBenchmark.DEFAULT_ITERATIONS;
+        try {
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", true);
+            result.putArray("results", toWritableArray(new BridgeBenchmark().run(count)));
+            promise.resolve(result);
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception during benchmark", e);
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Exception: " + e.getMessage());
+            promise.resolve(result);
+        }
+    }
+
+    /**
+     * 设置原生日志级别：debug、info、warn、error、none
+     */
+    @ReactMethod
+    public void setLogLevel(String level, Promise promise) {
+        WritableMap result = Arguments.createMap();
+        int parsed = GroLog.parseLevel(level);
+        if (parsed < 0) {
+            result.putBoolean("success", false);
+            result.putString("message", "Unknown log level: " + level);
+        } else {
+            GroLog.setLevel(parsed);
+            result.putBoolean("success", true);
+        }
+        result.putString("level", GroLog.levelName(GroLog.level()));
+        promise.resolve(result);
+    }
+
+    /**
+     * 获取SDK版本
+     */
+    @ReactMethod
+    public void getSDKVersion(Promise promise) {
+        try {
+            String version = TTAdSdk.getAdManager().getSDKVersion();
+            promise.resolve(version);
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception getting SDK version", e);
+            promise.reject("VERSION_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭开屏广告
+     */
+    @ReactMethod
+    public void closeSplashAd(Promise promise) {
+        GroLog.d(TAG, "closeSplashAd called");
+        
+        try {
+            boolean accepted = stateStore.update(AdStateStore.Snapshot::withoutSplash, (previous, current) -> {
+                if (previous.splashAd != null) {
+                    mainHandler.post(() -> {
+                        if (splashContainer != null) {
+                            removeFromParent(splashContainer);
+                            splashContainer = null;
+                        }
+                    });
+                    sendEvent("onSplashAdClose");
+                }
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", true);
+                result.putString("message", "Splash ad closed");
+                promise.resolve(result);
+            });
+            if (!accepted) {
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", false);
+                result.putString("message", "Module invalidated");
+                promise.resolve(result);
+            }
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception closing splash ad", e);
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", false);
+            result.putString("message", "Exception: " + e.getMessage());
+            promise.resolve(result);
+        }
+    }
+
+    /**
+     * 强制关闭开屏广告
+     */
+    @ReactMethod
+    public void forceCloseSplashAd(Promise promise) {
+        GroLog.d(TAG, "forceCloseSplashAd called");
+        closeSplashAd(promise);
+    }
+
+    /**
+     * 通用关闭广告方法
+     */
+    @ReactMethod
+    public void closeAd(String adType, Promise promise) {
+        GroLog.d(TAG, "closeAd called with adType: ", adType);
+        
+        switch (adType.toLowerCase()) {
+            case "splash":
+                closeSplashAd(promise);
+                break;
+            default:
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", false);
+                result.putString("message", "Unsupported ad type for close: " + adType);
+                promise.resolve(result);
+                break;
+        }
+    }
+
+    private int poolSize(String type, String adUnitId) {
+        // 同步方法在JS线程上执行，读发布的视图，不与补货和展示争抢池锁
+        return adPool.readySize(type, adUnitId, System.currentTimeMillis());
+    }
+
+    /**
+     * 加载一条广告放入库存池，并把结果回传给JS
+     * 同一广告位并发调用共享一次SDK请求，共享者的结果带 deduplicated: true
+     */
+    private void loadIntoPool(String adType, String adUnitId, ReadableMap options, Promise promise) {
+        final boolean waitForCache = options != null && options.hasKey("waitForCache") && options.getBoolean("waitForCache");
+        final long cacheTimeoutMs = options != null && options.hasKey("cacheTimeoutMs")
+                ? Math.max(0, (long) options.getDouble("cacheTimeoutMs")) : DEFAULT_CACHE_WAIT_MS;
+
+        refillScheduler.register(adType, adUnitId);
+        if (adPool.deficit(adType, adUnitId) == 0) {
+            List<AdPool.Entry> entries = adPool.entries(adType, adUnitId);
+            Runnable resolve = () -> {
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("success", true);
+                result.putString("message", "Ad pool already full");
+                result.putInt("poolSize", adPool.size(adType, adUnitId));
+                result.putInt("cachedCount", adPool.cachedSize(adType, adUnitId));
+                result.putBoolean("cached", adPool.cachedSize(adType, adUnitId) > 0);
+                promise.resolve(result);
+            };
+            if (waitForCache && !entries.isEmpty() && adPool.cachedSize(adType, adUnitId) == 0) {
+                // 库存已满但都还在缓存素材，等下一条将被展示的广告
+                awaitCached(entries.get(0), cacheTimeoutMs, resolve);
+            } else {
+                resolve.run();
+            }
+            return;
+        }
+
+        loads.loadShared(adType, adUnitId, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                Runnable resolve = () -> {
+                    WritableMap result = Arguments.createMap();
+                    result.putBoolean("success", true);
+                    result.putString("message", AdTypes.REWARD_VIDEO.equals(adType)
+                            ? "Reward video ad loaded" : "Full screen video ad loaded");
+                    result.putInt("poolSize", adPool.size(adType, adUnitId));
+                    result.putInt("cachedCount", adPool.cachedSize(adType, adUnitId));
+                    result.putBoolean("cached", entry.cached);
+                    result.putBoolean("deduplicated", deduplicated);
+                    promise.resolve(result);
+                };
+                if (waitForCache) {
+                    awaitCached(entry, cacheTimeoutMs, resolve);
+                } else {
+                    resolve.run();
+                }
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                WritableMap result;
+                if (code == FrequencyCap.CODE_CAPPED) {
+                    // 时间窗内已不能再展示，没有发出请求
+                    result = cappedResult("Frequency cap reached",
+                            frequencyCap.limitResetMs(adType, adUnitId, System.currentTimeMillis()));
+                } else {
+                    result = Arguments.createMap();
+                    result.putBoolean("success", false);
+                    result.putString("message", message);
+                    result.putInt("code", code);
+                }
+                result.putBoolean("deduplicated", deduplicated);
+                promise.resolve(result);
+            }
+        });
+    }
+
+    /**
+     * 素材缓存完成或等待超时后执行一次 then，超时时广告仍是未缓存状态
+     */
+    private void awaitCached(AdPool.Entry entry, long timeoutMs, Runnable then) {
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        final Runnable finish = () -> {
+            if (settled.compareAndSet(false, true)) {
+                then.run();
+            }
+        };
+        mainHandler.postDelayed(finish, timeoutMs);
+        entry.whenCached(() -> {
+            mainHandler.removeCallbacks(finish);
+            finish.run();
+        });
+    }
+
+    /**
+     * SDK就绪后创建 adNative，并只派发一次 onSdkReady 事件
+     * then 在就绪状态发布之后执行，可以为 null
+     */
+    private void onSdkReady(Runnable then) {
+        stateStore.update(s -> s.sdkReady ? s : s.withSdkReady(TTAdSdk.getAdManager().createAdNative(reactContext)),
+                (previous, current) -> {
+                    if (!previous.sdkReady) {
+                        sdkBackend.attach(current.adNative);
+                        trace.record(TraceRing.SDK_READY, null, null);
+                        sendEvent("onSdkReady", sdkStateMap());
+                    }
+                    if (then != null) {
+                        then.run();
+                    }
+                });
+    }
+
+    private WritableMap sdkStateMap() {
+        int state = GroMoreSdk.state();
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("ready", state == GroMoreSdk.STATE_READY);
+        map.putString("state", GroMoreSdk.stateName(state));
+        map.putBoolean("warmStart", GroMoreSdk.isWarmStart());
+        map.putDouble("initDurationMs", GroMoreSdk.initDurationMs());
+        map.putDouble("initCallMs", GroMoreSdk.initCallMs());
+        map.putArray("adapters", toWritableArray(Arrays.asList(GroMoreSdk.adapters())));
+        return map;
+    }
+
+    private static GroMoreSdk.Options sdkOptions(ReadableMap options) {
+        GroMoreSdk.Options sdkOptions = new GroMoreSdk.Options();
+        if (options == null) {
+            return sdkOptions;
+        }
+        if (options.hasKey("appName") && !options.isNull("appName")) {
+            sdkOptions.appName(options.getString("appName"));
+        }
+        if (options.hasKey("debug")) {
+            sdkOptions.debug(options.getBoolean("debug"));
+        }
+        if (options.hasKey("supportMultiProcess")) {
+            sdkOptions.supportMultiProcess(options.getBoolean("supportMultiProcess"));
+        }
+        if (options.hasKey("allowShowNotify")) {
+            sdkOptions.allowShowNotify(options.getBoolean("allowShowNotify"));
+        }
+        if (options.hasKey("useTextureView")) {
+            sdkOptions.useTextureView(options.getBoolean("useTextureView"));
+        }
+        if (options.hasKey("titleBarTheme") && !options.isNull("titleBarTheme")) {
+            String theme = options.getString("titleBarTheme");
+            sdkOptions.titleBarTheme("light".equals(theme) ? TTAdConstant.TITLE_BAR_THEME_LIGHT
+                    : "none".equals(theme) ? TTAdConstant.TITLE_BAR_THEME_NO_TITLE_BAR
+                    : TTAdConstant.TITLE_BAR_THEME_DARK);
+        }
+        if (options.hasKey("directDownloadNetworkTypes") && !options.isNull("directDownloadNetworkTypes")) {
+            ReadableArray names = options.getArray("directDownloadNetworkTypes");
+            int[] types = new int[names.size()];
+            int count = 0;
+            for (int i = 0; i < names.size(); i++) {
+                int type = networkType(names.getString(i));
+                if (type >= 0) {
+                    types[count++] = type;
+                }
+            }
+            sdkOptions.directDownloadNetworkTypes(Arrays.copyOf(types, count));
+        }
+        return sdkOptions;
+    }
+
+    private static int networkType(String name) {
+        switch (name) {
+            case "wifi":
+                return TTAdConstant.NETWORK_STATE_WIFI;
+            case "mobile":
+                return TTAdConstant.NETWORK_STATE_MOBILE;
+            case "2g":
+                return TTAdConstant.NETWORK_STATE_2G;
+            case "3g":
+                return TTAdConstant.NETWORK_STATE_3G;
+            case "4g":
+                return TTAdConstant.NETWORK_STATE_4G;
+            case "5g":
+                return TTAdConstant.NETWORK_STATE_5G;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 后台停留超过阈值后预加载并渲染热启动开屏，结果放入开屏库存
+     */
+    private void preloadHotSplash() {
+        final AdStateStore.Snapshot snapshot = stateStore.snapshot();
+        if (!snapshot.hotSplash.enabled || !snapshot.sdkReady || hotSplashLoading) {
+            return;
+        }
+        final String adUnitId = snapshot.hotSplash.adUnitId;
+        if (adPool.size(AdTypes.SPLASH, adUnitId) > 0
+                || prefetchPolicy.current().depthLimit(AdTypes.SPLASH) == 0
+                || frequencyCap.isLimitReached(AdTypes.SPLASH, adUnitId, System.currentTimeMillis())) {
+            return;
+        }
+
+        GroLog.d(TAG, "Preloading hot splash for ", adUnitId);
+        hotSplashLoading = true;
+        final long startedAt = SystemClock.elapsedRealtime();
+        final long[] loadedAt = new long[1];
+        metrics.loadStarted(AdTypes.SPLASH, adUnitId);
+        loads.backend().loadSplash(adUnitId, HOT_SPLASH_LOAD_TIMEOUT_MS, new AdBackend.SplashCallback() {
+            @Override
+            public void onLoaded() {
+                loadedAt[0] = SystemClock.elapsedRealtime();
+                metrics.loadSucceeded(AdTypes.SPLASH, adUnitId, loadedAt[0] - startedAt);
+            }
+
+            @Override
+            public void onLoadFailed(int code, String message) {
+                GroLog.e(TAG, "Hot splash load fail", code, message);
+                metrics.loadFailed(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - startedAt, code);
+                mainHandler.post(() -> hotSplashLoading = false);
+            }
+
+            @Override
+            public void onRenderFailed(Object ad, int code, String message) {
+                GroLog.e(TAG, "Hot splash render fail", code, message);
+                metrics.renderFailed(AdTypes.SPLASH, adUnitId, code);
+                destroyAd(ad);
+                mainHandler.post(() -> hotSplashLoading = false);
+            }
+
+            @Override
+            public void onRendered(AdPool.Entry entry) {
+                if (loadedAt[0] > 0) {
+                    metrics.rendered(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - loadedAt[0]);
+                }
+                loads.offerOrRelease(entry);
+                // 模拟后端可能在自己的线程上回调，热启动进度只在主线程改
+                mainHandler.post(() -> {
+                    hotSplashLoading = false;
+                    if (hotSplashWaiting) {
+                        // 已回到前台且仍在等待时限内
+                        mainHandler.removeCallbacks(hotSplashWaitTimeout);
+                        hotSplashWaiting = false;
+                        showHotSplash();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 回到前台：后台停留够久时展示预加载好的开屏，未就绪时在时限内等待
+     */
+    private void onHotLaunch() {
+        mainHandler.removeCallbacks(hotSplashPreloadTask);
+        long background = backgroundedAt > 0 ? SystemClock.elapsedRealtime() - backgroundedAt : 0;
+        backgroundedAt = 0;
+        AdStateStore.Snapshot snapshot = stateStore.snapshot();
+        boolean fromAd = snapshot.adActivityActive;
+        if (fromAd) {
+            stateStore.update(s -> s.withAdActivity(false));
+        }
+        AdStateStore.HotSplashConfig hotSplash = snapshot.hotSplash;
+        if (!hotSplash.enabled || background < hotSplash.thresholdMs || fromAd || snapshot.splashAd != null) {
+            return;
+        }
+        if (frequencyCap.retryAfterMs(AdTypes.SPLASH, hotSplash.adUnitId, System.currentTimeMillis()) > 0) {
+            sendHotSplashEvent("capped", 0);
+            return;
+        }
+
+        if (showHotSplash()) {
+            return;
+        }
+        if (hotSplashLoading && hotSplash.maxWaitMs > 0) {
+            hotSplashWaiting = true;
+            mainHandler.postDelayed(hotSplashWaitTimeout, hotSplash.maxWaitMs);
+        } else {
+            sendHotSplashEvent("notReady", 0);
+        }
+    }
+
+    /**
+     * 取一条新鲜的开屏立即展示，没有时返回 false
+     */
+    private boolean showHotSplash() {
+        AdStateStore.HotSplashConfig hotSplash = stateStore.snapshot().hotSplash;
+        long now = System.currentTimeMillis();
+        AdPool.Entry entry;
+        while ((entry = adPool.poll(AdTypes.SPLASH, hotSplash.adUnitId)) != null) {
+            long age = now - entry.loadedAt;
+            if (age <= hotSplash.maxAgeMs) {
+                if (GroLog.isDebug()) {
+                    GroLog.d(TAG, "Showing hot splash, age " + age + "ms");
+                }
+                trace.record(TraceRing.HOT_SPLASH, AdTypes.SPLASH, entry.adUnitId, age, 0);
+                presentSplash(entry);
+                sendHotSplashEvent("shown", age);
+                return true;
+            }
+            if (GroLog.isDebug()) {
+                GroLog.d(TAG, "Dropping stale hot splash, age " + age + "ms");
+            }
+        }
+        return false;
+    }
+
+    private void sendHotSplashEvent(String status, long ageMs) {
+        if (isEventWanted("onHotSplash")) {
+            WritableMap data = unitEventData(stateStore.snapshot().hotSplash.adUnitId);
+            data.putString("status", status);
+            data.putDouble("ageMs", ageMs);
+            sendEvent("onHotSplash", data);
+        }
+    }
+
+    /**
+     * 一次开屏加载的结果，保证 promise 只结束一次
+     */
+    private final class SplashSession {
+        final String adUnitId;
+        final Promise promise;
+        final long startedAt = SystemClock.elapsedRealtime();
+        // SDK回调加载成功的时刻，用于统计渲染耗时
+        volatile long loadedAt;
+        final AtomicBoolean settled = new AtomicBoolean(false);
+        final Runnable timeoutTask = new Runnable() {
+            @Override
+            public void run() {
+                GroLog.w(TAG, "Splash load timed out for ", SplashSession.this.adUnitId);
+                if (settle(SPLASH_TIMEOUT, -1, "Splash ad load timed out")) {
+                    metrics.loadTimedOut(AdTypes.SPLASH, SplashSession.this.adUnitId);
+                }
+            }
+        };
+
+        SplashSession(String adUnitId, Promise promise) {
+            this.adUnitId = adUnitId;
+            this.promise = promise;
+        }
+
+        boolean isSettled() {
+            return settled.get();
+        }
+
+        /**
+         * 结束本次加载，已结束时返回false
+         */
+        boolean settle(String status, int code, String message) {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            mainHandler.removeCallbacks(timeoutTask);
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", SPLASH_LOADED.equals(status));
+            result.putString("status", status);
+            result.putString("message", message);
+            if (!SPLASH_LOADED.equals(status)) {
+                result.putInt("code", code);
+            }
+            result.putDouble("elapsedMs", SystemClock.elapsedRealtime() - startedAt);
+            result.putString("adUnitId", adUnitId);
+            promise.resolve(result);
+            return true;
+        }
+    }
+
+    /**
+     * 一次多广告位竞速，记录每个广告位的结果并保证 promise 只结束一次
+     */
+    private final class RaceSession {
+        final String adType;
+        final String[] units;
+        final boolean best;
+        final Promise promise;
+        final long startedAt = SystemClock.elapsedRealtime();
+        // 每个广告位：状态、耗时、eCPM、错误
+        final String[] status;
+        final long[] elapsedMs;
+        final double[] ecpm;
+        final int[] codes;
+        final String[] messages;
+        final boolean[] deduplicated;
+        int pending;
+        boolean settled = false;
+        final Runnable deadlineTask = () -> settle(true);
+
+        RaceSession(String adType, String[] units, boolean best, Promise promise) {
+            this.adType = adType;
+            this.units = units;
+            this.best = best;
+            this.promise = promise;
+            this.status = new String[units.length];
+            this.elapsedMs = new long[units.length];
+            this.ecpm = new double[units.length];
+            this.codes = new int[units.length];
+            this.messages = new String[units.length];
+            this.deduplicated = new boolean[units.length];
+            this.pending = units.length;
+            Arrays.fill(status, "pending");
+            Arrays.fill(ecpm, -1);
+        }
+
+        synchronized void onLoaded(int index, double adEcpm, boolean joined, boolean cached) {
+            status[index] = cached ? "cached" : "loaded";
+            elapsedMs[index] = SystemClock.elapsedRealtime() - startedAt;
+            ecpm[index] = adEcpm;
+            deduplicated[index] = joined;
+            pending--;
+            if (!best || pending == 0) {
+                settle(false);
+            }
+        }
+
+        synchronized void onFailed(int index, int code, String message) {
+            status[index] = "failed";
+            elapsedMs[index] = SystemClock.elapsedRealtime() - startedAt;
+            codes[index] = code;
+            messages[index] = message;
+            pending--;
+            if (pending == 0) {
+                settle(false);
+            }
+        }
+
+        private synchronized void settle(boolean timedOut) {
+            if (settled) {
+                return;
+            }
+            settled = true;
+            mainHandler.removeCallbacks(deadlineTask);
+
+            int winner = -1;
+            for (int i = 0; i < units.length; i++) {
+                if (!"loaded".equals(status[i]) && !"cached".equals(status[i])) {
+                    continue;
+                }
+                if (winner == -1) {
+                    winner = i;
+                } else if (best && ecpm[i] > ecpm[winner]) {
+                    winner = i;
+                } else if (!best && elapsedMs[i] < elapsedMs[winner]) {
+                    winner = i;
+                }
+            }
+
+            WritableArray results = Arguments.createArray();
+            for (int i = 0; i < units.length; i++) {
+                WritableMap item = Arguments.createMap();
+                item.putString("adUnitId", units[i]);
+                item.putString("status", status[i]);
+                if (!"pending".equals(status[i])) {
+                    item.putDouble("elapsedMs", elapsedMs[i]);
+                }
+                if (ecpm[i] >= 0) {
+                    item.putDouble("ecpm", ecpm[i]);
+                }
+                if ("failed".equals(status[i])) {
+                    item.putInt("code", codes[i]);
+                    item.putString("message", messages[i]);
+                }
+                item.putBoolean("deduplicated", deduplicated[i]);
+                results.pushMap(item);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putBoolean("success", winner >= 0);
+            result.putString("message", winner >= 0
+                    ? "Race won by " + units[winner]
+                    : timedOut ? "No ad loaded before deadline" : "All ad units failed");
+            result.putBoolean("timedOut", timedOut);
+            if (winner >= 0) {
+                result.putString("adUnitId", units[winner]);
+                result.putInt("poolSize", adPool.size(adType, units[winner]));
+            }
+            result.putDouble("elapsedMs", SystemClock.elapsedRealtime() - startedAt);
+            result.putArray("units", results);
+            promise.resolve(result);
+        }
+    }
+
+    /**
+     * 读取广告的聚合 eCPM（单位：分），取不到时返回 -1
+     * shown 为 true 时读取实际展示的那一条的价格，用于展示后记账
+     */
+    private static double ecpmOf(Object ad, boolean shown) {
+        if (ad instanceof SimulatedAdBackend.SimulatedAd) {
+            return ((SimulatedAdBackend.SimulatedAd) ad).ecpm;
+        }
+        MediationBaseManager manager = null;
+        if (ad instanceof TTRewardVideoAd) {
+            manager = ((TTRewardVideoAd) ad).getMediationManager();
+        } else if (ad instanceof TTFullScreenVideoAd) {
+            manager = ((TTFullScreenVideoAd) ad).getMediationManager();
+        } else if (ad instanceof CSJSplashAd) {
+            manager = ((CSJSplashAd) ad).getMediationManager();
+        }
+        if (manager == null) {
+            return -1;
+        }
+        try {
+            MediationAdEcpmInfo info = shown ? manager.getShowEcpm() : manager.getBestEcpm();
+            return info != null && info.getEcpm() != null ? Double.parseDouble(info.getEcpm()) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 展示一条广告的期望收益，见 showBestAd
+     */
+    private double expectedValue(double ecpm, AdPool.Entry entry, long now) {
+        long lifetimeMs = entry.expiresAt - entry.loadedAt;
+        double freshness = lifetimeMs > 0 ? (double) entry.remainingMs(now) / lifetimeMs : 0;
+        double weight = freshness >= 0.5 ? 1 : 0.5 + freshness;
+        return Math.max(0, ecpm) * weight;
+    }
+
+    /**
+     * 展示一条已渲染的开屏，模拟后端的开屏只派发事件和指标
+     */
+    private void presentSplash(AdPool.Entry entry) {
+        if (entry.ad instanceof SimulatedAdBackend.SimulatedAd) {
+            presentSimulatedSplash((SimulatedAdBackend.SimulatedAd) entry.ad, entry.adUnitId);
+        } else {
+            presentSplashAd(entry);
+        }
+    }
+
+    private void presentSimulatedSplash(SimulatedAdBackend.SimulatedAd ad, String adUnitId) {
+        final long showRequestedAt = SystemClock.elapsedRealtime();
+        final long[] shownAt = new long[1];
+        metrics.showStarted(AdTypes.SPLASH, adUnitId);
+        ad.play(new SimulatedAdBackend.PlaybackListener() {
+            @Override
+            public void onShow() {
+                shownAt[0] = SystemClock.elapsedRealtime();
+                metrics.shown(AdTypes.SPLASH, adUnitId, shownAt[0] - showRequestedAt, ad.ecpm);
+                frequencyCap.recordImpression(AdTypes.SPLASH, adUnitId, System.currentTimeMillis());
+                sendEvent("onSplashShow");
+            }
+
+            @Override
+            public void onReward(boolean valid, int amount) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+
+            @Override
+            public void onClose() {
+                if (shownAt[0] > 0) {
+                    metrics.closed(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - shownAt[0]);
+                }
+                sendEvent("onSplashClose");
+            }
+        });
+    }
+
+    /**
+     * 占用开屏展示位后绑定交互监听并展示到当前Activity的全屏容器
+     * 已有开屏在展示时原条目放回库存，保留加载时间和有效期，不会叠加展示
+     */
+    private void presentSplashAd(AdPool.Entry entry) {
+        final CSJSplashAd ad = (CSJSplashAd) entry.ad;
+        final String adUnitId = entry.adUnitId;
+        stateStore.update(s -> s.splashAd != null ? s : s.withSplash(ad, adUnitId), (previous, current) -> {
+            if (current.splashAd != ad) {
+                GroLog.w(TAG, "Splash already showing, caching ", adUnitId);
+                loads.offerOrRelease(entry);
+                return;
+            }
+            mainHandler.post(() -> showSplashAd(ad, adUnitId));
+        });
+    }
+
+    /**
+     * 在主线程绑定监听并挂到全屏容器，失败时释放开屏展示位
+     */
+    private void showSplashAd(CSJSplashAd ad, String adUnitId) {
+        metrics.showStarted(AdTypes.SPLASH, adUnitId);
+        final long showRequestedAt = SystemClock.elapsedRealtime();
+        final long[] shownAt = new long[1];
+
+        // 绑定交互监听
+        ad.setSplashAdListener(new CSJSplashAd.SplashAdListener() {
+            @Override
+            public void onSplashAdShow(CSJSplashAd splash) {
+                shownAt[0] = SystemClock.elapsedRealtime();
+                metrics.shown(AdTypes.SPLASH, adUnitId, shownAt[0] - showRequestedAt, ecpmOf(ad, true));
+                frequencyCap.recordImpression(AdTypes.SPLASH, adUnitId, System.currentTimeMillis());
+                sendEvent("onSplashShow");
+            }
 
-                        @Override
-                        public void onSplashAdClick(CSJSplashAd splash) {
-                            sendEvent("onSplashClick", Arguments.createMap());
-                        }
+            @Override
+            public void onSplashAdClick(CSJSplashAd splash) {
+                stateStore.update(s -> s.withAdActivity(true));
+                trace.record(TraceRing.CLICK, AdTypes.SPLASH, adUnitId);
+                sendEvent("onSplashClick");
+            }
 
-                        @Override
-                        public void onSplashAdClose(CSJSplashAd splash, int closeType) {
-                            WritableMap data = Arguments.createMap();
-                            data.putInt("closeType", closeType);
-                            sendEvent("onSplashClose", data);
-                            // 也派发跳过事件，便于前端统一处理
-                            WritableMap skip = Arguments.createMap();
-                            skip.putInt("closeType", closeType);
-                            sendEvent("onSplashAdSkip", skip);
-
-                            // 清理容器
-                            if (splashContainer != null) {
-                                removeFromParent(splashContainer);
-                                splashContainer = null;
-                            }
-                            splashAd = null;
-                        }
-                    });
+            @Override
+            public void onSplashAdClose(CSJSplashAd splash, int closeType) {
+                if (shownAt[0] > 0) {
+                    metrics.closed(AdTypes.SPLASH, adUnitId, SystemClock.elapsedRealtime() - shownAt[0]);
+                }
+                if (isEventWanted("onSplashClose")) {
+                    WritableMap data = Arguments.createMap();
+                    data.putInt("closeType", closeType);
+                    sendEvent("onSplashClose", data);
+                }
+                // 也派发跳过事件，便于前端统一处理
+                if (isEventWanted("onSplashAdSkip")) {
+                    WritableMap skip = Arguments.createMap();
+                    skip.putInt("closeType", closeType);
+                    sendEvent("onSplashAdSkip", skip);
+                }
 
-                    // 展示到全屏容器
-                    Activity activity = getCurrentActivity();
-                    if (activity != null) {
-                        mainHandler.post(() -> {
-                            try {
-                                ViewGroup root = activity.findViewById(android.R.id.content);
-                                if (root != null) {
-                                    if (splashContainer != null) {
-                                        removeFromParent(splashContainer);
-                                    }
-                                    splashContainer = new FrameLayout(activity);
-                                    FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
-                                            ViewGroup.LayoutParams.MATCH_PARENT,
-                                            ViewGroup.LayoutParams.MATCH_PARENT
-                                    );
-                                    root.addView(splashContainer, lp);
-                                    ad.showSplashView(splashContainer);
-                                    splashContainer.bringToFront();
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error showing splash", e);
-                            }
-                        });
-                    }
+                // 清理容器
+                if (splashContainer != null) {
+                    removeFromParent(splashContainer);
+                    splashContainer = null;
                 }
-            }, 0);
+                releaseSplash(splash);
+            }
+        });
+
+        // 展示到全屏容器
+        Activity activity = getCurrentActivity();
+        ViewGroup root = activity != null ? activity.findViewById(android.R.id.content) : null;
+        if (root == null) {
+            // 已绑定本次展示的监听，不再放回库存，直接销毁释放聚合资源
+            metrics.showFailed(AdTypes.SPLASH, adUnitId);
+            releaseSplash(ad);
+            destroyAd(ad);
+            return;
+        }
+        try {
+            if (splashContainer != null) {
+                removeFromParent(splashContainer);
+            }
+            splashContainer = new FrameLayout(activity);
+            FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.MATCH_PARENT
+            );
+            root.addView(splashContainer, lp);
+            ad.showSplashView(splashContainer);
+            splashContainer.bringToFront();
+        } catch (Exception e) {
+            GroLog.e(TAG, "Error showing splash", e);
+            metrics.showFailed(AdTypes.SPLASH, adUnitId);
+            if (splashContainer != null) {
+                removeFromParent(splashContainer);
+                splashContainer = null;
+            }
+            releaseSplash(ad);
+            destroyAd(ad);
+        }
+    }
 
-            // 如需监听开屏广告事件，请根据所用SDK版本的接口签名添加监听器实现
+    /**
+     * 仍是当前展示的开屏时释放展示位，已被替换或关闭时不动
+     */
+    private void releaseSplash(CSJSplashAd ad) {
+        stateStore.update(s -> s.splashAd == ad ? s.withoutSplash() : s);
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Exception during splash ad loading", e);
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "Exception: " + e.getMessage());
-            promise.resolve(result);
+    /**
+     * 淘汰库存中已过期的广告，释放资源、通知补货并告知JS；过期广告只从这里移出库存
+     */
+    private void evictExpiredAds() {
+        long now = System.currentTimeMillis();
+        List<AdPool.Entry> evicted = adPool.evictExpired(now);
+        for (AdPool.Entry entry : evicted) {
+            GroLog.d(TAG, "Evicted expired ad: ", entry.adType, "/", entry.adUnitId);
+            trace.record(TraceRing.EXPIRED, entry.adType, entry.adUnitId, now - entry.loadedAt, 0);
+            releaseAd(entry);
+            refillScheduler.onExpired(entry.adType, entry.adUnitId);
+
+            if (isEventWanted("onAdExpired")) {
+                WritableMap data = unitEventData(entry.adUnitId);
+                data.putString("adType", entry.adType);
+                data.putDouble("ageMs", System.currentTimeMillis() - entry.loadedAt);
+                sendEvent("onAdExpired", data);
+            }
         }
     }
 
     /**
-     * 加载激励视频广告
+     * 系统内存紧张时按等级收缩库存，优先淘汰开屏和全屏视频，激励视频最后淘汰；
+     * 被淘汰的广告不触发补货，等下次展示或加载时再补
      */
-    @ReactMethod
-    public void loadRewardVideoAd(String adUnitId, Promise promise) {
-        Log.d(TAG, "loadRewardVideoAd called with adUnitId: " + adUnitId);
-        
-        if (!isSDKInitialized || adNative == null) {
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "SDK not initialized");
-            promise.resolve(result);
+    private void trimAds(int level) {
+        int splashKeep;
+        int fullScreenKeep;
+        int rewardKeep;
+        int feedKeep;
+        String severity;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            severity = "critical";
+            splashKeep = 0;
+            fullScreenKeep = 0;
+            rewardKeep = 0;
+            feedKeep = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            severity = "moderate";
+            splashKeep = 0;
+            fullScreenKeep = 0;
+            rewardKeep = 1;
+            feedKeep = 1;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            // 热启动开屏要在后台备好，这一级仍保留一条
+            severity = "low";
+            splashKeep = 1;
+            fullScreenKeep = 1;
+            rewardKeep = 1;
+            feedKeep = 3;
+        } else {
+            // TRIM_MEMORY_UI_HIDDEN 只表示切到后台
             return;
         }
 
-        try {
-            // 创建激励视频广告请求参数
-            AdSlot adSlot = new AdSlot.Builder()
-                    .setCodeId(adUnitId)
-                    .setOrientation(TTAdConstant.ORIENTATION_VERTICAL)
-                    .build();
-
-            // 加载激励视频广告
-            adNative.loadRewardVideoAd(adSlot, new TTAdNative.RewardVideoAdListener() {
-                @Override
-                public void onError(int code, String message) {
-                    Log.e(TAG, "Reward video ad load failed: " + code + ", " + message);
-                    
-                    WritableMap errorData = Arguments.createMap();
-                    errorData.putInt("code", code);
-                    errorData.putString("message", message);
-                    sendEvent("onRewardVideoError", errorData);
-                    
-                    WritableMap result = Arguments.createMap();
-                    result.putBoolean("success", false);
-                    result.putString("message", message);
-                    result.putInt("code", code);
-                    promise.resolve(result);
+        long now = System.currentTimeMillis();
+        evictForMemory(adPool.trim(AdTypes.SPLASH, splashKeep), severity, level, now);
+        evictForMemory(adPool.trim(AdTypes.FULL_SCREEN_VIDEO, fullScreenKeep), severity, level, now);
+        evictForMemory(adPool.trim(AdTypes.REWARD_VIDEO, rewardKeep), severity, level, now);
+
+        FeedAdPrefetcher feedPrefetcher = FeedAdPrefetcher.peek();
+        if (feedPrefetcher != null) {
+            mainHandler.post(() -> {
+                int before = feedPrefetcher.renderedCount();
+                feedPrefetcher.trim(feedKeep);
+                int released = before - feedPrefetcher.renderedCount();
+                if (released > 0 && isEventWanted("onAdEvicted")) {
+                    WritableMap data = Arguments.createMap();
+                    data.putString("adType", "feed");
+                    data.putInt("count", released);
+                    data.putString("reason", "memory");
+                    data.putString("severity", severity);
+                    data.putInt("level", level);
+                    sendEvent("onAdEvicted", data);
                 }
+            });
+        }
+    }
 
-                @Override
-                public void onRewardVideoAdLoad(TTRewardVideoAd ad) {
-                    Log.d(TAG, "Reward video ad loaded successfully");
-                    rewardVideoAd = ad;
-                    
-                    // 发送加载成功事件
-                    sendEvent("onRewardVideoLoaded", Arguments.createMap());
-                    
-                    WritableMap result = Arguments.createMap();
-                    result.putBoolean("success", true);
-                    result.putString("message", "Reward video ad loaded");
-                    promise.resolve(result);
-                }
+    /**
+     * 预取策略变化后更新各类型的预取上限，放宽时立即补货，收紧时已有库存保留
+     */
+    private void onPrefetchPolicyChanged(PrefetchPolicy.Decision previous, PrefetchPolicy.Decision current) {
+        boolean relaxed = false;
+        for (String adType : POOLED_TYPES) {
+            int limit = current.depthLimit(adType);
+            adPool.setPrefetchLimit(adType, limit);
+            relaxed |= limit > previous.depthLimit(adType);
+        }
+        FeedAdPrefetcher.setDepthLimit(current.feedDepth);
+        if (relaxed) {
+            refillScheduler.resume();
+        }
+        if (isEventWanted("onPrefetchPolicyChanged")) {
+            WritableMap data = toWritableMap(current.toMap());
+            data.putString("previousLevel", previous.level);
+            sendEvent("onPrefetchPolicyChanged", data);
+        }
+    }
 
-                @Override
-                public void onRewardVideoCached() {
-                    Log.d(TAG, "Reward video ad cached");
-                }
+    private void evictForMemory(List<AdPool.Entry> evicted, String severity, int level, long now) {
+        for (AdPool.Entry entry : evicted) {
+            GroLog.d(TAG, "Evicted for memory: ", entry.adType, "/", entry.adUnitId);
+            trace.record(TraceRing.EVICTED, entry.adType, entry.adUnitId, now - entry.loadedAt, level);
+            releaseAd(entry);
+
+            if (isEventWanted("onAdEvicted")) {
+                WritableMap data = unitEventData(entry.adUnitId);
+                data.putString("adType", entry.adType);
+                data.putInt("count", 1);
+                data.putDouble("ageMs", now - entry.loadedAt);
+                data.putString("reason", "memory");
+                data.putString("severity", severity);
+                data.putInt("level", level);
+                sendEvent("onAdEvicted", data);
+            }
+        }
+    }
 
-                // For SDKs that pass the ad instance
-                public void onRewardVideoCached(TTRewardVideoAd ad) {
-                    Log.d(TAG, "Reward video ad cached (with ad instance)");
-                }
-            });
+    /**
+     * 释放未展示广告持有的聚合资源
+     */
+    private static void releaseAd(AdPool.Entry entry) {
+        destroyAd(entry.ad);
+    }
 
+    private static void destroyAd(Object ad) {
+        MediationBaseManager manager = null;
+        if (ad instanceof TTRewardVideoAd) {
+            manager = ((TTRewardVideoAd) ad).getMediationManager();
+        } else if (ad instanceof TTFullScreenVideoAd) {
+            manager = ((TTFullScreenVideoAd) ad).getMediationManager();
+        } else if (ad instanceof CSJSplashAd) {
+            manager = ((CSJSplashAd) ad).getMediationManager();
+        }
+        if (manager == null) {
+            return;
+        }
+        try {
+            manager.destroy();
         } catch (Exception e) {
-            Log.e(TAG, "Exception during reward video ad loading", e);
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "Exception: " + e.getMessage());
-            promise.resolve(result);
+            GroLog.e(TAG, "Exception releasing ad", e);
         }
     }
 
+    private WritableMap cappedResult(String message, long retryAfterMs) {
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", false);
+        result.putBoolean("capped", true);
+        result.putString("message", message);
+        result.putInt("code", FrequencyCap.CODE_CAPPED);
+        result.putDouble("retryAfterMs", retryAfterMs);
+        return result;
+    }
+
+    private void presentAd(AdPool.Entry entry, Promise promise) {
+        presentAd(entry, promise, null);
+    }
+
     /**
-     * 显示激励视频广告
+     * 展示一条已从池中取出的广告，extra 不为 null 时合并到展示成功的结果里
      */
-    @ReactMethod
-    public void showRewardVideoAd(Promise promise) {
-        Log.d(TAG, "showRewardVideoAd called");
-        
-        if (rewardVideoAd == null) {
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "No reward video ad loaded");
-            promise.resolve(result);
+    private void presentAd(AdPool.Entry entry, Promise promise, WritableMap extra) {
+        long capWaitMs = frequencyCap.retryAfterMs(entry.adType, entry.adUnitId, System.currentTimeMillis());
+        if (capWaitMs > 0) {
+            // 未展示的广告放回池中
+            loads.offerOrRelease(entry);
+            promise.resolve(cappedResult("Frequency capped", capWaitMs));
             return;
         }
+        if (entry.ad instanceof SimulatedAdBackend.SimulatedAd) {
+            presentSimulatedAd(entry, promise, extra);
+        } else if (AdTypes.REWARD_VIDEO.equals(entry.adType)) {
+            presentRewardVideoAd(entry, promise, extra);
+        } else {
+            presentFullScreenVideoAd(entry, promise, extra);
+        }
+    }
+
+    /**
+     * 展示一条已从池中取出的激励视频广告
+     */
+    private void presentRewardVideoAd(AdPool.Entry entry, Promise promise, WritableMap extra) {
+        TTRewardVideoAd rewardVideoAd = (TTRewardVideoAd) entry.ad;
+        String adUnitId = entry.adUnitId;
+        final long[] showRequestedAt = new long[1];
+        final long[] shownAt = new long[1];
 
         try {
             Activity currentActivity = getCurrentActivity();
             if (currentActivity == null) {
+                // 未展示的广告放回池中
+                loads.offerOrRelease(entry);
                 WritableMap result = Arguments.createMap();
                 result.putBoolean("success", false);
                 result.putString("message", "No current activity");
@@ -407,69 +2449,99 @@ public class GroMoreModule extends ReactContextBaseJavaModule implements Lifecyc
             rewardVideoAd.setRewardAdInteractionListener(new TTRewardVideoAd.RewardAdInteractionListener() {
                 @Override
                 public void onAdShow() {
-                    Log.d(TAG, "Reward video ad shown");
-                    sendEvent("onRewardVideoShow", Arguments.createMap());
+                    GroLog.d(TAG, "Reward video ad shown");
+                    shownAt[0] = SystemClock.elapsedRealtime();
+                    metrics.shown(AdTypes.REWARD_VIDEO, adUnitId, shownAt[0] - showRequestedAt[0], ecpmOf(rewardVideoAd, true));
+                    frequencyCap.recordImpression(AdTypes.REWARD_VIDEO, adUnitId, System.currentTimeMillis());
+                    sendUnitEvent("onRewardVideoShow", adUnitId);
                 }
 
                 @Override
                 public void onAdVideoBarClick() {
-                    Log.d(TAG, "Reward video ad clicked");
-                    sendEvent("onRewardVideoClick", Arguments.createMap());
+                    stateStore.update(s -> s.withAdActivity(true));
+                    GroLog.d(TAG, "Reward video ad clicked");
+                    trace.record(TraceRing.CLICK, AdTypes.REWARD_VIDEO, adUnitId);
+                    sendUnitEvent("onRewardVideoClick", adUnitId);
                 }
 
                 @Override
                 public void onAdClose() {
-                    Log.d(TAG, "Reward video ad closed");
-                    sendEvent("onRewardVideoClose", Arguments.createMap());
+                    GroLog.d(TAG, "Reward video ad closed");
+                    if (shownAt[0] > 0) {
+                        metrics.closed(AdTypes.REWARD_VIDEO, adUnitId, SystemClock.elapsedRealtime() - shownAt[0]);
+                    }
+                    sendUnitEvent("onRewardVideoClose", adUnitId);
+                    refillScheduler.onConsumed(AdTypes.REWARD_VIDEO, adUnitId);
                 }
 
                 @Override
                 public void onVideoComplete() {
-                    Log.d(TAG, "Reward video completed");
-                    sendEvent("onRewardVideoComplete", Arguments.createMap());
+                    GroLog.d(TAG, "Reward video completed");
+                    sendUnitEvent("onRewardVideoComplete", adUnitId);
                 }
 
                 @Override
                 public void onVideoError() {
-                    Log.e(TAG, "Reward video error");
-                    sendEvent("onRewardVideoPlayError", Arguments.createMap());
+                    GroLog.e(TAG, "Reward video error");
+                    sendUnitEvent("onRewardVideoPlayError", adUnitId);
                 }
 
                 @Override
                 public void onRewardVerify(boolean rewardVerify, int rewardAmount, String rewardName, int errorCode, String errorMsg) {
-                    Log.d(TAG, "Reward verify: " + rewardVerify + ", amount: " + rewardAmount + ", name: " + rewardName);
-                    
-                    WritableMap rewardData = Arguments.createMap();
-                    rewardData.putBoolean("rewardVerify", rewardVerify);
-                    rewardData.putInt("rewardAmount", rewardAmount);
-                    rewardData.putString("rewardName", rewardName);
-                    rewardData.putInt("errorCode", errorCode);
-                    rewardData.putString("errorMsg", errorMsg);
-                    sendEvent("onRewardVideoReward", rewardData);
+                    if (GroLog.isDebug()) {
+                        GroLog.d(TAG, "Reward verify: " + rewardVerify + ", amount: " + rewardAmount + ", name: " + rewardName);
+                    }
+                    trace.record(TraceRing.REWARD, AdTypes.REWARD_VIDEO, adUnitId, rewardAmount, rewardVerify ? 0 : errorCode);
+
+                    if (isEventWanted("onRewardVideoReward")) {
+                        WritableMap rewardData = unitEventData(adUnitId);
+                        rewardData.putBoolean("rewardVerify", rewardVerify);
+                        rewardData.putInt("rewardAmount", rewardAmount);
+                        rewardData.putString("rewardName", rewardName);
+                        rewardData.putInt("errorCode", errorCode);
+                        rewardData.putString("errorMsg", errorMsg);
+                        sendEvent("onRewardVideoReward", rewardData);
+                    }
                 }
 
                 @Override
                 public void onSkippedVideo() {
-                    Log.d(TAG, "Reward video skipped");
-                    sendEvent("onRewardVideoSkipped", Arguments.createMap());
+                    GroLog.d(TAG, "Reward video skipped");
+                    sendUnitEvent("onRewardVideoSkipped", adUnitId);
                 }
 
                 @Override
                 public void onRewardArrived(boolean isRewardValid, int amount, Bundle extraInfo) {
-                    Log.d(TAG, "Reward arrived: valid=" + isRewardValid + ", amount=" + amount);
+                    if (GroLog.isDebug()) {
+                        GroLog.d(TAG, "Reward arrived: valid=" + isRewardValid + ", amount=" + amount);
+                    }
                 }
             });
 
             // 显示激励视频广告
+            metrics.showStarted(AdTypes.REWARD_VIDEO, adUnitId);
+            showRequestedAt[0] = SystemClock.elapsedRealtime();
+            stateStore.update(s -> s.withAdActivity(true));
             rewardVideoAd.showRewardVideoAd(currentActivity);
-            
+
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
             result.putString("message", "Reward video ad shown");
+            result.putString("adUnitId", adUnitId);
+            if (extra != null) {
+                result.merge(extra);
+            }
             promise.resolve(result);
 
         } catch (Exception e) {
-            Log.e(TAG, "Exception during reward video ad showing", e);
+            GroLog.e(TAG, "Exception during reward video ad showing", e);
+            metrics.showFailed(AdTypes.REWARD_VIDEO, adUnitId);
+            if (showRequestedAt[0] == 0) {
+                // 还没有调用展示，广告仍可用
+                loads.offerOrRelease(entry);
+            } else {
+                releaseAd(entry);
+            }
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", false);
             result.putString("message", "Exception: " + e.getMessage());
@@ -478,89 +2550,79 @@ public class GroMoreModule extends ReactContextBaseJavaModule implements Lifecyc
     }
 
     /**
-     * 加载全屏视频广告
+     * 展示一条模拟后端加载的广告，派发与真实广告相同的事件和指标
      */
-    @ReactMethod
-    public void loadFullScreenVideoAd(String adUnitId, Promise promise) {
-        Log.d(TAG, "loadFullScreenVideoAd called with adUnitId: " + adUnitId);
-        
-        if (!isSDKInitialized || adNative == null) {
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "SDK not initialized");
-            promise.resolve(result);
-            return;
-        }
-
-        try {
-            // 创建全屏视频广告请求参数
-            AdSlot adSlot = new AdSlot.Builder()
-                    .setCodeId(adUnitId)
-                    .setOrientation(TTAdConstant.ORIENTATION_VERTICAL)
-                    .build();
-
-            // 加载全屏视频广告
-            adNative.loadFullScreenVideoAd(adSlot, new TTAdNative.FullScreenVideoAdListener() {
-                @Override
-                public void onError(int code, String message) {
-                    Log.e(TAG, "Full screen video ad load failed: " + code + ", " + message);
-                    
-                    WritableMap result = Arguments.createMap();
-                    result.putBoolean("success", false);
-                    result.putString("message", message);
-                    result.putInt("code", code);
-                    promise.resolve(result);
-                }
+    private void presentSimulatedAd(AdPool.Entry entry, Promise promise, WritableMap extra) {
+        SimulatedAdBackend.SimulatedAd ad = (SimulatedAdBackend.SimulatedAd) entry.ad;
+        final String adType = entry.adType;
+        final String adUnitId = entry.adUnitId;
+        final String eventPrefix = AdTypes.REWARD_VIDEO.equals(adType) ? "onRewardVideo" : "onFullScreenVideo";
+        final long showRequestedAt = SystemClock.elapsedRealtime();
+        final long[] shownAt = new long[1];
+
+        metrics.showStarted(adType, adUnitId);
+        ad.play(new SimulatedAdBackend.PlaybackListener() {
+            @Override
+            public void onShow() {
+                shownAt[0] = SystemClock.elapsedRealtime();
+                metrics.shown(adType, adUnitId, shownAt[0] - showRequestedAt, ad.ecpm);
+                frequencyCap.recordImpression(adType, adUnitId, System.currentTimeMillis());
+                sendUnitEvent(eventPrefix + "Show", adUnitId);
+            }
 
-                @Override
-                public void onFullScreenVideoAdLoad(TTFullScreenVideoAd ad) {
-                    Log.d(TAG, "Full screen video ad loaded successfully");
-                    fullScreenVideoAd = ad;
-                    
-                    WritableMap result = Arguments.createMap();
-                    result.putBoolean("success", true);
-                    result.putString("message", "Full screen video ad loaded");
-                    promise.resolve(result);
+            @Override
+            public void onReward(boolean valid, int amount) {
+                trace.record(TraceRing.REWARD, adType, adUnitId, amount, valid ? 0 : -1);
+                if (isEventWanted("onRewardVideoReward")) {
+                    WritableMap rewardData = unitEventData(adUnitId);
+                    rewardData.putBoolean("rewardVerify", valid);
+                    rewardData.putInt("rewardAmount", amount);
+                    rewardData.putString("rewardName", "simulated");
+                    rewardData.putInt("errorCode", valid ? 0 : -1);
+                    rewardData.putString("errorMsg", valid ? "" : "Simulated reward rejection");
+                    sendEvent("onRewardVideoReward", rewardData);
                 }
+            }
 
-                @Override
-                public void onFullScreenVideoCached() {
-                    Log.d(TAG, "Full screen video ad cached");
-                }
+            @Override
+            public void onComplete() {
+                sendUnitEvent(eventPrefix + "Complete", adUnitId);
+            }
 
-                // For SDKs that pass the ad instance
-                public void onFullScreenVideoCached(TTFullScreenVideoAd ad) {
-                    Log.d(TAG, "Full screen video ad cached (with ad instance)");
+            @Override
+            public void onClose() {
+                if (shownAt[0] > 0) {
+                    metrics.closed(adType, adUnitId, SystemClock.elapsedRealtime() - shownAt[0]);
                 }
-            });
+                sendUnitEvent(eventPrefix + "Close", adUnitId);
+                refillScheduler.onConsumed(adType, adUnitId);
+            }
+        });
 
-        } catch (Exception e) {
-            Log.e(TAG, "Exception during full screen video ad loading", e);
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "Exception: " + e.getMessage());
-            promise.resolve(result);
+        WritableMap result = Arguments.createMap();
+        result.putBoolean("success", true);
+        result.putString("message", "Simulated ad shown");
+        result.putString("adUnitId", adUnitId);
+        if (extra != null) {
+            result.merge(extra);
         }
+        promise.resolve(result);
     }
 
     /**
-     * 显示全屏视频广告
+     * 展示一条已从池中取出的全屏视频广告
      */
-    @ReactMethod
-    public void showFullScreenVideoAd(Promise promise) {
-        Log.d(TAG, "showFullScreenVideoAd called");
-        
-        if (fullScreenVideoAd == null) {
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "No full screen video ad loaded");
-            promise.resolve(result);
-            return;
-        }
+    private void presentFullScreenVideoAd(AdPool.Entry entry, Promise promise, WritableMap extra) {
+        TTFullScreenVideoAd fullScreenVideoAd = (TTFullScreenVideoAd) entry.ad;
+        String adUnitId = entry.adUnitId;
+        final long[] showRequestedAt = new long[1];
+        final long[] shownAt = new long[1];
 
         try {
             Activity currentActivity = getCurrentActivity();
             if (currentActivity == null) {
+                // 未展示的广告放回池中
+                loads.offerOrRelease(entry);
                 WritableMap result = Arguments.createMap();
                 result.putBoolean("success", false);
                 result.putString("message", "No current activity");
@@ -572,45 +2634,68 @@ public class GroMoreModule extends ReactContextBaseJavaModule implements Lifecyc
             fullScreenVideoAd.setFullScreenVideoAdInteractionListener(new TTFullScreenVideoAd.FullScreenVideoAdInteractionListener() {
                 @Override
                 public void onAdShow() {
-                    Log.d(TAG, "Full screen video ad shown");
-                    sendEvent("onFullScreenVideoShow", Arguments.createMap());
+                    GroLog.d(TAG, "Full screen video ad shown");
+                    shownAt[0] = SystemClock.elapsedRealtime();
+                    metrics.shown(AdTypes.FULL_SCREEN_VIDEO, adUnitId, shownAt[0] - showRequestedAt[0], ecpmOf(fullScreenVideoAd, true));
+                    frequencyCap.recordImpression(AdTypes.FULL_SCREEN_VIDEO, adUnitId, System.currentTimeMillis());
+                    sendUnitEvent("onFullScreenVideoShow", adUnitId);
                 }
 
                 @Override
                 public void onAdVideoBarClick() {
-                    Log.d(TAG, "Full screen video ad clicked");
-                    sendEvent("onFullScreenVideoClick", Arguments.createMap());
+                    stateStore.update(s -> s.withAdActivity(true));
+                    GroLog.d(TAG, "Full screen video ad clicked");
+                    trace.record(TraceRing.CLICK, AdTypes.FULL_SCREEN_VIDEO, adUnitId);
+                    sendUnitEvent("onFullScreenVideoClick", adUnitId);
                 }
 
                 @Override
                 public void onAdClose() {
-                    Log.d(TAG, "Full screen video ad closed");
-                    sendEvent("onFullScreenVideoClose", Arguments.createMap());
+                    GroLog.d(TAG, "Full screen video ad closed");
+                    if (shownAt[0] > 0) {
+                        metrics.closed(AdTypes.FULL_SCREEN_VIDEO, adUnitId, SystemClock.elapsedRealtime() - shownAt[0]);
+                    }
+                    sendUnitEvent("onFullScreenVideoClose", adUnitId);
+                    refillScheduler.onConsumed(AdTypes.FULL_SCREEN_VIDEO, adUnitId);
                 }
 
                 @Override
                 public void onVideoComplete() {
-                    Log.d(TAG, "Full screen video completed");
-                    sendEvent("onFullScreenVideoComplete", Arguments.createMap());
+                    GroLog.d(TAG, "Full screen video completed");
+                    sendUnitEvent("onFullScreenVideoComplete", adUnitId);
                 }
 
                 @Override
                 public void onSkippedVideo() {
-                    Log.d(TAG, "Full screen video skipped");
-                    sendEvent("onFullScreenVideoSkipped", Arguments.createMap());
+                    GroLog.d(TAG, "Full screen video skipped");
+                    sendUnitEvent("onFullScreenVideoSkipped", adUnitId);
                 }
             });
 
             // 显示全屏视频广告
+            metrics.showStarted(AdTypes.FULL_SCREEN_VIDEO, adUnitId);
+            showRequestedAt[0] = SystemClock.elapsedRealtime();
+            stateStore.update(s -> s.withAdActivity(true));
             fullScreenVideoAd.showFullScreenVideoAd(currentActivity);
-            
+
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", true);
             result.putString("message", "Full screen video ad shown");
+            result.putString("adUnitId", adUnitId);
+            if (extra != null) {
+                result.merge(extra);
+            }
             promise.resolve(result);
 
         } catch (Exception e) {
-            Log.e(TAG, "Exception during full screen video ad showing", e);
+            GroLog.e(TAG, "Exception during full screen video ad showing", e);
+            metrics.showFailed(AdTypes.FULL_SCREEN_VIDEO, adUnitId);
+            if (showRequestedAt[0] == 0) {
+                // 还没有调用展示，广告仍可用
+                loads.offerOrRelease(entry);
+            } else {
+                releaseAd(entry);
+            }
             WritableMap result = Arguments.createMap();
             result.putBoolean("success", false);
             result.putString("message", "Exception: " + e.getMessage());
@@ -618,153 +2703,99 @@ public class GroMoreModule extends ReactContextBaseJavaModule implements Lifecyc
         }
     }
 
-    /**
-     * 通用加载广告方法
-     */
-    @ReactMethod
-    public void loadAd(String adType, String adUnitId, Promise promise) {
-        Log.d(TAG, "loadAd called with adType: " + adType + ", adUnitId: " + adUnitId);
-        
-        switch (adType.toLowerCase()) {
-            case "rewardvideo":
-                loadRewardVideoAd(adUnitId, promise);
-                break;
-            case "fullscreenvideo":
-                loadFullScreenVideoAd(adUnitId, promise);
-                break;
-            default:
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("success", false);
-                result.putString("message", "Unsupported ad type: " + adType);
-                promise.resolve(result);
-                break;
+    @SuppressWarnings("unchecked")
+    private WritableMap toWritableMap(Map<String, Object> values) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, Object> item : values.entrySet()) {
+            Object value = item.getValue();
+            if (value == null) {
+                map.putNull(item.getKey());
+            } else if (value instanceof Map) {
+                map.putMap(item.getKey(), toWritableMap((Map<String, Object>) value));
+            } else if (value instanceof List) {
+                map.putArray(item.getKey(), toWritableArray((List<?>) value));
+            } else if (value instanceof Boolean) {
+                map.putBoolean(item.getKey(), (Boolean) value);
+            } else if (value instanceof Integer) {
+                map.putInt(item.getKey(), (Integer) value);
+            } else if (value instanceof Number) {
+                map.putDouble(item.getKey(), ((Number) value).doubleValue());
+            } else {
+                map.putString(item.getKey(), value.toString());
+            }
         }
+        return map;
     }
 
-    /**
-     * 通用显示广告方法
-     */
-    @ReactMethod
-    public void showAd(String adType, String adUnitId, Promise promise) {
-        Log.d(TAG, "showAd called with adType: " + adType + ", adUnitId: " + adUnitId);
-        
-        switch (adType.toLowerCase()) {
-            case "rewardvideo":
-                showRewardVideoAd(promise);
-                break;
-            case "fullscreenvideo":
-                showFullScreenVideoAd(promise);
-                break;
-            default:
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("success", false);
-                result.putString("message", "Unsupported ad type: " + adType);
-                promise.resolve(result);
-                break;
+    @SuppressWarnings("unchecked")
+    private WritableArray toWritableArray(List<?> values) {
+        WritableArray array = Arguments.createArray();
+        for (Object value : values) {
+            if (value == null) {
+                array.pushNull();
+            } else if (value instanceof Map) {
+                array.pushMap(toWritableMap((Map<String, Object>) value));
+            } else if (value instanceof Boolean) {
+                array.pushBoolean((Boolean) value);
+            } else if (value instanceof Number) {
+                array.pushDouble(((Number) value).doubleValue());
+            } else {
+                array.pushString(value.toString());
+            }
         }
+        return array;
     }
 
-    /**
-     * 检查广告是否已加载
-     */
-    @ReactMethod
-    public void isAdLoaded(String adType, String adUnitId, Promise promise) {
-        Log.d(TAG, "isAdLoaded called with adType: " + adType + ", adUnitId: " + adUnitId);
-        
-        WritableMap result = Arguments.createMap();
-        
-        switch (adType.toLowerCase()) {
-            case "splash":
-                result.putBoolean("isLoaded", splashAd != null);
-                break;
-            case "rewardvideo":
-                result.putBoolean("isLoaded", rewardVideoAd != null);
-                break;
-            case "fullscreenvideo":
-                result.putBoolean("isLoaded", fullScreenVideoAd != null);
-                break;
-            default:
-                result.putBoolean("isLoaded", false);
-                result.putString("message", "Unsupported ad type: " + adType);
-                break;
+    private static List<Object> boundsList() {
+        List<Object> bounds = new ArrayList<>(LatencyHistogram.BOUNDS_MS.length);
+        for (long bound : LatencyHistogram.BOUNDS_MS) {
+            // 最后一桶没有上界
+            bounds.add(bound == Long.MAX_VALUE ? null : bound);
         }
-        
-        promise.resolve(result);
+        return bounds;
     }
 
-    /**
-     * 获取SDK版本
-     */
-    @ReactMethod
-    public void getSDKVersion(Promise promise) {
-        try {
-            String version = TTAdSdk.getAdManager().getSDKVersion();
-            promise.resolve(version);
-        } catch (Exception e) {
-            Log.e(TAG, "Exception getting SDK version", e);
-            promise.reject("VERSION_ERROR", e.getMessage());
-        }
+    private WritableMap unitEventData(String adUnitId) {
+        WritableMap data = Arguments.createMap();
+        data.putString("adUnitId", adUnitId);
+        return data;
     }
 
     /**
-     * 关闭开屏广告
+     * 发送事件到JavaScript
      */
-    @ReactMethod
-    public void closeSplashAd(Promise promise) {
-        Log.d(TAG, "closeSplashAd called");
-        
-        try {
-            if (splashAd != null) {
-                splashAd = null;
-                sendEvent("onSplashAdClose", Arguments.createMap());
-            }
-            
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", true);
-            result.putString("message", "Splash ad closed");
-            promise.resolve(result);
-        } catch (Exception e) {
-            Log.e(TAG, "Exception closing splash ad", e);
-            WritableMap result = Arguments.createMap();
-            result.putBoolean("success", false);
-            result.putString("message", "Exception: " + e.getMessage());
-            promise.resolve(result);
+    private void sendEvent(String eventName, WritableMap params) {
+        if (!listenerRegistry.hasListeners(eventName)) {
+            // 无人订阅：关键事件暂存等待补发，其余直接丢弃
+            listenerRegistry.buffer(eventName, params);
+            return;
         }
+        eventOutbox.send(eventName, params);
     }
 
     /**
-     * 强制关闭开屏广告
+     * 发送不带数据的事件，无人需要时不构造参数
      */
-    @ReactMethod
-    public void forceCloseSplashAd(Promise promise) {
-        Log.d(TAG, "forceCloseSplashAd called");
-        closeSplashAd(promise);
+    private void sendEvent(String eventName) {
+        if (isEventWanted(eventName)) {
+            sendEvent(eventName, Arguments.createMap());
+        }
     }
 
     /**
-     * 通用关闭广告方法
+     * 发送只带广告位ID的事件，无人需要时不构造参数
      */
-    @ReactMethod
-    public void closeAd(String adType, Promise promise) {
-        Log.d(TAG, "closeAd called with adType: " + adType);
-        
-        switch (adType.toLowerCase()) {
-            case "splash":
-                closeSplashAd(promise);
-                break;
-            default:
-                WritableMap result = Arguments.createMap();
-                result.putBoolean("success", false);
-                result.putString("message", "Unsupported ad type for close: " + adType);
-                promise.resolve(result);
-                break;
+    private void sendUnitEvent(String eventName, String adUnitId) {
+        if (isEventWanted(eventName)) {
+            sendEvent(eventName, unitEventData(adUnitId));
         }
     }
 
-    /**
-     * 发送事件到JavaScript
-     */
-    private void sendEvent(String eventName, WritableMap params) {
+    private boolean isEventWanted(String eventName) {
+        return listenerRegistry.isWanted(eventName);
+    }
+
+    private void emitEvent(String eventName, WritableMap params) {
         reactContext
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit(eventName, params);
@@ -1,33 +1,56 @@
 package com.skylantern.gromoread;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
-import android.util.Log;
 
-public class GroMorePackage implements ReactPackage {
+/**
+ * 新旧架构共用的包，新架构下 GroMoreModule 以 TurboModule 方式注册
+ */
+public class GroMorePackage extends TurboReactPackage {
     private static final String TAG = "GroMorePackage";
 
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        Log.d(TAG, "createViewManagers called");
-        return Collections.emptyList();
+        GroLog.d(TAG, "createViewManagers called");
+        List<ViewManager> managers = new ArrayList<>();
+        managers.add(new GroMoreBannerViewManager());
+        managers.add(new GroMoreFeedAdViewManager());
+        return managers;
     }
 
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        Log.d(TAG, "createNativeModules called");
-        List<NativeModule> modules = new ArrayList<>();
-        GroMoreModule groMoreModule = new GroMoreModule(reactContext);
-        modules.add(groMoreModule);
-        Log.d(TAG, "GroMoreModule created and added to modules list");
-        Log.d(TAG, "Module name: " + groMoreModule.getName());
-        return modules;
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (!GroMoreModule.NAME.equals(name)) {
+            return null;
+        }
+        GroLog.d(TAG, "getModule called for ", name);
+        return new GroMoreModule(reactContext);
+    }
+
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> infos = new HashMap<>();
+            infos.put(GroMoreModule.NAME, new ReactModuleInfo(
+                    GroMoreModule.NAME,
+                    GroMoreModule.class.getName(),
+                    false, // canOverrideExistingModule
+                    false, // needsEagerInit
+                    false, // hasConstants
+                    false, // isCxxModule
+                    BuildConfig.IS_NEW_ARCHITECTURE_ENABLED // isTurboModule
+            ));
+            return infos;
+        };
     }
 }
@@ -0,0 +1,274 @@
+package com.skylantern.gromoread;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.bytedance.sdk.openadsdk.TTAdConfig;
+import com.bytedance.sdk.openadsdk.TTAdConstant;
+import com.bytedance.sdk.openadsdk.TTAdSdk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GroMore SDK 进程级初始化状态
+ * 既可以由JS调用 init 触发，也可以在应用启动阶段（GroMoreInitProvider 或 Application）提前触发，
+ * 两条路径共享同一次初始化
+ */
+public final class GroMoreSdk {
+    private static final String TAG = "GroMoreSdk";
+
+    public static final int STATE_IDLE = 0;
+    public static final int STATE_INITIALIZING = 1;
+    public static final int STATE_READY = 2;
+    public static final int STATE_FAILED = 3;
+
+    /**
+     * 初始化结果监听
+     */
+    interface Listener {
+        void onReady();
+
+        void onFailed(int code, String message);
+    }
+
+    private static int state = STATE_IDLE;
+    private static String appId;
+    private static boolean warmStart;
+    private static int failCode;
+    private static String failMessage;
+    private static long startedAt;
+    private static long readyAt;
+    private static long initCallMs = -1;
+    private static final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * TTAdConfig 中由宿主决定的字段，未设置的保持默认值
+     */
+    public static final class Options {
+        String appName = "SkyLanternWishes";
+        boolean debug = BuildConfig.DEBUG;
+        boolean supportMultiProcess = false;
+        boolean allowShowNotify = true;
+        boolean useTextureView = false;
+        int titleBarTheme = TTAdConstant.TITLE_BAR_THEME_DARK;
+        // 计费网络下不直接下载应用安装包
+        int[] directDownloadNetworkTypes = {TTAdConstant.NETWORK_STATE_WIFI};
+
+        public Options appName(String appName) {
+            this.appName = appName;
+            return this;
+        }
+
+        public Options debug(boolean debug) {
+            this.debug = debug;
+            return this;
+        }
+
+        public Options supportMultiProcess(boolean supportMultiProcess) {
+            this.supportMultiProcess = supportMultiProcess;
+            return this;
+        }
+
+        public Options allowShowNotify(boolean allowShowNotify) {
+            this.allowShowNotify = allowShowNotify;
+            return this;
+        }
+
+        public Options useTextureView(boolean useTextureView) {
+            this.useTextureView = useTextureView;
+            return this;
+        }
+
+        public Options titleBarTheme(int titleBarTheme) {
+            this.titleBarTheme = titleBarTheme;
+            return this;
+        }
+
+        public Options directDownloadNetworkTypes(int... types) {
+            this.directDownloadNetworkTypes = types;
+            return this;
+        }
+    }
+
+    private GroMoreSdk() {
+    }
+
+    /**
+     * 在应用启动阶段提前初始化SDK，可在 Application.onCreate 中调用
+     */
+    public static void warmStart(Context context, String appId) {
+        warmStart(context, appId, new Options());
+    }
+
+    public static void warmStart(Context context, String appId, Options options) {
+        synchronized (GroMoreSdk.class) {
+            warmStart = true;
+        }
+        start(context, appId, options);
+    }
+
+    /**
+     * 启动SDK初始化，已在初始化中或已就绪时直接返回（此时传入的配置不生效）
+     */
+    static void start(Context context, String appId, Options options) {
+        synchronized (GroMoreSdk.class) {
+            if (state == STATE_INITIALIZING || state == STATE_READY) {
+                if (GroMoreSdk.appId != null && !GroMoreSdk.appId.equals(appId)) {
+                    GroLog.w(TAG, "SDK already started, ignoring appId ", appId);
+                }
+                return;
+            }
+            state = STATE_INITIALIZING;
+            GroMoreSdk.appId = appId;
+            startedAt = SystemClock.elapsedRealtime();
+        }
+
+        try {
+            // 创建SDK配置
+            TTAdConfig adConfig = new TTAdConfig.Builder()
+                    .appId(appId)
+                    .appName(options.appName)
+                    .titleBarTheme(options.titleBarTheme)
+                    .allowShowNotify(options.allowShowNotify)
+                    .debug(options.debug)
+                    .directDownloadNetworkType(options.directDownloadNetworkTypes)
+                    .supportMultiProcess(options.supportMultiProcess)
+                    .useTextureView(options.useTextureView)
+                    .useMediation(true)
+                    .build();
+
+            // 初始化SDK，耗时主要是SDK与已编入的适配器的类加载，用于对比适配器裁剪前后的启动开销
+            long initCallStartedAt = SystemClock.elapsedRealtime();
+            boolean initResult = TTAdSdk.init(context.getApplicationContext(), adConfig);
+            synchronized (GroMoreSdk.class) {
+                initCallMs = SystemClock.elapsedRealtime() - initCallStartedAt;
+            }
+            if (GroLog.isDebug()) {
+                GroLog.d(TAG, "TTAdSdk.init() result: " + initResult);
+            }
+            if (!initResult) {
+                fail(-1, "SDK init failed");
+                return;
+            }
+
+            // 启动SDK
+            TTAdSdk.start(new TTAdSdk.Callback() {
+                @Override
+                public void success() {
+                    GroLog.d(TAG, "GroMore SDK started successfully");
+                    ready();
+                }
+
+                @Override
+                public void fail(int code, String msg) {
+                    GroLog.e(TAG, "GroMore SDK start failed", code, msg);
+                    GroMoreSdk.fail(code, msg);
+                }
+            });
+        } catch (Exception e) {
+            GroLog.e(TAG, "Exception during SDK initialization", e);
+            fail(-1, "Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 注册初始化结果监听，已有结果时立即回调
+     */
+    static void addListener(Listener listener) {
+        int current;
+        synchronized (GroMoreSdk.class) {
+            current = state;
+            if (current == STATE_IDLE || current == STATE_INITIALIZING) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        if (current == STATE_READY) {
+            listener.onReady();
+        } else {
+            listener.onFailed(failCode, failMessage);
+        }
+    }
+
+    static synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    static synchronized int state() {
+        return state;
+    }
+
+    static synchronized boolean isReady() {
+        return state == STATE_READY;
+    }
+
+    static synchronized boolean isWarmStart() {
+        return warmStart;
+    }
+
+    static synchronized String appId() {
+        return appId;
+    }
+
+    /**
+     * 从开始初始化到就绪的耗时，未就绪时返回-1
+     */
+    static synchronized long initDurationMs() {
+        return state == STATE_READY ? readyAt - startedAt : -1;
+    }
+
+    /**
+     * TTAdSdk.init 同步调用的耗时，未调用时返回-1
+     */
+    static synchronized long initCallMs() {
+        return initCallMs;
+    }
+
+    /**
+     * 编译进来的聚合适配器，由 gradle 属性 gromoreAdapters 决定
+     */
+    static String[] adapters() {
+        return BuildConfig.GROMORE_ADAPTERS.isEmpty() ? new String[0] : BuildConfig.GROMORE_ADAPTERS.split(",");
+    }
+
+    static String stateName(int state) {
+        switch (state) {
+            case STATE_INITIALIZING:
+                return "initializing";
+            case STATE_READY:
+                return "ready";
+            case STATE_FAILED:
+                return "failed";
+            default:
+                return "idle";
+        }
+    }
+
+    private static void ready() {
+        List<Listener> pending;
+        synchronized (GroMoreSdk.class) {
+            state = STATE_READY;
+            readyAt = SystemClock.elapsedRealtime();
+            pending = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        for (Listener listener : pending) {
+            listener.onReady();
+        }
+    }
+
+    private static void fail(int code, String message) {
+        List<Listener> pending;
+        synchronized (GroMoreSdk.class) {
+            state = STATE_FAILED;
+            failCode = code;
+            failMessage = message;
+            pending = new ArrayList<>(listeners);
+            listeners.clear();
+        }
+        for (Listener listener : pending) {
+            listener.onFailed(code, message);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.skylantern.gromoread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进行中的加载请求登记
+ * 同一 (adType, adUnitId) 同时只发起一次SDK请求，后到的调用方挂在同一请求上等结果
+ */
+final class InFlightLoads {
+
+    /**
+     * 等待方，deduplicated 表示挂在了别人发起的请求上
+     */
+    abstract static class Waiter implements AdLoadCallback {
+        boolean deduplicated;
+    }
+
+    private final Map<String, List<Waiter>> waiters = new HashMap<>();
+    private long deduplicated;
+
+    /**
+     * 登记一个等待方，返回 true 表示当前没有进行中的请求，需要由调用方发起
+     */
+    synchronized boolean join(String adType, String adUnitId, Waiter waiter) {
+        String key = AdPool.key(adType, adUnitId);
+        List<Waiter> list = waiters.get(key);
+        if (list != null) {
+            waiter.deduplicated = true;
+            list.add(waiter);
+            deduplicated++;
+            return false;
+        }
+        list = new ArrayList<>();
+        list.add(waiter);
+        waiters.put(key, list);
+        return true;
+    }
+
+    /**
+     * 请求结束，取出所有等待方
+     */
+    synchronized List<Waiter> complete(String adType, String adUnitId) {
+        List<Waiter> list = waiters.remove(AdPool.key(adType, adUnitId));
+        return list != null ? list : new ArrayList<>();
+    }
+
+    synchronized boolean isInFlight(String adType, String adUnitId) {
+        return waiters.containsKey(AdPool.key(adType, adUnitId));
+    }
+
+    synchronized long deduplicatedCount() {
+        return deduplicated;
+    }
+}
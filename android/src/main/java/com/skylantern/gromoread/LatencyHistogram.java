@@ -0,0 +1,76 @@
+package com.skylantern.gromoread;
+
+/**
+ * 固定分桶的耗时直方图
+ * 记录时不分配对象，分位数按所在桶的上界估算
+ */
+final class LatencyHistogram {
+    // 各桶上界（毫秒），最后一桶收纳所有更大的值
+    static final long[] BOUNDS_MS = {
+            50, 100, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 8000, 12000, 20000, 30000, Long.MAX_VALUE
+    };
+
+    private final long[] counts = new long[BOUNDS_MS.length];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long valueMs) {
+        if (valueMs < 0) {
+            valueMs = 0;
+        }
+        int i = 0;
+        while (valueMs > BOUNDS_MS[i]) {
+            i++;
+        }
+        counts[i]++;
+        count++;
+        sum += valueMs;
+        if (valueMs > max) {
+            max = valueMs;
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    long max() {
+        return max;
+    }
+
+    long mean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * 估算分位数，p 取 0~1
+     */
+    long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MS[i], max);
+            }
+        }
+        return max;
+    }
+
+    long bucketCount(int index) {
+        return counts[index];
+    }
+
+    void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+}
@@ -0,0 +1,477 @@
+package com.skylantern.gromoread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 跨进程保留的广告位表现账本
+ * 按广告位记录加载耗时、填充/无填充、渲染失败和展示时的 eCPM，追加写入定长记录文件；
+ * 每次请求只计一个结果，超时后才到达的填充单独计数，不影响填充率；
+ * 启动时回放并压缩为每个广告位一条汇总，文件超过阈值时也会压缩。
+ * 文件读写和汇总都在专用线程上执行，不阻塞调用方
+ */
+final class PerformanceLedger {
+    private static final String TAG = "GroMoreModule";
+    // "GMPL"
+    private static final int MAGIC = 0x474d504c;
+    private static final int VERSION = 1;
+    // 追加的记录超过该大小时压缩
+    private static final long COMPACT_BYTES = 64 * 1024;
+    // 广告位的请求数超过该值时所有计数减半，让近期表现占主导
+    private static final long MAX_LOADS = 2000;
+    // 排序时至少需要的请求数，少于该数的广告位视为未知
+    private static final int MIN_SAMPLES = 3;
+    private static final double EWMA_ALPHA = 0.2;
+    // 聚合SDK的无填充错误码
+    private static final int CODE_NO_FILL = 20001;
+
+    private static final byte REC_UNIT = 1;
+    private static final byte REC_LOAD_OK = 2;
+    private static final byte REC_LOAD_FAIL = 3;
+    private static final byte REC_TIMEOUT = 4;
+    private static final byte REC_RENDER_FAIL = 5;
+    private static final byte REC_SHOW = 6;
+    private static final byte REC_SUMMARY = 7;
+    private static final byte REC_LATE_FILL = 8;
+
+    /**
+     * 结果回调，在账本线程上执行
+     */
+    interface Result<T> {
+        void accept(T value);
+    }
+
+    /**
+     * 单个广告位的累计表现
+     */
+    static final class UnitStats {
+        final String adType;
+        final String adUnitId;
+        long loads;
+        long fills;
+        long noFills;
+        long errors;
+        long timeouts;
+        // 超时之后才返回的填充，对应的请求已计入 timeouts
+        long lateFills;
+        long renderFailures;
+        long shows;
+        double latencyMs = -1;
+        double ecpm = -1;
+        long ecpmSamples;
+        // 最近一次记录的时间（分钟）
+        int lastSeenMinute;
+
+        UnitStats(String adType, String adUnitId) {
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+        }
+
+        double fillRate() {
+            return loads == 0 ? 0 : (double) fills / loads;
+        }
+
+        /**
+         * 每次请求的期望收益，eCPM 未知时只看填充率
+         */
+        double score() {
+            return fillRate() * (ecpm > 0 ? ecpm : 1);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GroMoreLedger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 以下只在账本线程访问
+    private final Map<String, UnitStats> units = new LinkedHashMap<>();
+    // 当前文件里已写入的广告位编号
+    private final Map<UnitStats, Integer> ids = new HashMap<>();
+    private File file;
+    private DataOutputStream out;
+
+    /**
+     * 回放已有文件并压缩，之后的记录追加到该文件
+     */
+    void open(File file) {
+        submit(() -> {
+            this.file = file;
+            replay();
+            compact();
+        });
+    }
+
+    void loadSucceeded(String adType, String adUnitId, long latencyMs) {
+        record(REC_LOAD_OK, adType, adUnitId, (int) latencyMs, 0, 0);
+    }
+
+    void loadFailed(String adType, String adUnitId, long latencyMs, int code) {
+        record(REC_LOAD_FAIL, adType, adUnitId, (int) latencyMs, code, 0);
+    }
+
+    void loadTimedOut(String adType, String adUnitId) {
+        record(REC_TIMEOUT, adType, adUnitId, 0, 0, 0);
+    }
+
+    void lateFill(String adType, String adUnitId, long latencyMs) {
+        record(REC_LATE_FILL, adType, adUnitId, (int) latencyMs, 0, 0);
+    }
+
+    void renderFailed(String adType, String adUnitId, int code) {
+        record(REC_RENDER_FAIL, adType, adUnitId, 0, code, 0);
+    }
+
+    /**
+     * ecpm 为聚合返回的展示价格（分），取不到时传 -1
+     */
+    void shown(String adType, String adUnitId, double ecpm) {
+        record(REC_SHOW, adType, adUnitId, 0, 0, (float) ecpm);
+    }
+
+    /**
+     * 导出广告位的累计表现，adType 为 null 时导出全部
+     */
+    void snapshot(String adType, Result<List<Map<String, Object>>> result) {
+        submit(() -> {
+            List<Map<String, Object>> list = new ArrayList<>();
+            for (UnitStats unit : units.values()) {
+                if (adType == null || adType.equals(unit.adType)) {
+                    list.add(describe(unit));
+                }
+            }
+            result.accept(list);
+        });
+    }
+
+    /**
+     * 按每次请求的期望收益（填充率 × eCPM）从高到低排列广告位，
+     * 样本不足的广告位按传入顺序排在后面
+     */
+    void rank(String adType, List<String> unitIds, Result<List<String>> result) {
+        submit(() -> {
+            List<UnitStats> known = new ArrayList<>();
+            List<String> unknown = new ArrayList<>();
+            for (String adUnitId : unitIds) {
+                UnitStats unit = units.get(AdPool.key(adType, adUnitId));
+                if (unit != null && unit.loads >= MIN_SAMPLES) {
+                    known.add(unit);
+                } else {
+                    unknown.add(adUnitId);
+                }
+            }
+            // 稳定排序，得分相同时保持传入顺序
+            Collections.sort(known, (a, b) -> Double.compare(b.score(), a.score()));
+            List<String> ranked = new ArrayList<>(unitIds.size());
+            for (UnitStats unit : known) {
+                ranked.add(unit.adUnitId);
+            }
+            ranked.addAll(unknown);
+            result.accept(ranked);
+        });
+    }
+
+    /**
+     * 清空所有记录
+     */
+    void clear(Runnable then) {
+        submit(() -> {
+            units.clear();
+            compact();
+            if (then != null) {
+                then.run();
+            }
+        });
+    }
+
+    void shutdown() {
+        submit(this::closeOutput);
+        executor.shutdown();
+    }
+
+    private void submit(Runnable task) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 模块已销毁
+        }
+    }
+
+    private void record(byte type, String adType, String adUnitId, int value, int code, float ecpm) {
+        if (adUnitId == null || adUnitId.isEmpty()) {
+            return;
+        }
+        final int minute = currentMinute();
+        submit(() -> {
+            UnitStats unit = unit(adType, adUnitId);
+            apply(unit, type, minute, value, code, ecpm);
+            append(unit, type, minute, value, code, ecpm);
+        });
+    }
+
+    private UnitStats unit(String adType, String adUnitId) {
+        String key = AdPool.key(adType, adUnitId);
+        UnitStats unit = units.get(key);
+        if (unit == null) {
+            unit = new UnitStats(adType, adUnitId);
+            units.put(key, unit);
+        }
+        return unit;
+    }
+
+    /**
+     * 把一条事件计入汇总，实时记录和回放共用
+     */
+    private static void apply(UnitStats unit, byte type, int minute, int value, int code, float ecpm) {
+        unit.lastSeenMinute = Math.max(unit.lastSeenMinute, minute);
+        switch (type) {
+            case REC_LOAD_OK:
+                unit.loads++;
+                unit.fills++;
+                unit.latencyMs = ewma(unit.latencyMs, value);
+                break;
+            case REC_LOAD_FAIL:
+                unit.loads++;
+                if (code == CODE_NO_FILL) {
+                    unit.noFills++;
+                } else {
+                    unit.errors++;
+                }
+                break;
+            case REC_TIMEOUT:
+                unit.loads++;
+                unit.timeouts++;
+                break;
+            case REC_LATE_FILL:
+                unit.lateFills++;
+                break;
+            case REC_RENDER_FAIL:
+                unit.renderFailures++;
+                break;
+            case REC_SHOW:
+                unit.shows++;
+                if (ecpm > 0) {
+                    unit.ecpm = ewma(unit.ecpm, ecpm);
+                    unit.ecpmSamples++;
+                }
+                break;
+            default:
+                break;
+        }
+        if (unit.loads > MAX_LOADS) {
+            unit.loads /= 2;
+            unit.fills /= 2;
+            unit.noFills /= 2;
+            unit.errors /= 2;
+            unit.timeouts /= 2;
+            unit.lateFills /= 2;
+            unit.renderFailures /= 2;
+            unit.shows /= 2;
+            unit.ecpmSamples /= 2;
+        }
+    }
+
+    private static double ewma(double current, double sample) {
+        return current < 0 ? sample : current + EWMA_ALPHA * (sample - current);
+    }
+
+    private void append(UnitStats unit, byte type, int minute, int value, int code, float ecpm) {
+        if (out == null) {
+            return;
+        }
+        try {
+            int id = idOf(unit);
+            out.writeByte(type);
+            out.writeShort(id);
+            out.writeInt(minute);
+            out.writeInt(value);
+            out.writeInt(code);
+            out.writeFloat(ecpm);
+            out.flush();
+            if (out.size() > COMPACT_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            GroLog.w(TAG, "Ledger write failed: ", e.getMessage());
+            closeOutput();
+        }
+    }
+
+    /**
+     * 广告位在当前文件中的编号，首次出现时先写入定义记录
+     */
+    private int idOf(UnitStats unit) throws IOException {
+        Integer id = ids.get(unit);
+        if (id == null) {
+            id = ids.size();
+            out.writeByte(REC_UNIT);
+            out.writeShort(id);
+            out.writeUTF(unit.adType);
+            out.writeUTF(unit.adUnitId);
+            ids.put(unit, id);
+        }
+        return id;
+    }
+
+    /**
+     * 回放文件中的记录，末尾写了一半的记录直接丢弃
+     */
+    private void replay() {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        Map<Integer, UnitStats> byId = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                GroLog.w(TAG, "Ledger format changed, starting fresh");
+                return;
+            }
+            while (true) {
+                byte type = in.readByte();
+                int id = in.readShort();
+                if (type == REC_UNIT) {
+                    byId.put(id, unit(in.readUTF(), in.readUTF()));
+                } else if (type == REC_SUMMARY) {
+                    UnitStats unit = byId.get(id);
+                    if (unit == null) {
+                        break;
+                    }
+                    unit.loads = in.readLong();
+                    unit.fills = in.readLong();
+                    unit.noFills = in.readLong();
+                    unit.errors = in.readLong();
+                    unit.timeouts = in.readLong();
+                    unit.lateFills = in.readLong();
+                    unit.renderFailures = in.readLong();
+                    unit.shows = in.readLong();
+                    unit.latencyMs = in.readDouble();
+                    unit.ecpm = in.readDouble();
+                    unit.ecpmSamples = in.readLong();
+                    unit.lastSeenMinute = in.readInt();
+                } else {
+                    int minute = in.readInt();
+                    int value = in.readInt();
+                    int code = in.readInt();
+                    float ecpm = in.readFloat();
+                    UnitStats unit = byId.get(id);
+                    if (unit == null) {
+                        break;
+                    }
+                    apply(unit, type, minute, value, code, ecpm);
+                }
+            }
+        } catch (EOFException e) {
+            // 读到文件末尾
+        } catch (IOException e) {
+            GroLog.w(TAG, "Ledger replay failed: ", e.getMessage());
+        }
+    }
+
+    /**
+     * 把当前汇总写成新文件并替换旧文件，之后继续追加
+     */
+    private void compact() {
+        closeOutput();
+        ids.clear();
+        if (file == null) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            compacted.writeInt(MAGIC);
+            compacted.writeInt(VERSION);
+            int id = 0;
+            for (UnitStats unit : units.values()) {
+                compacted.writeByte(REC_UNIT);
+                compacted.writeShort(id);
+                compacted.writeUTF(unit.adType);
+                compacted.writeUTF(unit.adUnitId);
+                compacted.writeByte(REC_SUMMARY);
+                compacted.writeShort(id);
+                compacted.writeLong(unit.loads);
+                compacted.writeLong(unit.fills);
+                compacted.writeLong(unit.noFills);
+                compacted.writeLong(unit.errors);
+                compacted.writeLong(unit.timeouts);
+                compacted.writeLong(unit.lateFills);
+                compacted.writeLong(unit.renderFailures);
+                compacted.writeLong(unit.shows);
+                compacted.writeDouble(unit.latencyMs);
+                compacted.writeDouble(unit.ecpm);
+                compacted.writeLong(unit.ecpmSamples);
+                compacted.writeInt(unit.lastSeenMinute);
+                ids.put(unit, id++);
+            }
+        } catch (IOException e) {
+            GroLog.w(TAG, "Ledger compaction failed: ", e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            GroLog.w(TAG, "Ledger compaction rename failed");
+            ids.clear();
+            return;
+        }
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        } catch (IOException e) {
+            GroLog.w(TAG, "Ledger open failed, recording in memory: ", e.getMessage());
+        }
+    }
+
+    private void closeOutput() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 关闭失败不影响内存中的汇总
+        }
+        out = null;
+    }
+
+    private static Map<String, Object> describe(UnitStats unit) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("adType", unit.adType);
+        item.put("adUnitId", unit.adUnitId);
+        item.put("loads", unit.loads);
+        item.put("fills", unit.fills);
+        item.put("noFills", unit.noFills);
+        item.put("errors", unit.errors);
+        item.put("timeouts", unit.timeouts);
+        item.put("lateFills", unit.lateFills);
+        item.put("renderFailures", unit.renderFailures);
+        item.put("shows", unit.shows);
+        item.put("fillRate", unit.fillRate());
+        item.put("latencyMs", unit.latencyMs);
+        item.put("ecpm", unit.ecpm);
+        item.put("ecpmSamples", unit.ecpmSamples);
+        item.put("score", unit.score());
+        item.put("lastSeenAt", unit.lastSeenMinute * 60000L);
+        return item;
+    }
+
+    private static int currentMinute() {
+        return (int) (System.currentTimeMillis() / 60000L);
+    }
+}
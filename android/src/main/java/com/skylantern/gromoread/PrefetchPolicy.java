@@ -0,0 +1,365 @@
+package com.skylantern.gromoread;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.PowerManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按网络和电量调整预取力度
+ * 监听当前网络、电量和省电模式，决定后台补货和预取每种广告最多备几条；
+ * SDK 加载视频广告时总会下载素材，视频上限为 0 即不在后台缓存视频素材。
+ * 只约束后台预取，显式加载和展示不受限制；收紧时已在库存中的广告保留到展示或过期。
+ * 状态计算和回调都在主线程
+ */
+final class PrefetchPolicy {
+    static final String LEVEL_FULL = "full";
+    static final String LEVEL_REDUCED = "reduced";
+    static final String LEVEL_MINIMAL = "minimal";
+    static final String LEVEL_OFFLINE = "offline";
+    static final String NETWORK_WIFI = "wifi";
+    static final String NETWORK_CELLULAR = "cellular";
+    static final String NETWORK_ETHERNET = "ethernet";
+    static final String NETWORK_OTHER = "other";
+    static final String NETWORK_NONE = "none";
+    static final int DEFAULT_LOW_BATTERY_PERCENT = 20;
+    // 低于该电量且未充电时只保留最低限度的预取
+    static final int CRITICAL_BATTERY_PERCENT = 10;
+    static final int UNLIMITED = AdPool.UNLIMITED_PREFETCH;
+
+    private static final String TAG = "GroMoreModule";
+
+    /**
+     * 预取策略变化时在主线程回调
+     */
+    interface Listener {
+        void onPolicyChanged(Decision previous, Decision current);
+    }
+
+    /**
+     * 可配置项，未设置的保持默认值
+     */
+    static final class Options {
+        boolean enabled = true;
+        // 计费网络下是否仍在后台预取一条视频广告
+        boolean cellularVideo = false;
+        int lowBatteryPercent = DEFAULT_LOW_BATTERY_PERCENT;
+    }
+
+    /**
+     * 某一时刻的设备状态和由此得出的预取限制
+     */
+    static final class Decision {
+        static final Decision UNRESTRICTED = new Decision(LEVEL_FULL, NETWORK_OTHER, false, -1, false, false,
+                UNLIMITED, UNLIMITED, FeedAdPrefetcher.MAX_DEPTH);
+
+        final String level;
+        final String network;
+        final boolean metered;
+        // -1 表示未知
+        final int batteryPercent;
+        final boolean charging;
+        final boolean powerSave;
+        final int videoDepth;
+        final int splashDepth;
+        final int feedDepth;
+
+        private Decision(String level, String network, boolean metered, int batteryPercent, boolean charging,
+                         boolean powerSave, int videoDepth, int splashDepth, int feedDepth) {
+            this.level = level;
+            this.network = network;
+            this.metered = metered;
+            this.batteryPercent = batteryPercent;
+            this.charging = charging;
+            this.powerSave = powerSave;
+            this.videoDepth = videoDepth;
+            this.splashDepth = splashDepth;
+            this.feedDepth = feedDepth;
+        }
+
+        /**
+         * 由设备状态计算预取限制
+         */
+        static Decision of(Options options, String network, boolean metered, int batteryPercent,
+                           boolean charging, boolean powerSave) {
+            if (!options.enabled) {
+                return new Decision(LEVEL_FULL, network, metered, batteryPercent, charging, powerSave,
+                        UNLIMITED, UNLIMITED, FeedAdPrefetcher.MAX_DEPTH);
+            }
+            boolean knownBattery = batteryPercent >= 0 && !charging;
+            if (NETWORK_NONE.equals(network)) {
+                return new Decision(LEVEL_OFFLINE, network, metered, batteryPercent, charging, powerSave,
+                        0, 0, FeedAdPrefetcher.MIN_DEPTH);
+            }
+            if (powerSave || (knownBattery && batteryPercent <= CRITICAL_BATTERY_PERCENT)) {
+                return new Decision(LEVEL_MINIMAL, network, metered, batteryPercent, charging, powerSave,
+                        0, 0, FeedAdPrefetcher.MIN_DEPTH);
+            }
+            if (metered) {
+                int videoDepth = options.cellularVideo ? 1 : 0;
+                return new Decision(LEVEL_REDUCED, network, metered, batteryPercent, charging, powerSave,
+                        videoDepth, 1, 2);
+            }
+            if (knownBattery && batteryPercent <= options.lowBatteryPercent) {
+                return new Decision(LEVEL_REDUCED, network, metered, batteryPercent, charging, powerSave,
+                        1, 1, 2);
+            }
+            return new Decision(LEVEL_FULL, network, metered, batteryPercent, charging, powerSave,
+                    UNLIMITED, UNLIMITED, FeedAdPrefetcher.MAX_DEPTH);
+        }
+
+        /**
+         * 该类型后台最多预取几条，UNLIMITED 表示按库存深度
+         */
+        int depthLimit(String adType) {
+            if (AdTypes.SPLASH.equals(adType)) {
+                return splashDepth;
+            }
+            if (AdTypes.REWARD_VIDEO.equals(adType) || AdTypes.FULL_SCREEN_VIDEO.equals(adType)) {
+                return videoDepth;
+            }
+            return UNLIMITED;
+        }
+
+        /**
+         * 限制是否与另一个决策相同，只有设备状态变化但限制不变时不需要通知
+         */
+        boolean sameLimits(Decision other) {
+            return level.equals(other.level) && videoDepth == other.videoDepth && splashDepth == other.splashDepth
+                    && feedDepth == other.feedDepth;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("level", level);
+            map.put("network", network);
+            map.put("metered", metered);
+            map.put("batteryPercent", batteryPercent >= 0 ? batteryPercent : null);
+            map.put("charging", charging);
+            map.put("powerSave", powerSave);
+            Map<String, Object> depths = new LinkedHashMap<>();
+            // 不限时为 null，按库存深度预取
+            depths.put(AdTypes.REWARD_VIDEO, videoDepth == UNLIMITED ? null : videoDepth);
+            depths.put(AdTypes.FULL_SCREEN_VIDEO, videoDepth == UNLIMITED ? null : videoDepth);
+            depths.put(AdTypes.SPLASH, splashDepth == UNLIMITED ? null : splashDepth);
+            depths.put("feed", feedDepth);
+            map.put("maxDepth", depths);
+            return map;
+        }
+    }
+
+    private final Context appContext;
+    private final Handler mainHandler;
+    private final Listener listener;
+    private Options options = new Options();
+    private volatile Decision current = Decision.UNRESTRICTED;
+    private int batteryPercent = -1;
+    private boolean charging;
+    private boolean started;
+    private ConnectivityManager.NetworkCallback networkCallback;
+    private final Runnable evaluateTask = this::evaluate;
+    private final BroadcastReceiver batteryReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                readBattery(intent);
+            }
+            evaluate();
+        }
+    };
+
+    PrefetchPolicy(Context context, Handler mainHandler, Listener listener) {
+        this.appContext = context.getApplicationContext();
+        this.mainHandler = mainHandler;
+        this.listener = listener;
+    }
+
+    /**
+     * 开始监听网络和电量，注册失败时保持不限制
+     */
+    void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+            filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+            // 电量变化是粘性广播，注册时直接返回当前电量
+            Intent battery = appContext.registerReceiver(batteryReceiver, filter);
+            if (battery != null) {
+                readBattery(battery);
+            }
+        } catch (Exception e) {
+            GroLog.w(TAG, "Battery state unavailable: ", e.getMessage());
+        }
+
+        ConnectivityManager cm = connectivity();
+        if (cm != null) {
+            networkCallback = new ConnectivityManager.NetworkCallback() {
+                // 网络回调在系统的连接线程上，切回主线程重新计算
+                @Override
+                public void onAvailable(Network network) {
+                    scheduleEvaluate();
+                }
+
+                @Override
+                public void onLost(Network network) {
+                    scheduleEvaluate();
+                }
+
+                @Override
+                public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+                    scheduleEvaluate();
+                }
+            };
+            try {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                    cm.registerDefaultNetworkCallback(networkCallback);
+                } else {
+                    cm.registerNetworkCallback(new NetworkRequest.Builder()
+                            .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                            .build(), networkCallback);
+                }
+            } catch (Exception e) {
+                GroLog.w(TAG, "Network callback unavailable: ", e.getMessage());
+                networkCallback = null;
+            }
+        }
+        evaluate();
+    }
+
+    void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        mainHandler.removeCallbacks(evaluateTask);
+        try {
+            appContext.unregisterReceiver(batteryReceiver);
+        } catch (Exception e) {
+            // 注册失败时没有可注销的接收器
+        }
+        ConnectivityManager cm = connectivity();
+        if (cm != null && networkCallback != null) {
+            try {
+                cm.unregisterNetworkCallback(networkCallback);
+            } catch (Exception e) {
+                GroLog.w(TAG, "Failed to unregister network callback: ", e.getMessage());
+            }
+        }
+        networkCallback = null;
+    }
+
+    void configure(Options options) {
+        this.options = options;
+        evaluate();
+    }
+
+    Options options() {
+        return options;
+    }
+
+    /**
+     * 当前决策，任何线程都可以读取
+     */
+    Decision current() {
+        return current;
+    }
+
+    private void scheduleEvaluate() {
+        // 网络切换时一次会收到多个回调，合并成一次计算
+        mainHandler.removeCallbacks(evaluateTask);
+        mainHandler.post(evaluateTask);
+    }
+
+    private void evaluate() {
+        if (!started) {
+            return;
+        }
+        String network = NETWORK_OTHER;
+        boolean metered = false;
+        ConnectivityManager cm = connectivity();
+        if (cm != null) {
+            try {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    Network active = cm.getActiveNetwork();
+                    NetworkCapabilities caps = active != null ? cm.getNetworkCapabilities(active) : null;
+                    network = caps == null ? NETWORK_NONE : networkOf(caps);
+                    metered = caps != null && !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+                } else {
+                    NetworkInfo info = cm.getActiveNetworkInfo();
+                    network = info == null || !info.isConnected() ? NETWORK_NONE : networkOf(info.getType());
+                    metered = cm.isActiveNetworkMetered();
+                }
+            } catch (Exception e) {
+                GroLog.w(TAG, "Network state unavailable: ", e.getMessage());
+            }
+        }
+
+        boolean powerSave = false;
+        PowerManager pm = (PowerManager) appContext.getSystemService(Context.POWER_SERVICE);
+        if (pm != null) {
+            powerSave = pm.isPowerSaveMode();
+        }
+
+        Decision next = Decision.of(options, network, metered, batteryPercent, charging, powerSave);
+        Decision previous = current;
+        current = next;
+        if (!next.sameLimits(previous)) {
+            GroLog.d(TAG, "Prefetch policy: ", previous.level, " -> ", next.level);
+            listener.onPolicyChanged(previous, next);
+        }
+    }
+
+    private void readBattery(Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        batteryPercent = level >= 0 && scale > 0 ? level * 100 / scale : -1;
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL
+                || intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    private ConnectivityManager connectivity() {
+        return (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    private static String networkOf(NetworkCapabilities caps) {
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return NETWORK_WIFI;
+        }
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return NETWORK_CELLULAR;
+        }
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return NETWORK_ETHERNET;
+        }
+        return NETWORK_OTHER;
+    }
+
+    private static String networkOf(int type) {
+        switch (type) {
+            case ConnectivityManager.TYPE_WIFI:
+                return NETWORK_WIFI;
+            case ConnectivityManager.TYPE_MOBILE:
+                return NETWORK_CELLULAR;
+            case ConnectivityManager.TYPE_ETHERNET:
+                return NETWORK_ETHERNET;
+            default:
+                return NETWORK_OTHER;
+        }
+    }
+}
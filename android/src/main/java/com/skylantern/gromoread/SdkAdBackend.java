@@ -0,0 +1,206 @@
+package com.skylantern.gromoread;
+
+import android.content.Context;
+
+import com.bytedance.sdk.openadsdk.AdSlot;
+import com.bytedance.sdk.openadsdk.CSJAdError;
+import com.bytedance.sdk.openadsdk.CSJSplashAd;
+import com.bytedance.sdk.openadsdk.TTAdConstant;
+import com.bytedance.sdk.openadsdk.TTAdNative;
+import com.bytedance.sdk.openadsdk.TTAdSdk;
+import com.bytedance.sdk.openadsdk.TTFullScreenVideoAd;
+import com.bytedance.sdk.openadsdk.TTNativeExpressAd;
+import com.bytedance.sdk.openadsdk.TTRewardVideoAd;
+
+import java.util.List;
+
+/**
+ * 基于 GroMore SDK 的加载后端，进程内共用一个实例
+ * SDK就绪后由模块传入 TTAdNative；视图先于模块使用时按应用上下文自行创建
+ */
+final class SdkAdBackend implements AdBackend, ExpressAdLoader {
+    private static final String TAG = "SdkAdBackend";
+
+    private static SdkAdBackend instance;
+
+    private final Context appContext;
+    private volatile TTAdNative adNative;
+
+    private SdkAdBackend(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    static synchronized SdkAdBackend shared(Context context) {
+        if (instance == null) {
+            instance = new SdkAdBackend(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    void attach(TTAdNative adNative) {
+        this.adNative = adNative;
+    }
+
+    @Override
+    public boolean isReady() {
+        return adNative() != null;
+    }
+
+    @Override
+    public void loadSplash(String adUnitId, int timeoutMs, SplashCallback callback) {
+        // 创建开屏广告请求参数
+        AdSlot adSlot = new AdSlot.Builder()
+                .setCodeId(adUnitId)
+                .setImageAcceptedSize(1080, 2400)
+                .build();
+
+        // SDK超时与调用方计时使用同一时限
+        adNative().loadSplashAd(adSlot, new TTAdNative.CSJSplashAdListener() {
+            @Override
+            public void onSplashLoadSuccess(CSJSplashAd ad) {
+                callback.onLoaded();
+            }
+
+            @Override
+            public void onSplashLoadFail(CSJAdError adError) {
+                callback.onLoadFailed(adError.getCode(), adError.getMsg());
+            }
+
+            @Override
+            public void onSplashRenderFail(CSJSplashAd ad, CSJAdError adError) {
+                callback.onRenderFailed(ad, adError.getCode(), adError.getMsg());
+            }
+
+            @Override
+            public void onSplashRenderSuccess(CSJSplashAd ad) {
+                callback.onRendered(new AdPool.Entry(AdTypes.SPLASH, adUnitId, ad, System.currentTimeMillis()));
+            }
+        }, timeoutMs);
+    }
+
+    @Override
+    public void loadExpress(int kind, String adUnitId, int widthDp, int heightDp, int count, ExpressAdLoader.Callback callback) {
+        AdSlot.Builder builder = new AdSlot.Builder()
+                .setCodeId(adUnitId)
+                .setExpressViewAcceptedSize(widthDp, heightDp)
+                .setAdCount(count);
+        if (kind == BANNER) {
+            builder.setImageAcceptedSize(640, 100);
+        }
+        TTAdNative.NativeExpressAdListener listener = new TTAdNative.NativeExpressAdListener() {
+            @Override
+            public void onError(int code, String message) {
+                callback.onFailed(code, message);
+            }
+
+            @Override
+            public void onNativeExpressAdLoad(List<TTNativeExpressAd> ads) {
+                callback.onLoaded(ads);
+            }
+        };
+        if (kind == BANNER) {
+            adNative().loadBannerExpressAd(builder.build(), listener);
+        } else {
+            adNative().loadNativeExpressAd(builder.build(), listener);
+        }
+    }
+
+    private TTAdNative adNative() {
+        TTAdNative current = adNative;
+        if (current == null && GroMoreSdk.isReady()) {
+            current = TTAdSdk.getAdManager().createAdNative(appContext);
+            adNative = current;
+        }
+        return current;
+    }
+
+    @Override
+    public void load(String adType, String adUnitId, AdLoadCallback callback) {
+        if (AdTypes.REWARD_VIDEO.equals(adType)) {
+            loadRewardVideoAd(adUnitId, callback);
+        } else {
+            loadFullScreenVideoAd(adUnitId, callback);
+        }
+    }
+
+    private void loadRewardVideoAd(String adUnitId, AdLoadCallback callback) {
+        // 创建激励视频广告请求参数
+        AdSlot adSlot = new AdSlot.Builder()
+                .setCodeId(adUnitId)
+                .setOrientation(TTAdConstant.ORIENTATION_VERTICAL)
+                .build();
+
+        // 加载激励视频广告，素材缓存回调晚于加载成功，标记到同一条库存上
+        final AdPool.Entry[] loaded = new AdPool.Entry[1];
+        adNative().loadRewardVideoAd(adSlot, new TTAdNative.RewardVideoAdListener() {
+            @Override
+            public void onError(int code, String message) {
+                GroLog.e(TAG, "Reward video ad load failed", code, message);
+                callback.onFailed(code, message);
+            }
+
+            @Override
+            public void onRewardVideoAdLoad(TTRewardVideoAd ad) {
+                GroLog.d(TAG, "Reward video ad loaded successfully");
+                loaded[0] = new AdPool.Entry(AdTypes.REWARD_VIDEO, adUnitId, ad, System.currentTimeMillis());
+                callback.onLoaded(loaded[0]);
+            }
+
+            @Override
+            public void onRewardVideoCached() {
+                GroLog.d(TAG, "Reward video ad cached");
+                markCached(loaded[0]);
+            }
+
+            // For SDKs that pass the ad instance
+            public void onRewardVideoCached(TTRewardVideoAd ad) {
+                GroLog.d(TAG, "Reward video ad cached (with ad instance)");
+                markCached(loaded[0]);
+            }
+        });
+    }
+
+    private void loadFullScreenVideoAd(String adUnitId, AdLoadCallback callback) {
+        // 创建全屏视频广告请求参数
+        AdSlot adSlot = new AdSlot.Builder()
+                .setCodeId(adUnitId)
+                .setOrientation(TTAdConstant.ORIENTATION_VERTICAL)
+                .build();
+
+        // 加载全屏视频广告
+        final AdPool.Entry[] loaded = new AdPool.Entry[1];
+        adNative().loadFullScreenVideoAd(adSlot, new TTAdNative.FullScreenVideoAdListener() {
+            @Override
+            public void onError(int code, String message) {
+                GroLog.e(TAG, "Full screen video ad load failed", code, message);
+                callback.onFailed(code, message);
+            }
+
+            @Override
+            public void onFullScreenVideoAdLoad(TTFullScreenVideoAd ad) {
+                GroLog.d(TAG, "Full screen video ad loaded successfully");
+                loaded[0] = new AdPool.Entry(AdTypes.FULL_SCREEN_VIDEO, adUnitId, ad, System.currentTimeMillis());
+                callback.onLoaded(loaded[0]);
+            }
+
+            @Override
+            public void onFullScreenVideoCached() {
+                GroLog.d(TAG, "Full screen video ad cached");
+                markCached(loaded[0]);
+            }
+
+            // For SDKs that pass the ad instance
+            public void onFullScreenVideoCached(TTFullScreenVideoAd ad) {
+                GroLog.d(TAG, "Full screen video ad cached (with ad instance)");
+                markCached(loaded[0]);
+            }
+        });
+    }
+
+    private static void markCached(AdPool.Entry entry) {
+        // 加载成功之前不会回调缓存完成，这里只防御异常顺序
+        if (entry != null) {
+            entry.markCached(System.currentTimeMillis());
+        }
+    }
+}
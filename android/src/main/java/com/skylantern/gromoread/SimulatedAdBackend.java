@@ -0,0 +1,324 @@
+package com.skylantern.gromoread;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模拟的广告后端，用于离线压测并发、超时和库存行为，覆盖视频和开屏
+ * 填充率、加载耗时分布、渲染失败、无响应、奖励结果都可配置；同一种子和同样的调用顺序得到同样的结果。
+ * 只依赖 java.util.concurrent，可以脱离 Android 在普通 JVM 上运行
+ */
+final class SimulatedAdBackend implements AdBackend {
+    // 与聚合SDK常见错误码保持一致，便于复用错误处理
+    static final int CODE_NO_FILL = 20001;
+    static final int CODE_RENDER_FAILED = 40050;
+
+    // 正态分布 99 分位对应的标准差倍数
+    private static final double Z_99 = 2.326;
+
+    /**
+     * 模拟参数，未设置的保持默认值
+     */
+    static final class Config {
+        long seed = 42;
+        double fillRate = 0.9;
+        double renderFailureRate = 0.02;
+        // 请求既不成功也不失败的比例，用于触发调用方的超时
+        double hangRate = 0;
+        long latencyMedianMs = 800;
+        long latencyP99Ms = 4000;
+        // 0 表示回调交给调用方提供的 Executor，否则使用这么多个独立回调线程
+        int callbackThreads = 0;
+        double rewardValidRate = 0.98;
+        int rewardAmount = 1;
+        long playDurationMs = 15000;
+        // 加载成功到素材缓存完成的耗时
+        long cacheLatencyMs = 0;
+        double ecpmMin = 500;
+        double ecpmMax = 5000;
+
+        Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        Config fillRate(double fillRate) {
+            this.fillRate = clamp(fillRate);
+            return this;
+        }
+
+        Config renderFailureRate(double renderFailureRate) {
+            this.renderFailureRate = clamp(renderFailureRate);
+            return this;
+        }
+
+        Config hangRate(double hangRate) {
+            this.hangRate = clamp(hangRate);
+            return this;
+        }
+
+        /**
+         * 加载耗时按对数正态分布，由中位数和 99 分位确定
+         */
+        Config latency(long medianMs, long p99Ms) {
+            this.latencyMedianMs = Math.max(1, medianMs);
+            this.latencyP99Ms = Math.max(this.latencyMedianMs, p99Ms);
+            return this;
+        }
+
+        Config callbackThreads(int callbackThreads) {
+            this.callbackThreads = Math.max(0, callbackThreads);
+            return this;
+        }
+
+        Config reward(double validRate, int amount) {
+            this.rewardValidRate = clamp(validRate);
+            this.rewardAmount = amount;
+            return this;
+        }
+
+        Config playDurationMs(long playDurationMs) {
+            this.playDurationMs = Math.max(0, playDurationMs);
+            return this;
+        }
+
+        Config cacheLatencyMs(long cacheLatencyMs) {
+            this.cacheLatencyMs = Math.max(0, cacheLatencyMs);
+            return this;
+        }
+
+        Config ecpm(double min, double max) {
+            this.ecpmMin = min;
+            this.ecpmMax = Math.max(min, max);
+            return this;
+        }
+
+        private static double clamp(double rate) {
+            return Math.max(0, Math.min(1, rate));
+        }
+    }
+
+    /**
+     * 播放过程回调，按 展示 → 奖励 → 播放完成 → 关闭 的顺序触发
+     */
+    interface PlaybackListener {
+        void onShow();
+
+        void onReward(boolean valid, int amount);
+
+        void onComplete();
+
+        void onClose();
+    }
+
+    /**
+     * 模拟加载出的广告，放入 AdPool.Entry.ad
+     */
+    static final class SimulatedAd {
+        final long id;
+        final String adType;
+        final String adUnitId;
+        final double ecpm;
+        final boolean rewardValid;
+        private final SimulatedAdBackend backend;
+
+        SimulatedAd(SimulatedAdBackend backend, long id, String adType, String adUnitId, double ecpm, boolean rewardValid) {
+            this.backend = backend;
+            this.id = id;
+            this.adType = adType;
+            this.adUnitId = adUnitId;
+            this.ecpm = ecpm;
+            this.rewardValid = rewardValid;
+        }
+
+        /**
+         * 模拟一次展示，回调在后端的回调线程上触发
+         */
+        void play(PlaybackListener listener) {
+            backend.play(this, listener);
+        }
+    }
+
+    private final Config config;
+    private final Random random;
+    private final ScheduledExecutorService timer;
+    private final Executor callbackExecutor;
+    private final ExecutorService ownCallbackPool;
+    private final AtomicLong nextId = new AtomicLong();
+    // 已排期未执行的回调，包括加载结果、缓存完成和播放过程
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private volatile boolean retiring;
+
+    /**
+     * callbackExecutor 在 config.callbackThreads 为 0 时使用，例如主线程 Handler::post
+     */
+    SimulatedAdBackend(Config config, Executor callbackExecutor) {
+        this.config = config;
+        this.random = new Random(config.seed);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GroMoreSimTimer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.callbackThreads > 0 || callbackExecutor == null) {
+            AtomicLong threadIndex = new AtomicLong();
+            ownCallbackPool = Executors.newFixedThreadPool(Math.max(1, config.callbackThreads), runnable -> {
+                Thread thread = new Thread(runnable, "GroMoreSimCallback-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.callbackExecutor = ownCallbackPool;
+        } else {
+            ownCallbackPool = null;
+            this.callbackExecutor = callbackExecutor;
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return !retiring && !timer.isShutdown();
+    }
+
+    @Override
+    public void load(String adType, String adUnitId, AdLoadCallback callback) {
+        Draw draw = draw();
+        if (draw.hang) {
+            return;
+        }
+        schedule(draw.latencyMs, () -> {
+            if (draw.noFill) {
+                callback.onFailed(CODE_NO_FILL, "Simulated no fill");
+            } else if (draw.renderFail) {
+                callback.onFailed(CODE_RENDER_FAILED, "Simulated render failure");
+            } else {
+                AdPool.Entry entry = new AdPool.Entry(adType, adUnitId, draw.newAd(adType, adUnitId), System.currentTimeMillis());
+                callback.onLoaded(entry);
+                schedule(config.cacheLatencyMs, () -> entry.markCached(System.currentTimeMillis()));
+            }
+        });
+    }
+
+    /**
+     * 开屏按 加载 → 渲染 两步回调，渲染耗时取素材缓存耗时；不按 timeoutMs 失败，超时由调用方计时
+     */
+    @Override
+    public void loadSplash(String adUnitId, int timeoutMs, SplashCallback callback) {
+        Draw draw = draw();
+        if (draw.hang) {
+            return;
+        }
+        schedule(draw.latencyMs, () -> {
+            if (draw.noFill) {
+                callback.onLoadFailed(CODE_NO_FILL, "Simulated no fill");
+                return;
+            }
+            callback.onLoaded();
+            SimulatedAd ad = draw.newAd(AdTypes.SPLASH, adUnitId);
+            schedule(config.cacheLatencyMs, () -> {
+                if (draw.renderFail) {
+                    callback.onRenderFailed(ad, CODE_RENDER_FAILED, "Simulated render failure");
+                } else {
+                    callback.onRendered(new AdPool.Entry(AdTypes.SPLASH, adUnitId, ad, System.currentTimeMillis()));
+                }
+            });
+        });
+    }
+
+    /**
+     * 切换后端时调用：不再接受新请求，已发出的请求和进行中的播放照常回调，全部结束后停止线程；
+     * 挂起的请求本来就不会回调，由调用方的超时结束
+     */
+    void retire() {
+        retiring = true;
+        if (scheduled.get() == 0) {
+            shutdown();
+        }
+    }
+
+    /**
+     * 停止计时线程和自建的回调线程，未完成的请求不再回调
+     */
+    void shutdown() {
+        timer.shutdownNow();
+        if (ownCallbackPool != null) {
+            ownCallbackPool.shutdownNow();
+        }
+    }
+
+    private void play(SimulatedAd ad, PlaybackListener listener) {
+        // 播放结束的回调放在同一个任务里，多回调线程时也保持顺序
+        schedule(0, () -> {
+            listener.onShow();
+            schedule(config.playDurationMs, () -> {
+                if (AdTypes.REWARD_VIDEO.equals(ad.adType)) {
+                    listener.onReward(ad.rewardValid, config.rewardAmount);
+                }
+                listener.onComplete();
+                listener.onClose();
+            });
+        });
+    }
+
+    private void schedule(long delayMs, Runnable task) {
+        if (timer.isShutdown()) {
+            return;
+        }
+        scheduled.incrementAndGet();
+        timer.schedule(() -> callbackExecutor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                // 回调里排期的后续步骤已经计入，归零说明旧后端的请求都已结束
+                if (scheduled.decrementAndGet() == 0 && retiring) {
+                    shutdown();
+                }
+            }
+        }), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 一次请求的结果，在调用时一次性抽取，保证同样的调用顺序得到同样的结果
+     */
+    private final class Draw {
+        long latencyMs;
+        boolean hang;
+        boolean noFill;
+        boolean renderFail;
+        double ecpm;
+        boolean rewardValid;
+
+        SimulatedAd newAd(String adType, String adUnitId) {
+            return new SimulatedAd(SimulatedAdBackend.this, nextId.incrementAndGet(), adType, adUnitId, ecpm, rewardValid);
+        }
+    }
+
+    private Draw draw() {
+        Draw draw = new Draw();
+        final double outcome;
+        synchronized (random) {
+            draw.latencyMs = sampleLatencyMs();
+            outcome = random.nextDouble();
+            draw.ecpm = config.ecpmMin + random.nextDouble() * (config.ecpmMax - config.ecpmMin);
+            draw.rewardValid = random.nextDouble() < config.rewardValidRate;
+        }
+        draw.hang = outcome < config.hangRate;
+        final double rest = outcome - config.hangRate;
+        final double noFill = (1 - config.hangRate) * (1 - config.fillRate);
+        final double renderFail = (1 - config.hangRate - noFill) * config.renderFailureRate;
+        draw.noFill = !draw.hang && rest < noFill;
+        draw.renderFail = !draw.hang && !draw.noFill && rest < noFill + renderFail;
+        return draw;
+    }
+
+    private long sampleLatencyMs() {
+        double mu = Math.log(config.latencyMedianMs);
+        double sigma = (Math.log(config.latencyP99Ms) - mu) / Z_99;
+        return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,104 @@
+package com.skylantern.gromoread;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 定长的内存事件轨迹
+ * 记录广告生命周期的结构化事件（时间、类型、广告位、事件码、耗时或错误码），
+ * 只写入预先分配的数组，不受日志级别影响，排查用户问题时通过 dumpTrace 导出
+ */
+final class TraceRing {
+    static final int CAPACITY = 256;
+
+    static final int SDK_READY = 0;
+    static final int SDK_FAILED = 1;
+    static final int LOAD_START = 2;
+    static final int LOAD_OK = 3;
+    static final int LOAD_FAIL = 4;
+    static final int LOAD_TIMEOUT = 5;
+    static final int LOAD_DEDUP = 6;
+    static final int RENDER_OK = 7;
+    static final int RENDER_FAIL = 8;
+    static final int SHOW_START = 9;
+    static final int SHOW_OK = 10;
+    static final int SHOW_FAIL = 11;
+    static final int CLICK = 12;
+    static final int CLOSE = 13;
+    static final int REWARD = 14;
+    static final int EXPIRED = 15;
+    static final int HOT_SPLASH = 16;
+    static final int EVICTED = 17;
+    static final int CACHED = 18;
+    // 超时之后才到达的加载结果
+    static final int LOAD_LATE = 19;
+
+    private static final String[] NAMES = {
+            "sdkReady", "sdkFailed", "loadStart", "loadOk", "loadFail", "loadTimeout", "loadDedup",
+            "renderOk", "renderFail", "showStart", "showOk", "showFail", "click", "close", "reward",
+            "expired", "hotSplash", "evicted", "cached", "loadLate"
+    };
+
+    private final long[] times = new long[CAPACITY];
+    private final int[] events = new int[CAPACITY];
+    private final String[] adTypes = new String[CAPACITY];
+    private final String[] adUnitIds = new String[CAPACITY];
+    private final long[] values = new long[CAPACITY];
+    private final int[] codes = new int[CAPACITY];
+    private int next;
+    private long total;
+
+    /**
+     * 记录一条事件，value 一般是耗时（毫秒），code 是SDK错误码
+     */
+    synchronized void record(int event, String adType, String adUnitId, long value, int code) {
+        times[next] = System.currentTimeMillis();
+        events[next] = event;
+        adTypes[next] = adType;
+        adUnitIds[next] = adUnitId;
+        values[next] = value;
+        codes[next] = code;
+        next = (next + 1) % CAPACITY;
+        total++;
+    }
+
+    void record(int event, String adType, String adUnitId) {
+        record(event, adType, adUnitId, 0, 0);
+    }
+
+    synchronized long total() {
+        return total;
+    }
+
+    /**
+     * 按时间顺序导出当前保留的事件
+     */
+    synchronized List<Map<String, Object>> dump() {
+        int size = (int) Math.min(total, CAPACITY);
+        int start = total > CAPACITY ? next : 0;
+        List<Map<String, Object>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % CAPACITY;
+            Map<String, Object> item = new HashMap<>();
+            item.put("t", times[index]);
+            item.put("event", NAMES[events[index]]);
+            item.put("adType", adTypes[index]);
+            item.put("adUnitId", adUnitIds[index]);
+            item.put("value", values[index]);
+            item.put("code", codes[index]);
+            list.add(item);
+        }
+        return list;
+    }
+
+    synchronized void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            adTypes[i] = null;
+            adUnitIds[i] = null;
+        }
+        next = 0;
+        total = 0;
+    }
+}
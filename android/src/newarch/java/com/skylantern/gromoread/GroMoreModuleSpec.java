@@ -0,0 +1,12 @@
+package com.skylantern.gromoread;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * 新架构下的模块基类，继承由 src/specs/NativeGroMoreModule.ts 生成的 TurboModule 规范
+ */
+abstract class GroMoreModuleSpec extends NativeGroMoreModuleSpec {
+    GroMoreModuleSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+}
@@ -0,0 +1,13 @@
+package com.skylantern.gromoread;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+
+/**
+ * 旧架构下的模块基类，方法通过 @ReactMethod 反射注册到 bridge
+ */
+abstract class GroMoreModuleSpec extends ReactContextBaseJavaModule {
+    GroMoreModuleSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+}
@@ -0,0 +1,512 @@
+package com.skylantern.gromoread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用 SimulatedAdBackend 驱动 AdLoadCoordinator，不依赖 ReactContext 和主线程
+ */
+public class AdLoadCoordinatorTest {
+    private static final String UNIT = "unit-1";
+
+    private SimulatedAdBackend simulated;
+    private CountingBackend backend;
+    private AdPool pool;
+    private AdMetrics metrics;
+    private File capFile;
+    private FrequencyCap cap;
+    private final List<AdPool.Entry> released = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger loadedEvents = new AtomicInteger();
+    private final AtomicInteger failedEvents = new AtomicInteger();
+    private AdLoadCoordinator coordinator;
+
+    @Before
+    public void setUp() throws IOException {
+        capFile = File.createTempFile("frequency_cap", ".bin");
+        cap = new FrequencyCap(capFile);
+        pool = new AdPool();
+        metrics = new AdMetrics(new TraceRing());
+        useBackend(new SimulatedAdBackend.Config().fillRate(1).renderFailureRate(0).latency(200, 300).callbackThreads(4));
+    }
+
+    @After
+    public void tearDown() {
+        coordinator.shutdown();
+        simulated.shutdown();
+        capFile.delete();
+    }
+
+    @Test
+    public void concurrentLoadsForOneUnitShareOneRequest() throws Exception {
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(callers);
+        List<AdPool.Entry> results = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger joined = new AtomicInteger();
+        for (int i = 0; i < callers; i++) {
+            new Thread(() -> {
+                Waits.await(start);
+                coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, new InFlightLoads.Waiter() {
+                    @Override
+                    public void onLoaded(AdPool.Entry entry) {
+                        if (deduplicated) {
+                            joined.incrementAndGet();
+                        }
+                        results.add(entry);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailed(int code, String message) {
+                        done.countDown();
+                    }
+                });
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(callers, results.size());
+        for (AdPool.Entry entry : results) {
+            assertTrue("every waiter sees the same ad", entry == results.get(0));
+        }
+        assertEquals(1, backend.requests.get());
+        assertEquals(callers - 1, joined.get());
+        assertEquals(callers - 1, coordinator.deduplicatedCount());
+        assertEquals(1, pool.size(AdTypes.REWARD_VIDEO, UNIT));
+        assertEquals(1, loadedEvents.get());
+        assertEquals(1L, unitMetrics(AdTypes.REWARD_VIDEO, UNIT).get("loadRequests"));
+        assertEquals((long) (callers - 1), unitMetrics(AdTypes.REWARD_VIDEO, UNIT).get("deduplicated"));
+    }
+
+    @Test
+    public void loadsForDifferentUnitsRunSeparately() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        coordinator.loadShared(AdTypes.REWARD_VIDEO, "a", countingWaiter(done));
+        coordinator.loadShared(AdTypes.FULL_SCREEN_VIDEO, "a", countingWaiter(done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, backend.requests.get());
+        assertEquals(0, coordinator.deduplicatedCount());
+        assertEquals(1, pool.size(AdTypes.REWARD_VIDEO, "a"));
+        assertEquals(1, pool.size(AdTypes.FULL_SCREEN_VIDEO, "a"));
+    }
+
+    @Test
+    public void refillAndExplicitLoadShareOneRequest() throws Exception {
+        // 请求足够慢，显式加载一定赶上进行中的补货
+        coordinator.shutdown();
+        simulated.shutdown();
+        useBackend(new SimulatedAdBackend.Config().fillRate(1).renderFailureRate(0).latency(300, 400).callbackThreads(2));
+        pool.setDepth(AdTypes.REWARD_VIDEO, UNIT, 1);
+        AdRefillScheduler scheduler = coordinator.refillScheduler();
+        scheduler.register(AdTypes.REWARD_VIDEO, UNIT);
+        scheduler.onConsumed(AdTypes.REWARD_VIDEO, UNIT);
+        assertTrue(Waits.until(() -> coordinator.isInFlight(AdTypes.REWARD_VIDEO, UNIT)));
+
+        CountDownLatch done = new CountDownLatch(1);
+        boolean[] joined = new boolean[1];
+        coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                joined[0] = deduplicated;
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(Waits.until(() -> scheduler.inFlightCount() == 0));
+
+        assertTrue(joined[0]);
+        assertEquals(1, backend.requests.get());
+        assertEquals(1, pool.size(AdTypes.REWARD_VIDEO, UNIT));
+        assertTrue(released.isEmpty());
+    }
+
+    @Test
+    public void noFillReachesEveryWaiterAndLeavesThePoolEmpty() throws Exception {
+        coordinator.shutdown();
+        simulated.shutdown();
+        useBackend(new SimulatedAdBackend.Config().fillRate(0).latency(20, 40).callbackThreads(2));
+
+        int callers = 4;
+        CountDownLatch done = new CountDownLatch(callers);
+        List<Integer> codes = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < callers; i++) {
+            coordinator.loadShared(AdTypes.FULL_SCREEN_VIDEO, UNIT, new InFlightLoads.Waiter() {
+                @Override
+                public void onLoaded(AdPool.Entry entry) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(int code, String message) {
+                    codes.add(code);
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Collections.nCopies(callers, SimulatedAdBackend.CODE_NO_FILL), codes);
+        assertEquals(1, backend.requests.get());
+        assertEquals(1, failedEvents.get());
+        assertEquals(0, pool.size(AdTypes.FULL_SCREEN_VIDEO, UNIT));
+        assertFalse(coordinator.isInFlight(AdTypes.FULL_SCREEN_VIDEO, UNIT));
+    }
+
+    @Test
+    public void loadIntoFullPoolReleasesTheExtraAd() throws Exception {
+        pool.setDepth(AdTypes.REWARD_VIDEO, UNIT, 1);
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch done = new CountDownLatch(1);
+            coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, countingWaiter(done));
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        // 等待方先拿到结果，多出的一条随后释放
+        assertTrue(Waits.until(() -> released.size() == 1));
+        assertEquals(1, pool.size(AdTypes.REWARD_VIDEO, UNIT));
+    }
+
+    @Test
+    public void requestAdRejectsUnsupportedTypesAndStoppedBackends() throws Exception {
+        List<Integer> codes = Collections.synchronizedList(new ArrayList<>());
+        AdLoadCallback record = new AdLoadCallback() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                codes.add(0);
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                codes.add(code);
+            }
+        };
+        coordinator.requestAd(AdTypes.SPLASH, UNIT, record);
+        simulated.shutdown();
+        coordinator.requestAd(AdTypes.REWARD_VIDEO, UNIT, record);
+
+        assertEquals(2, codes.size());
+        assertEquals(-1, (int) codes.get(0));
+        assertEquals(-1, (int) codes.get(1));
+        assertEquals(0, backend.requests.get());
+    }
+
+    @Test
+    public void switchingBackendsRoutesNewLoadsOnly() throws Exception {
+        SimulatedAdBackend other = new SimulatedAdBackend(
+                new SimulatedAdBackend.Config().fillRate(0).latency(5, 10).callbackThreads(1), null);
+        try {
+            coordinator.setBackend(other);
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicInteger code = new AtomicInteger();
+            coordinator.requestAd(AdTypes.REWARD_VIDEO, UNIT, new AdLoadCallback() {
+                @Override
+                public void onLoaded(AdPool.Entry entry) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(int failure, String message) {
+                    code.set(failure);
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(SimulatedAdBackend.CODE_NO_FILL, code.get());
+            assertEquals(0, backend.requests.get());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void retiredBackendStillCompletesLoadsInFlight() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AdPool.Entry[] loaded = new AdPool.Entry[1];
+        coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                loaded[0] = entry;
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                done.countDown();
+            }
+        });
+        SimulatedAdBackend other = new SimulatedAdBackend(
+                new SimulatedAdBackend.Config().fillRate(1).latency(5, 10).callbackThreads(1), null);
+        try {
+            coordinator.setBackend(other);
+            simulated.retire();
+            assertFalse(simulated.isReady());
+
+            // 切换前发出的请求仍由旧后端回调，广告位不会卡在进行中
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(loaded[0] != null);
+            assertFalse(coordinator.isInFlight(AdTypes.REWARD_VIDEO, UNIT));
+            assertEquals(1, pool.size(AdTypes.REWARD_VIDEO, UNIT));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void cappedUnitFailsWithoutAskingTheBackend() throws Exception {
+        cap.setRule(AdTypes.REWARD_VIDEO, UNIT, new FrequencyCap.Rule(1, 60000, 0));
+        cap.recordImpression(AdTypes.REWARD_VIDEO, UNIT, System.currentTimeMillis());
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger code = new AtomicInteger();
+        coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int failure, String message) {
+                code.set(failure);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(FrequencyCap.CODE_CAPPED, code.get());
+        assertEquals(0, backend.requests.get());
+        assertTrue(metrics.snapshot().isEmpty());
+        // 只受展示间隔限制时仍然可以加载
+        assertEquals(0, cap.limitResetMs(AdTypes.FULL_SCREEN_VIDEO, UNIT, System.currentTimeMillis()));
+    }
+
+    @Test
+    public void refillWaitsForTheCapWindowInsteadOfBackingOff() throws Exception {
+        pool.setDepth(AdTypes.REWARD_VIDEO, UNIT, 1);
+        cap.setRule(AdTypes.REWARD_VIDEO, UNIT, new FrequencyCap.Rule(1, 600, 0));
+        cap.recordImpression(AdTypes.REWARD_VIDEO, UNIT, System.currentTimeMillis());
+        AdRefillScheduler scheduler = coordinator.refillScheduler();
+        scheduler.register(AdTypes.REWARD_VIDEO, UNIT);
+        scheduler.onConsumed(AdTypes.REWARD_VIDEO, UNIT);
+
+        assertTrue(Waits.until(() -> "capped".equals(scheduler.snapshot().get(0).get("state"))));
+        assertEquals(0, scheduler.snapshot().get(0).get("failures"));
+        assertEquals(0, backend.requests.get());
+
+        assertTrue(Waits.until(() -> pool.size(AdTypes.REWARD_VIDEO, UNIT) == 1));
+        assertEquals(1, backend.requests.get());
+        assertEquals(0, scheduler.snapshot().get(0).get("failures"));
+    }
+
+    @Test
+    public void hungLoadTimesOutOnceAndFreesTheUnit() throws Exception {
+        coordinator.shutdown();
+        simulated.shutdown();
+        useBackend(new SimulatedAdBackend.Config().hangRate(1).callbackThreads(1));
+        coordinator.setLoadTimeoutMs(200);
+        AdRefillScheduler scheduler = coordinator.refillScheduler();
+        scheduler.register(AdTypes.REWARD_VIDEO, UNIT);
+        scheduler.onConsumed(AdTypes.REWARD_VIDEO, UNIT);
+        assertTrue(Waits.until(() -> coordinator.isInFlight(AdTypes.REWARD_VIDEO, UNIT)));
+
+        CountDownLatch done = new CountDownLatch(1);
+        List<Integer> codes = Collections.synchronizedList(new ArrayList<>());
+        coordinator.loadShared(AdTypes.REWARD_VIDEO, UNIT, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                codes.add(0);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                codes.add(code);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(Waits.until(() -> scheduler.inFlightCount() == 0));
+
+        // 挂起的请求按时结束，广告位和补货名额都已释放
+        assertEquals(Collections.singletonList(AdLoadCoordinator.CODE_TIMEOUT), codes);
+        assertFalse(coordinator.isInFlight(AdTypes.REWARD_VIDEO, UNIT));
+        assertEquals(1, backend.requests.get());
+        assertEquals(1, failedEvents.get());
+        assertEquals(1L, unitMetrics(AdTypes.REWARD_VIDEO, UNIT).get("timeouts"));
+        assertEquals("backoff", scheduler.snapshot().get(0).get("state"));
+    }
+
+    @Test
+    public void lateFillAfterTimeoutIsReleased() throws Exception {
+        List<AdLoadCallback> pending = Collections.synchronizedList(new ArrayList<>());
+        coordinator.setBackend(new AdBackend() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void load(String adType, String adUnitId, AdLoadCallback callback) {
+                pending.add(callback);
+            }
+
+            @Override
+            public void loadSplash(String adUnitId, int timeoutMs, SplashCallback callback) {
+            }
+        });
+        coordinator.setLoadTimeoutMs(100);
+        AtomicInteger outcomes = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        coordinator.loadShared(AdTypes.FULL_SCREEN_VIDEO, UNIT, new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                outcomes.incrementAndGet();
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                outcomes.incrementAndGet();
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        AdPool.Entry late = new AdPool.Entry(AdTypes.FULL_SCREEN_VIDEO, UNIT, new Object(), System.currentTimeMillis());
+        pending.get(0).onLoaded(late);
+        pending.get(0).onFailed(20001, "late failure");
+
+        assertEquals(1, outcomes.get());
+        assertEquals(Collections.singletonList(late), released);
+        assertEquals(0, pool.size(AdTypes.FULL_SCREEN_VIDEO, UNIT));
+        assertEquals(0, loadedEvents.get());
+        assertEquals(1, failedEvents.get());
+    }
+
+    @Test
+    public void simulatedSplashLoadsThenRenders() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        List<String> steps = Collections.synchronizedList(new ArrayList<>());
+        AdPool.Entry[] rendered = new AdPool.Entry[1];
+        coordinator.backend().loadSplash(UNIT, 3000, new AdBackend.SplashCallback() {
+            @Override
+            public void onLoaded() {
+                steps.add("loaded");
+            }
+
+            @Override
+            public void onLoadFailed(int code, String message) {
+                steps.add("loadFailed");
+                done.countDown();
+            }
+
+            @Override
+            public void onRendered(AdPool.Entry entry) {
+                steps.add("rendered");
+                rendered[0] = entry;
+                done.countDown();
+            }
+
+            @Override
+            public void onRenderFailed(Object ad, int code, String message) {
+                steps.add("renderFailed");
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("loaded", "rendered"), steps);
+        assertEquals(AdTypes.SPLASH, rendered[0].adType);
+        assertTrue(coordinator.offerOrRelease(rendered[0]));
+        assertEquals(1, pool.size(AdTypes.SPLASH, UNIT));
+    }
+
+    private void useBackend(SimulatedAdBackend.Config config) {
+        simulated = new SimulatedAdBackend(config, null);
+        backend = new CountingBackend(simulated);
+        coordinator = new AdLoadCoordinator(pool, backend, metrics, cap, released::add, new AdLoadCoordinator.Listener() {
+            @Override
+            public void onAdLoaded(AdPool.Entry entry) {
+                loadedEvents.incrementAndGet();
+            }
+
+            @Override
+            public void onAdLoadFailed(String adType, String adUnitId, int code, String message) {
+                failedEvents.incrementAndGet();
+            }
+        });
+    }
+
+    private Map<String, Object> unitMetrics(String adType, String adUnitId) {
+        for (Map<String, Object> item : metrics.snapshot()) {
+            if (adType.equals(item.get("adType")) && adUnitId.equals(item.get("adUnitId"))) {
+                return item;
+            }
+        }
+        throw new AssertionError("no metrics for " + adType + "/" + adUnitId);
+    }
+
+    private static InFlightLoads.Waiter countingWaiter(CountDownLatch done) {
+        return new InFlightLoads.Waiter() {
+            @Override
+            public void onLoaded(AdPool.Entry entry) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailed(int code, String message) {
+                done.countDown();
+            }
+        };
+    }
+
+    /**
+     * 统计实际发到后端的视频广告请求
+     */
+    private static final class CountingBackend implements AdBackend {
+        final AtomicInteger requests = new AtomicInteger();
+        private final AdBackend delegate;
+
+        CountingBackend(AdBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void load(String adType, String adUnitId, AdLoadCallback callback) {
+            requests.incrementAndGet();
+            delegate.load(adType, adUnitId, callback);
+        }
+
+        @Override
+        public void loadSplash(String adUnitId, int timeoutMs, SplashCallback callback) {
+            delegate.loadSplash(adUnitId, timeoutMs, callback);
+        }
+    }
+}
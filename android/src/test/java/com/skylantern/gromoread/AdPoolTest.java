@@ -0,0 +1,252 @@
+package com.skylantern.gromoread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 入池、展示取出和过期淘汰并发进行时，每条入池的广告恰好离开库存一次
+ */
+public class AdPoolTest {
+    private static final String TYPE = AdTypes.REWARD_VIDEO;
+    private static final int UNITS = 4;
+    private static final int OFFERS_PER_PRODUCER = 2000;
+    private static final long TTL_MS = 60_000;
+
+    /**
+     * 测试用的广告对象，stale 表示入池时就已过期
+     */
+    private static final class Ad {
+        final int id;
+        final boolean stale;
+
+        Ad(int id, boolean stale) {
+            this.id = id;
+            this.stale = stale;
+        }
+    }
+
+    @Test
+    public void concurrentOfferPollAndEvictNeverLoseOrDuplicateEntries() throws Exception {
+        AdPool pool = new AdPool();
+        for (int u = 0; u < UNITS; u++) {
+            pool.setDepth(TYPE, "unit-" + u, AdPool.MAX_DEPTH);
+            pool.setTtl(TYPE, "unit-" + u, TTL_MS);
+        }
+
+        Set<Integer> accepted = Collections.synchronizedSet(new HashSet<>());
+        AtomicInteger rejected = new AtomicInteger();
+        List<AdPool.Entry> polled = Collections.synchronizedList(new ArrayList<>());
+        List<AdPool.Entry> evicted = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger stalePolled = new AtomicInteger();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        AtomicInteger producersLeft = new AtomicInteger(2);
+
+        Waits.race(6, thread -> {
+            if (thread < 2) {
+                // 加载：每隔几条放入一条已过期的广告
+                for (int i = 0; i < OFFERS_PER_PRODUCER; i++) {
+                    int id = thread * OFFERS_PER_PRODUCER + i;
+                    boolean stale = i % 5 == 0;
+                    long now = System.currentTimeMillis();
+                    AdPool.Entry entry = new AdPool.Entry(TYPE, "unit-" + (i % UNITS), new Ad(id, stale),
+                            stale ? now - 2 * TTL_MS : now);
+                    if (pool.offer(entry)) {
+                        accepted.add(id);
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                if (producersLeft.decrementAndGet() == 0) {
+                    producing.set(false);
+                }
+            } else if (thread < 5) {
+                // 展示：按广告位或按类型取出
+                int n = 0;
+                while (producing.get()) {
+                    AdPool.Entry entry = thread == 4 ? pool.pollAny(TYPE) : pool.poll(TYPE, "unit-" + (n++ % UNITS));
+                    if (entry == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (((Ad) entry.ad).stale || entry.isExpired(System.currentTimeMillis())) {
+                        stalePolled.incrementAndGet();
+                    }
+                    polled.add(entry);
+                }
+            } else {
+                // 过期淘汰
+                while (producing.get()) {
+                    evicted.addAll(pool.evictExpired(System.currentTimeMillis()));
+                    Thread.yield();
+                }
+            }
+        });
+        evicted.addAll(pool.evictExpired(System.currentTimeMillis()));
+        List<AdPool.Entry> remaining = pool.trim(TYPE, 0);
+
+        assertEquals(0, stalePolled.get());
+        for (AdPool.Entry entry : evicted) {
+            assertTrue("live entry evicted", ((Ad) entry.ad).stale);
+        }
+        for (AdPool.Entry entry : remaining) {
+            assertFalse("stale entry survived eviction", ((Ad) entry.ad).stale);
+        }
+
+        Set<Integer> left = new HashSet<>();
+        for (List<AdPool.Entry> part : Arrays.asList(polled, evicted, remaining)) {
+            for (AdPool.Entry entry : part) {
+                assertTrue("duplicate entry " + ((Ad) entry.ad).id, left.add(((Ad) entry.ad).id));
+            }
+        }
+        assertEquals(accepted, left);
+        assertEquals(2 * OFFERS_PER_PRODUCER, accepted.size() + rejected.get());
+        assertEquals(0, pool.sizeOfType(TYPE));
+    }
+
+    @Test
+    public void pollKeepsOfferOrderWhileExpiredEntriesAreEvicted() throws Exception {
+        AdPool pool = new AdPool();
+        String unit = "unit-0";
+        pool.setDepth(TYPE, unit, AdPool.MAX_DEPTH);
+        pool.setTtl(TYPE, unit, TTL_MS);
+        int total = 5000;
+        List<Integer> shown = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean producing = new AtomicBoolean(true);
+
+        Waits.race(3, thread -> {
+            if (thread == 0) {
+                for (int id = 0; id < total; ) {
+                    boolean stale = id % 7 == 0;
+                    long now = System.currentTimeMillis();
+                    if (pool.offer(new AdPool.Entry(TYPE, unit, new Ad(id, stale), stale ? now - 2 * TTL_MS : now))) {
+                        id++;
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                producing.set(false);
+            } else if (thread == 1) {
+                while (producing.get() || pool.size(TYPE, unit) > 0) {
+                    AdPool.Entry entry = pool.poll(TYPE, unit);
+                    if (entry != null) {
+                        shown.add(((Ad) entry.ad).id);
+                    }
+                }
+            } else {
+                while (producing.get()) {
+                    pool.evictExpired(System.currentTimeMillis());
+                    Thread.yield();
+                }
+            }
+        });
+
+        // 跳过过期广告后，其余广告按入池顺序全部展示
+        int expected = 0;
+        for (int id : shown) {
+            while (expected % 7 == 0) {
+                expected++;
+            }
+            assertEquals(expected, id);
+            expected++;
+        }
+        while (expected < total && expected % 7 == 0) {
+            expected++;
+        }
+        assertEquals(total, expected);
+    }
+
+    @Test
+    public void expiredEntryWaitingForEvictionDoesNotBlockOffer() {
+        AdPool pool = new AdPool();
+        String unit = "unit-0";
+        pool.setDepth(TYPE, unit, 1);
+        pool.setTtl(TYPE, unit, TTL_MS);
+        AtomicInteger expiryNotices = new AtomicInteger();
+        pool.setExpiryListener(expiryNotices::incrementAndGet);
+        long now = System.currentTimeMillis();
+        AdPool.Entry stale = new AdPool.Entry(TYPE, unit, new Ad(0, true), now - 2 * TTL_MS);
+        assertTrue(pool.offer(stale));
+
+        // 过期广告还在队列里等待淘汰，补货看到缺口后加载的广告应能入池
+        assertEquals(1, pool.deficit(TYPE, unit));
+        AdPool.Entry fresh = new AdPool.Entry(TYPE, unit, new Ad(1, false), now);
+        assertTrue(pool.offer(fresh));
+        assertTrue(expiryNotices.get() > 0);
+        assertFalse(pool.offer(new AdPool.Entry(TYPE, unit, new Ad(2, false), now)));
+
+        assertEquals(Arrays.asList(stale), pool.evictExpired(System.currentTimeMillis()));
+        assertEquals(fresh, pool.poll(TYPE, unit));
+    }
+
+    @Test
+    public void readySizeFollowsThePoolWithoutTakingItsLock() throws Exception {
+        AdPool pool = new AdPool();
+        for (int u = 0; u < UNITS; u++) {
+            pool.setDepth(TYPE, "unit-" + u, AdPool.MAX_DEPTH);
+            pool.setTtl(TYPE, "unit-" + u, TTL_MS);
+        }
+        long now = System.currentTimeMillis();
+        pool.offer(new AdPool.Entry(TYPE, "unit-0", new Ad(0, false), now));
+        pool.offer(new AdPool.Entry(TYPE, "unit-0", new Ad(1, true), now - 2 * TTL_MS));
+        pool.offer(new AdPool.Entry(TYPE, "unit-1", new Ad(2, false), now));
+        assertEquals(1, pool.readySize(TYPE, "unit-0", now));
+        assertEquals(2, pool.readySize(TYPE, null, now));
+        assertEquals(0, pool.readySize(AdTypes.SPLASH, null, now));
+
+        // 池锁被占住时同步查询仍能返回
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (pool) {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        try {
+            assertEquals(2, pool.readySize(TYPE, "", System.currentTimeMillis()));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        // 并发增删停止后，视图与加锁计数一致
+        Waits.race(4, thread -> {
+            for (int i = 0; i < 500; i++) {
+                String unit = "unit-" + ((thread + i) % UNITS);
+                if (thread % 2 == 0) {
+                    pool.offer(new AdPool.Entry(TYPE, unit, new Ad(100 + thread * 500 + i, false), System.currentTimeMillis()));
+                } else {
+                    pool.poll(TYPE, unit);
+                }
+                pool.readySize(TYPE, unit, System.currentTimeMillis());
+            }
+        });
+        pool.evictExpired(System.currentTimeMillis());
+        long after = System.currentTimeMillis();
+        for (int u = 0; u < UNITS; u++) {
+            assertEquals(pool.size(TYPE, "unit-" + u), pool.readySize(TYPE, "unit-" + u, after));
+        }
+        assertEquals(pool.sizeOfType(TYPE), pool.readySize(TYPE, null, after));
+        pool.clear();
+        assertEquals(0, pool.readySize(TYPE, null, after));
+    }
+}
@@ -0,0 +1,209 @@
+package com.skylantern.gromoread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 展示、关闭、过期和补货并发进行时，补货遵守并发上限，加载出来的广告不丢也不重复
+ */
+public class AdRefillSchedulerTest {
+    private static final String TYPE = AdTypes.REWARD_VIDEO;
+    private static final int UNITS = 4;
+    private static final int MAX_CONCURRENT = 2;
+
+    private final AdPool pool = new AdPool();
+    private final FakeLoader loader = new FakeLoader();
+    private AdRefillScheduler scheduler;
+
+    /**
+     * 异步完成的加载器，与 AdLoadCoordinator 一样先入池或释放再回调
+     */
+    private final class FakeLoader implements AdRefillScheduler.Loader {
+        final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+        final AtomicInteger nextId = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<String, AtomicInteger> runningPerUnit = new ConcurrentHashMap<>();
+        final AtomicInteger overlappingUnitLoads = new AtomicInteger();
+        final Set<Integer> accepted = Collections.synchronizedSet(new HashSet<>());
+        final Set<Integer> released = Collections.synchronizedSet(new HashSet<>());
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile boolean failing;
+
+        @Override
+        public void load(String adType, String adUnitId, AdLoadCallback callback) {
+            loads.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            AtomicInteger unitRunning = runningPerUnit.computeIfAbsent(adUnitId, key -> new AtomicInteger());
+            if (unitRunning.incrementAndGet() > 1) {
+                overlappingUnitLoads.incrementAndGet();
+            }
+            long latencyMs = 2 + nextId.get() % 8;
+            executor.schedule(() -> {
+                unitRunning.decrementAndGet();
+                running.decrementAndGet();
+                if (failing) {
+                    failures.incrementAndGet();
+                    callback.onFailed(20001, "no fill");
+                    return;
+                }
+                int id = nextId.incrementAndGet();
+                AdPool.Entry entry = new AdPool.Entry(adType, adUnitId, id, System.currentTimeMillis());
+                if (pool.offer(entry)) {
+                    accepted.add(id);
+                } else {
+                    released.add(id);
+                }
+                callback.onLoaded(entry);
+            }, latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        boolean idle() {
+            return running.get() == 0;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        scheduler = new AdRefillScheduler(pool, loader, (adType, adUnitId) -> 0L);
+        scheduler.configure(MAX_CONCURRENT, 100, 200);
+        for (int u = 0; u < UNITS; u++) {
+            scheduler.register(TYPE, unit(u));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+        loader.executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentShowCloseAndExpiryKeepEveryLoadedAdAccountedFor() throws Exception {
+        List<AdPool.Entry> shown = Collections.synchronizedList(new ArrayList<>());
+        List<AdPool.Entry> expired = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean running = new AtomicBoolean(true);
+        for (int u = 0; u < UNITS; u++) {
+            scheduler.onConsumed(TYPE, unit(u));
+        }
+
+        Waits.race(4, thread -> {
+            if (thread < 3) {
+                // 展示后关闭，触发补货
+                for (int i = 0; i < 300; i++) {
+                    String unit = unit((thread + i) % UNITS);
+                    AdPool.Entry entry = pool.poll(TYPE, unit);
+                    if (entry != null) {
+                        shown.add(entry);
+                        scheduler.onConsumed(TYPE, unit);
+                    }
+                    if (i % 50 == 25) {
+                        // 间歇性无填充，失败后按退避重试
+                        loader.failing = true;
+                        scheduler.onLoadFailed(TYPE, unit, "20001: no fill");
+                    } else if (i % 50 == 30) {
+                        loader.failing = false;
+                    }
+                    Thread.sleep(1);
+                }
+                running.set(false);
+            } else {
+                // 过期：整池视为到期淘汰，逐个广告位通知
+                while (running.get()) {
+                    Thread.sleep(20);
+                    for (AdPool.Entry entry : pool.evictExpired(System.currentTimeMillis() + AdPool.DEFAULT_VIDEO_TTL_MS)) {
+                        expired.add(entry);
+                        scheduler.onExpired(entry.adType, entry.adUnitId);
+                    }
+                }
+            }
+        });
+
+        // 停止扰动后重新触发一次补货，等池补满且没有进行中的加载
+        loader.failing = false;
+        for (int u = 0; u < UNITS; u++) {
+            scheduler.onConsumed(TYPE, unit(u));
+        }
+        assertTrue("pool never refilled", Waits.until(() -> {
+            for (int u = 0; u < UNITS; u++) {
+                if (pool.size(TYPE, unit(u)) < pool.depth(TYPE, unit(u))) {
+                    return false;
+                }
+            }
+            return loader.idle() && scheduler.inFlightCount() == 0;
+        }));
+
+        assertTrue("max concurrent exceeded: " + loader.maxRunning.get(), loader.maxRunning.get() <= MAX_CONCURRENT);
+        assertEquals(0, loader.overlappingUnitLoads.get());
+        assertEquals(loader.loads.get(), loader.accepted.size() + loader.released.size() + loader.failures.get());
+
+        List<AdPool.Entry> remaining = new ArrayList<>();
+        for (int u = 0; u < UNITS; u++) {
+            assertEquals(pool.depth(TYPE, unit(u)), pool.size(TYPE, unit(u)));
+        }
+        remaining.addAll(pool.trim(TYPE, 0));
+
+        // 每条入池的广告恰好以展示、过期或留在池中三种方式之一出现
+        Set<Integer> seen = new HashSet<>();
+        for (List<AdPool.Entry> part : Arrays.asList(shown, expired, remaining)) {
+            for (AdPool.Entry entry : part) {
+                assertTrue("duplicate ad " + entry.ad, seen.add((Integer) entry.ad));
+            }
+        }
+        assertEquals(loader.accepted, seen);
+        assertTrue(Collections.disjoint(loader.accepted, loader.released));
+    }
+
+    @Test
+    public void failuresBackOffWithOneLoadPerUnit() throws Exception {
+        loader.failing = true;
+        Waits.race(8, thread -> scheduler.onConsumed(TYPE, unit(thread % UNITS)));
+
+        assertTrue(Waits.until(() -> {
+            // 每个广告位都已失败并在退避或暂停中，没有立即重试
+            for (Map<String, Object> slot : scheduler.snapshot()) {
+                Object state = slot.get("state");
+                if ((Integer) slot.get("failures") == 0 || !("backoff".equals(state) || "parked".equals(state))) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+        assertEquals(0, loader.overlappingUnitLoads.get());
+        assertTrue(loader.maxRunning.get() <= MAX_CONCURRENT);
+        assertEquals(0, pool.sizeOfType(TYPE));
+
+        // 恢复填充后一次消耗即可重置退避并补满
+        loader.failing = false;
+        for (int u = 0; u < UNITS; u++) {
+            scheduler.onConsumed(TYPE, unit(u));
+        }
+        assertTrue(Waits.until(() -> pool.sizeOfType(TYPE) == UNITS * pool.defaultDepth()));
+        for (Map<String, Object> slot : scheduler.snapshot()) {
+            assertEquals(0, slot.get("failures"));
+        }
+    }
+
+    private static String unit(int index) {
+        return "unit-" + index;
+    }
+}
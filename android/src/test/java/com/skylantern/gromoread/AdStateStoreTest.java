@@ -0,0 +1,116 @@
+package com.skylantern.gromoread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 多线程同时提交状态变更时，变更按提交顺序串行执行、快照前后相接
+ */
+public class AdStateStoreTest {
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 500;
+
+    private final AdStateStore store = new AdStateStore();
+
+    @After
+    public void tearDown() {
+        store.shutdown();
+    }
+
+    @Test
+    public void concurrentUpdatesApplyOnceInSubmissionOrder() throws Exception {
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<AdStateStore.Snapshot> lastCommitted = new AtomicReference<>(store.snapshot());
+        AtomicInteger brokenChains = new AtomicInteger();
+
+        Waits.race(THREADS, thread -> {
+            for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                final int id = thread * UPDATES_PER_THREAD + i;
+                // 模拟展示和关闭交替改变同一字段
+                store.update(s -> {
+                    applied.add(id);
+                    return s.withAdActivity(!s.adActivityActive);
+                }, (previous, current) -> {
+                    if (!lastCommitted.compareAndSet(previous, current)) {
+                        brokenChains.incrementAndGet();
+                    }
+                });
+            }
+        });
+        drain();
+
+        int total = THREADS * UPDATES_PER_THREAD;
+        assertEquals(total, applied.size());
+        assertEquals(total, new HashSet<>(applied).size());
+        // 同一线程提交的变更保持提交顺序
+        int[] lastSeen = new int[THREADS];
+        Arrays.fill(lastSeen, -1);
+        for (int id : applied) {
+            int thread = id / UPDATES_PER_THREAD;
+            assertTrue("thread " + thread + " out of order", id > lastSeen[thread]);
+            lastSeen[thread] = id;
+        }
+        assertEquals(0, brokenChains.get());
+        assertSame(lastCommitted.get(), store.snapshot());
+        assertEquals(total % 2 == 1, store.snapshot().adActivityActive);
+    }
+
+    @Test
+    public void onlyOneConcurrentClaimWins() throws Exception {
+        Set<String> winners = Collections.synchronizedSet(new HashSet<>());
+        Waits.race(THREADS, thread -> {
+            String unit = "unit-" + thread;
+            // 与开屏展示位相同的“已占用则不变”写法
+            store.update(s -> s.hotSplash.enabled ? s
+                            : s.withHotSplash(new AdStateStore.HotSplashConfig(true, unit, 0, 0, 0)),
+                    (previous, current) -> {
+                        if (!previous.hotSplash.enabled && unit.equals(current.hotSplash.adUnitId)) {
+                            winners.add(unit);
+                        }
+                    });
+        });
+        drain();
+
+        assertEquals(1, winners.size());
+        assertEquals(winners.iterator().next(), store.snapshot().hotSplash.adUnitId);
+    }
+
+    @Test
+    public void updatesAfterShutdownAreRejected() throws Exception {
+        drain();
+        store.shutdown();
+        AtomicInteger applied = new AtomicInteger();
+
+        assertFalse(store.update(s -> {
+            applied.incrementAndGet();
+            return s.withAdActivity(true);
+        }, null));
+        assertEquals(0, applied.get());
+        assertFalse(store.snapshot().adActivityActive);
+    }
+
+    /**
+     * 提交一个空变更并等它执行，之前提交的变更都已完成
+     */
+    private void drain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(store.update(s -> s, (previous, current) -> done.countDown()));
+        assertTrue(done.await(Waits.TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+}
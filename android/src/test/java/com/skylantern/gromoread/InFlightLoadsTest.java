@@ -0,0 +1,120 @@
+package com.skylantern.gromoread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 同一广告位并发加载时只有一个发起方，请求结束时每个等待方恰好被取出一次
+ */
+public class InFlightLoadsTest {
+    private static final String TYPE = AdTypes.REWARD_VIDEO;
+    private static final String UNIT = "unit-1";
+
+    private static final class Probe extends InFlightLoads.Waiter {
+        final int id;
+
+        Probe(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onLoaded(AdPool.Entry entry) {
+        }
+
+        @Override
+        public void onFailed(int code, String message) {
+        }
+    }
+
+    @Test
+    public void concurrentJoinsElectOneLoader() throws Exception {
+        InFlightLoads loads = new InFlightLoads();
+        int callers = 32;
+        List<Probe> leaders = Collections.synchronizedList(new ArrayList<>());
+
+        Waits.race(callers, thread -> {
+            Probe probe = new Probe(thread);
+            if (loads.join(TYPE, UNIT, probe)) {
+                leaders.add(probe);
+            }
+        });
+
+        assertEquals(1, leaders.size());
+        assertFalse(leaders.get(0).deduplicated);
+        assertEquals(callers - 1, loads.deduplicatedCount());
+        assertTrue(loads.isInFlight(TYPE, UNIT));
+
+        List<InFlightLoads.Waiter> waiters = loads.complete(TYPE, UNIT);
+        assertEquals(callers, waiters.size());
+        // 发起方排在最前，每个调用方只出现一次
+        assertEquals(leaders.get(0), waiters.get(0));
+        Set<Integer> ids = new HashSet<>();
+        for (InFlightLoads.Waiter waiter : waiters) {
+            assertTrue(ids.add(((Probe) waiter).id));
+        }
+        assertFalse(loads.isInFlight(TYPE, UNIT));
+        assertTrue(loads.complete(TYPE, UNIT).isEmpty());
+        assertTrue(loads.join(TYPE, UNIT, new Probe(callers)));
+    }
+
+    @Test
+    public void joinsRacingWithCompletionLandInExactlyOneBatch() throws Exception {
+        InFlightLoads loads = new InFlightLoads();
+        int joiners = 6;
+        int joinsPerThread = 3000;
+        List<InFlightLoads.Waiter> delivered = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger batchesWithoutLeader = new AtomicInteger();
+        AtomicInteger leaders = new AtomicInteger();
+        AtomicInteger joinersLeft = new AtomicInteger(joiners);
+        AtomicBoolean joining = new AtomicBoolean(true);
+
+        Waits.race(joiners + 1, thread -> {
+            if (thread < joiners) {
+                for (int i = 0; i < joinsPerThread; i++) {
+                    if (loads.join(TYPE, UNIT, new Probe(thread * joinsPerThread + i))) {
+                        leaders.incrementAndGet();
+                    }
+                }
+                if (joinersLeft.decrementAndGet() == 0) {
+                    joining.set(false);
+                }
+            } else {
+                // 模拟请求陆续结束
+                while (joining.get()) {
+                    List<InFlightLoads.Waiter> batch = loads.complete(TYPE, UNIT);
+                    if (!batch.isEmpty() && batch.get(0).deduplicated) {
+                        batchesWithoutLeader.incrementAndGet();
+                    }
+                    delivered.addAll(batch);
+                    Thread.yield();
+                }
+            }
+        });
+        List<InFlightLoads.Waiter> last = loads.complete(TYPE, UNIT);
+        if (!last.isEmpty() && last.get(0).deduplicated) {
+            batchesWithoutLeader.incrementAndGet();
+        }
+        delivered.addAll(last);
+
+        int total = joiners * joinsPerThread;
+        assertEquals(total, delivered.size());
+        Set<Integer> ids = new HashSet<>();
+        for (InFlightLoads.Waiter waiter : delivered) {
+            assertTrue(ids.add(((Probe) waiter).id));
+        }
+        // 每批恰好有一个发起方，其余都是挂靠的
+        assertEquals(0, batchesWithoutLeader.get());
+        assertEquals(total - leaders.get(), loads.deduplicatedCount());
+    }
+}
@@ -0,0 +1,75 @@
+package com.skylantern.gromoread;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 并发测试用的等待工具
+ */
+final class Waits {
+    static final long TIMEOUT_MS = 5000;
+
+    private Waits() {
+    }
+
+    /**
+     * 轮询直到条件成立，超时返回 false
+     */
+    static boolean until(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    /**
+     * 在工作线程里等起跑信号，被中断时直接返回
+     */
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 同时启动 threads 个线程执行 body(线程序号)，全部结束后返回，任一线程抛出的错误会重新抛出
+     */
+    static void race(int threads, IndexedTask body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        Throwable[] errors = new Throwable[threads];
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            workers[i] = new Thread(() -> {
+                await(start);
+                try {
+                    body.run(index);
+                } catch (Throwable t) {
+                    errors[index] = t;
+                }
+            }, "race-" + i);
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(TIMEOUT_MS * 2);
+        }
+        for (Throwable error : errors) {
+            if (error instanceof Exception) {
+                throw (Exception) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+        }
+    }
+
+    interface IndexedTask {
+        void run(int index) throws Exception;
+    }
+}
@@ -1,8 +1,39 @@
+export type InitOptions = {
+  appName?: string;
+  /** 默认跟随原生构建类型 */
+  debug?: boolean;
+  supportMultiProcess?: boolean;
+  allowShowNotify?: boolean;
+  useTextureView?: boolean;
+  titleBarTheme?: 'dark' | 'light' | 'none';
+  /** 允许直接下载的网络，默认 ['wifi'] */
+  directDownloadNetworkTypes?: Array<'wifi' | 'mobile' | '2g' | '3g' | '4g' | '5g'>;
+};
+
 export type InitResult = {
   success: boolean;
   message?: string;
   sdkVersion?: string;
+  warmStart?: boolean;
   code?: number;
+  /** TTAdSdk.init 同步调用耗时 */
+  initCallMs?: number;
+  initDurationMs?: number;
+  /** 编入的聚合适配器 */
+  adapters?: string[];
+};
+
+export type SdkState = {
+  ready: boolean;
+  state: 'idle' | 'initializing' | 'ready' | 'failed';
+  /** 是否由应用启动阶段预初始化 */
+  warmStart: boolean;
+  /** 从开始初始化到就绪的耗时，未就绪时为 -1 */
+  initDurationMs: number;
+  /** TTAdSdk.init 同步调用耗时，未调用时为 -1 */
+  initCallMs: number;
+  /** 编入的聚合适配器 */
+  adapters: string[];
 };
 
 export type CommonResult = {
@@ -11,23 +42,365 @@ export type CommonResult = {
   code?: number;
 };
 
+export type SplashResult = CommonResult & {
+  /** capped 表示被频次控制拦截，没有发起请求 */
+  status: 'loaded' | 'failed' | 'timeout' | 'capped';
+  elapsedMs: number;
+  adUnitId: string;
+};
+
+export type LoadOptions = {
+  /** 等视频素材缓存完成才返回，避免展示时卡顿或黑屏 */
+  waitForCache?: boolean;
+  /** 最多等待缓存的时长，默认 10000，超时按 cached: false 返回 */
+  cacheTimeoutMs?: number;
+};
+
+export type LoadResult = CappedResult & {
+  poolSize?: number;
+  /** 为 true 表示挂在同一广告位进行中的加载上，没有再发起请求 */
+  deduplicated?: boolean;
+  /** 本次加载的广告素材是否已缓存 */
+  cached?: boolean;
+  /** 该广告位素材已缓存的广告数 */
+  cachedCount?: number;
+};
+
+export type PreloadResult = CommonResult & {
+  requested: number;
+  loaded: number;
+  poolSize: number;
+  /** 频次已用完，没有发起请求 */
+  capped?: boolean;
+  retryAfterMs?: number;
+};
+
+export type AdReadiness = {
+  /** loaded 为已加载但素材仍在缓存，cached 为可立即流畅播放 */
+  state: 'loaded' | 'cached';
+  ageMs: number;
+  remainingMs: number;
+};
+
+export type AdLoadedStatus = {
+  isLoaded: boolean;
+  count?: number;
+  isCached?: boolean;
+  cachedCount?: number;
+  /** 下一条将被展示的广告剩余有效期（毫秒），仅在传入 adUnitId 时返回 */
+  remainingMs?: number;
+  ttlMs?: number;
+  /** 按展示顺序列出每条广告的状态，仅在传入 adUnitId 时返回 */
+  ads?: AdReadiness[];
+  message?: string;
+};
+
+export type FrequencyCapRule = {
+  /** 时间窗内最多展示次数，0 或缺省为不限 */
+  maxImpressions?: number;
+  /** 时间窗长度，默认 86400000（24小时） */
+  windowMs?: number;
+  /** 两次展示的最小间隔，0 或缺省为不限 */
+  minIntervalMs?: number;
+};
+
+export type FrequencyCapState = CommonResult & {
+  allowed: boolean;
+  /** 还需等待多久才能展示，允许时为 0 */
+  retryAfterMs: number;
+  reason: 'interval' | 'limit' | null;
+  /** 当前时间窗内该广告位和该类型的展示次数 */
+  unitCount: number;
+  typeCount: number;
+  lastShownAt: number;
+};
+
+/** 被频次控制拦截时展示和加载返回的结果 */
+export type CappedResult = CommonResult & {
+  capped?: boolean;
+  retryAfterMs?: number;
+};
+
+/** showBestAd 的候选广告，ecpm 为 null 表示聚合没有返回报价 */
+export type AdCandidate = {
+  adUnitId: string;
+  ecpm: number | null;
+  remainingMs: number;
+  /** eCPM 乘以新鲜度权重的期望收益 */
+  value: number;
+};
+
+export type BestAdResult = CappedResult & {
+  adUnitId?: string;
+  /** 选中广告在选择时的报价 */
+  ecpm?: number | null;
+  remainingMs?: number;
+  candidates?: AdCandidate[];
+};
+
+export type RefillOptions = {
+  maxConcurrent?: number;
+  baseBackoffMs?: number;
+  maxBackoffMs?: number;
+};
+
+export type RefillSlotState = {
+  adType: string;
+  adUnitId: string;
+  enabled: boolean;
+  /** capped 表示频次已用完，等时间窗重置后再补 */
+  state: 'idle' | 'pending' | 'backoff' | 'inFlight' | 'parked' | 'capped';
+  failures: number;
+  nextAttemptInMs: number;
+  lastError: string | null;
+};
+
+export type RefillState = {
+  maxConcurrent: number;
+  inFlight: number;
+  slots: RefillSlotState[];
+};
+
+export type PrefetchPolicyOptions = {
+  /** 为 false 时不按网络和电量限制预取，默认 true */
+  enabled?: boolean;
+  /** 计费网络下仍在后台预取一条视频广告，默认 false */
+  cellularVideo?: boolean;
+  /** 未充电时电量低于该值开始减少预取，默认 20 */
+  lowBatteryPercent?: number;
+};
+
+export type PrefetchPolicy = {
+  level: 'full' | 'reduced' | 'minimal' | 'offline';
+  network: 'wifi' | 'cellular' | 'ethernet' | 'other' | 'none';
+  metered: boolean;
+  /** 未知时为 null */
+  batteryPercent: number | null;
+  charging: boolean;
+  powerSave: boolean;
+  /** 各类型后台最多预取的条数，null 表示按库存深度；视频为 0 时不在后台下载视频素材 */
+  maxDepth: { rewardvideo: number | null; fullscreenvideo: number | null; splash: number | null; feed: number };
+};
+
+export type PrefetchPolicyEvent = PrefetchPolicy & {
+  previousLevel: PrefetchPolicy['level'];
+};
+
+export type LatencySummary = {
+  count: number;
+  mean: number;
+  p50: number;
+  p90: number;
+  p99: number;
+  max: number;
+  /** 各分桶的计数，与 AdMetrics.bucketBoundsMs 一一对应 */
+  buckets: number[];
+};
+
+export type UnitMetrics = {
+  adType: string;
+  adUnitId: string;
+  loadRequests: number;
+  loadSuccesses: number;
+  loadFailures: number;
+  /** 挂到进行中请求上的并发加载次数 */
+  deduplicated: number;
+  /** loadSuccesses / loadRequests */
+  fillRate: number;
+  timeouts: number;
+  /** 超时之后才返回的填充，不计入请求数和填充率 */
+  lateFills: number;
+  renderFailures: number;
+  showRequests: number;
+  shows: number;
+  showFailures: number;
+  /** 发起加载到SDK回调的耗时 */
+  loadLatency: LatencySummary;
+  /** 开屏加载成功到渲染完成的耗时 */
+  renderLatency: LatencySummary;
+  /** 调用展示到SDK回调 onAdShow 的耗时 */
+  showLatency: LatencySummary;
+  /** 展示到关闭的时长 */
+  showToClose: LatencySummary;
+};
+
+export type AdMetrics = {
+  /** 统计起始时间（上次重置） */
+  since: number;
+  /** 分桶上界（毫秒），最后一桶为 null 表示无上界 */
+  bucketBoundsMs: Array<number | null>;
+  /** 进程内累计被合并的并发加载次数 */
+  deduplicatedLoads: number;
+  units: UnitMetrics[];
+};
+
+export type LedgerUnit = {
+  adType: string;
+  adUnitId: string;
+  /** 请求数，包括填充、无填充、失败和超时 */
+  loads: number;
+  fills: number;
+  noFills: number;
+  errors: number;
+  timeouts: number;
+  renderFailures: number;
+  shows: number;
+  fillRate: number;
+  /** 加载耗时的滑动平均，没有样本时为 -1 */
+  latencyMs: number;
+  /** 展示 eCPM（分）的滑动平均，没有样本时为 -1 */
+  ecpm: number;
+  ecpmSamples: number;
+  /** 每次请求的期望收益：填充率 × eCPM，eCPM 未知时为填充率 */
+  score: number;
+  lastSeenAt: number;
+};
+
+export type TraceEvent = {
+  /** 事件时间（毫秒时间戳） */
+  t: number;
+  event: 'sdkReady' | 'sdkFailed' | 'loadStart' | 'loadOk' | 'loadFail' | 'loadTimeout' | 'loadDedup'
+    | 'renderOk' | 'renderFail' | 'showStart' | 'showOk' | 'showFail' | 'click' | 'close' | 'reward'
+    | 'expired' | 'hotSplash' | 'evicted' | 'cached' | 'loadLate';
+  adType: string | null;
+  adUnitId: string | null;
+  /** 耗时（毫秒），reward 事件为奖励数量，evicted 事件为广告已缓存时长 */
+  value: number;
+  /** SDK错误码，evicted 事件为系统内存等级，没有时为 0 */
+  code: number;
+};
+
+export type TraceDump = CommonResult & {
+  /** 启动以来记录的事件总数，超过 capacity 时只保留最近的 */
+  total: number;
+  capacity: number;
+  events: TraceEvent[];
+};
+
+export type BenchmarkCase = {
+  name: 'eventMap' | 'eventEmit' | 'eventEmitBatched' | 'adTypeDispatch' | 'isAdLoaded' | 'loadListener' | 'metricsRecord';
+  iterations: number;
+  totalMs: number;
+  nsPerOp: number;
+};
+
+export type SimulatedBackendOptions = {
+  /** 默认 true，false 时切回SDK */
+  enabled?: boolean;
+  /** 随机种子，相同种子和调用顺序得到相同结果 */
+  seed?: number;
+  /** 填充率，默认 0.9 */
+  fillRate?: number;
+  /** 填充后渲染失败的比例，默认 0.02 */
+  renderFailureRate?: number;
+  /** 请求永不回调的比例，用于验证超时处理，默认 0 */
+  hangRate?: number;
+  /** 加载耗时按对数正态分布，默认中位数 800ms、p99 4000ms */
+  latencyMedianMs?: number;
+  latencyP99Ms?: number;
+  /** 0 为主线程回调，否则使用这么多个独立回调线程 */
+  callbackThreads?: number;
+  rewardValidRate?: number;
+  rewardAmount?: number;
+  /** 模拟播放时长，默认 15000ms */
+  playDurationMs?: number;
+  /** 加载成功到素材缓存完成的耗时，默认 0 */
+  cacheLatencyMs?: number;
+};
+
+export type LogLevel = 'debug' | 'info' | 'warn' | 'error' | 'none';
+
+export type RaceUnitResult = {
+  adUnitId: string;
+  /** cached 表示库存中已有广告 */
+  status: 'loaded' | 'cached' | 'failed' | 'pending';
+  elapsedMs?: number;
+  /** 聚合返回的 eCPM（分），取不到时缺省 */
+  ecpm?: number;
+  code?: number;
+  message?: string;
+  deduplicated: boolean;
+};
+
+export type RaceResult = CommonResult & {
+  /** 胜出的广告位，调用 showAd(adType, adUnitId) 展示 */
+  adUnitId?: string;
+  poolSize?: number;
+  timedOut: boolean;
+  elapsedMs: number;
+  units: RaceUnitResult[];
+};
+
+export type HotSplashOptions = {
+  enabled: boolean;
+  adUnitId?: string;
+  /** 在后台停留超过该时长才预加载并在回到前台时展示，默认 30000 */
+  backgroundThresholdMs?: number;
+  /** 预加载的开屏超过该时长不再展示，默认 300000 */
+  maxAgeMs?: number;
+  /** 回到前台时开屏未就绪最多等待的时长，默认 500 */
+  maxWaitMs?: number;
+};
+
+export type EventDeliveryOptions = {
+  /** 开启后事件按 intervalMs 合并成一次 onGroMoreEvents 发送，由本模块拆开后按原事件名派发 */
+  batching?: boolean;
+  intervalMs?: number;
+  /** 始终逐条立即发送的事件名 */
+  immediateEvents?: string[];
+};
+
 export function on(event: string, listener: (data: any) => void): { remove: () => void };
+export function configureEventDelivery(options: EventDeliveryOptions): Promise<CommonResult & { batching: boolean; batchEvent: string }>;
 
-export function init(appId: string): Promise<InitResult>;
+export function init(appId: string, options?: InitOptions | null): Promise<InitResult>;
+export function getSdkState(): Promise<SdkState>;
+export function awaitSdkReady(timeoutMs?: number): Promise<SdkState>;
 export function getSDKVersion(): Promise<string>;
 
-export function loadSplashAd(adUnitId: string): Promise<CommonResult>;
+/** 同步查询，新架构下直接通过 JSI 调用 */
+export function isSdkReady(): boolean;
+export function isAdReady(adType: string, adUnitId?: string | null): boolean;
+export function getPoolSize(adType: string, adUnitId?: string | null): number;
+export function getSDKVersionSync(): string;
+
+export function loadSplashAd(adUnitId: string): Promise<SplashResult>;
+export function loadSplashAdWithDeadline(adUnitId: string, deadlineMs: number): Promise<SplashResult>;
 export function closeSplashAd(): Promise<CommonResult>;
 export function forceCloseSplashAd(): Promise<CommonResult>;
+export function configureHotSplash(options: HotSplashOptions): Promise<CommonResult & { enabled?: boolean }>;
 
-export function loadRewardVideoAd(adUnitId: string): Promise<CommonResult>;
-export function showRewardVideoAd(): Promise<CommonResult>;
-
-export function loadFullScreenVideoAd(adUnitId: string): Promise<CommonResult>;
-export function showFullScreenVideoAd(): Promise<CommonResult>;
+export function loadRewardVideoAd(adUnitId: string, options?: LoadOptions | null): Promise<LoadResult>;
+export function showRewardVideoAd(): Promise<CappedResult>;
 
-export function loadAd(adType: string, adUnitId: string): Promise<CommonResult>;
-export function showAd(adType: string, adUnitId: string): Promise<CommonResult>;
-export function isAdLoaded(adType: string, adUnitId: string): Promise<{ isLoaded: boolean; message?: string }>; 
+export function loadFullScreenVideoAd(adUnitId: string, options?: LoadOptions | null): Promise<LoadResult>;
+export function showFullScreenVideoAd(): Promise<CappedResult>;
 
+export function loadAd(adType: string, adUnitId: string, options?: LoadOptions | null): Promise<LoadResult>;
+export function showAd(adType: string, adUnitId: string): Promise<CappedResult>;
+export function showBestAd(adType: string, adUnitIds?: string[] | null): Promise<BestAdResult>;
 
+export function loadAdRace(adType: string, unitIds: string[], deadlineMs: number, strategy?: 'first' | 'best'): Promise<RaceResult>;
+export function isAdLoaded(adType: string, adUnitId: string): Promise<AdLoadedStatus>;
+export function preloadAd(adType: string, adUnitId: string): Promise<PreloadResult>;
+export function setPoolDepth(adType: string, adUnitId: string, depth: number): Promise<CommonResult & { depth?: number }>;
+export function setAdTtl(adType: string, adUnitId: string | null, ttlMs: number): Promise<CommonResult>;
+export function setAutoRefill(adType: string, adUnitId: string, enabled: boolean): Promise<CommonResult>;
+export function configureRefill(options: RefillOptions): Promise<CommonResult>;
+export function getRefillState(): Promise<RefillState>;
+export function configurePrefetchPolicy(options: PrefetchPolicyOptions): Promise<CommonResult & PrefetchPolicy>;
+export function getPrefetchPolicy(): Promise<CommonResult & PrefetchPolicy>;
+export function setFrequencyCap(adType: string, adUnitId: string | null, rule: FrequencyCapRule | null): Promise<CommonResult>;
+export function getFrequencyCapState(adType: string, adUnitId?: string | null): Promise<FrequencyCapState>;
+export function resetFrequencyCap(): Promise<CommonResult>;
+export function reportFeedScroll(adUnitId: string, velocity: number): void;
+export function prefetchFeedAds(adUnitId: string, widthDp: number, count: number): Promise<CommonResult>;
+export function getMetrics(): Promise<AdMetrics>;
+export function resetMetrics(): Promise<CommonResult>;
+export function getPerformanceLedger(adType?: string | null): Promise<CommonResult & { units: LedgerUnit[] }>;
+export function rankAdUnits(adType: string, unitIds: string[]): Promise<CommonResult & { unitIds: string[] }>;
+export function clearPerformanceLedger(): Promise<CommonResult>;
+export function dumpTrace(clear?: boolean): Promise<TraceDump>;
+export function configureSimulatedBackend(options: SimulatedBackendOptions | null): Promise<CommonResult & { simulated?: boolean }>;
+export function runBridgeBenchmark(iterations?: number): Promise<CommonResult & { results: BenchmarkCase[] }>;
+export function setLogLevel(level: LogLevel): Promise<CommonResult & { level: LogLevel }>;
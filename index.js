@@ -1,8 +1,11 @@
 'use strict';
 
-const { NativeModules, NativeEventEmitter, Platform } = require('react-native');
+const { NativeModules, NativeEventEmitter, Platform, TurboModuleRegistry } = require('react-native');
 
-const { GroMoreModule } = NativeModules;
+// 新架构下优先取 TurboModule（src/specs/NativeGroMoreModule.ts），旧架构走 bridge 模块
+const GroMoreModule = (global.__turboModuleProxy != null
+  ? TurboModuleRegistry.get('GroMoreModule')
+  : null) || NativeModules.GroMoreModule;
 
 if (!GroMoreModule) {
   throw new Error('@skylantern/gromore-ad: Native module not found. Make sure Android is linked and built.');
@@ -15,13 +18,40 @@ function on(event, listener) {
   listenerCount += 1;
   const sub = emitter.addListener(event, listener);
   const originalRemove = sub.remove;
+  let removed = false;
   sub.remove = () => {
+    if (removed) return;
+    removed = true;
     if (originalRemove) originalRemove.call(sub);
     listenerCount = Math.max(0, listenerCount - 1);
+    // 告诉原生具体是哪个事件少了订阅，无人订阅的事件原生不再构造和发送
+    if (typeof GroMoreModule.releaseListener === 'function') {
+      GroMoreModule.releaseListener(event);
+    }
   };
   return sub;
 }
 
+// 批量投递时原生只发送一次 onGroMoreEvents，这里拆开后按原事件名重新派发
+const BATCH_EVENT = 'onGroMoreEvents';
+let batchSubscription = null;
+
+function installBatchDemux() {
+  if (batchSubscription) return;
+  batchSubscription = emitter.addListener(BATCH_EVENT, (batch) => {
+    const events = (batch && batch.events) || [];
+    for (let i = 0; i < events.length; i += 1) {
+      emitter.emit(events[i].name, events[i].data);
+    }
+  });
+}
+
+function removeBatchDemux() {
+  if (!batchSubscription) return;
+  batchSubscription.remove();
+  batchSubscription = null;
+}
+
 // Provide no-op removeListeners hook to satisfy RN dev warning when module is passed to NativeEventEmitter
 if (typeof GroMoreModule.removeListeners !== 'function') {
   GroMoreModule.removeListeners = function removeListeners(n) {
@@ -30,8 +60,25 @@ if (typeof GroMoreModule.removeListeners !== 'function') {
   };
 }
 
-async function init(appId) {
-  return await GroMoreModule.init(appId);
+async function configureEventDelivery(options) {
+  const opts = options || {};
+  // 先挂好拆包监听再开启批量，避免丢失第一批事件
+  if (opts.batching) installBatchDemux();
+  const result = await GroMoreModule.configureEventDelivery(opts);
+  if (!opts.batching) removeBatchDemux();
+  return result;
+}
+
+async function init(appId, options) {
+  return await GroMoreModule.init(appId, options || null);
+}
+
+async function getSdkState() {
+  return await GroMoreModule.getSdkState();
+}
+
+async function awaitSdkReady(timeoutMs = 5000) {
+  return await GroMoreModule.awaitSdkReady(timeoutMs);
 }
 
 async function getSDKVersion() {
@@ -42,6 +89,10 @@ async function loadSplashAd(adUnitId) {
   return await GroMoreModule.loadSplashAd(adUnitId);
 }
 
+async function loadSplashAdWithDeadline(adUnitId, deadlineMs) {
+  return await GroMoreModule.loadSplashAdWithDeadline(adUnitId, deadlineMs);
+}
+
 async function closeSplashAd() {
   return await GroMoreModule.closeSplashAd();
 }
@@ -50,48 +101,198 @@ async function forceCloseSplashAd() {
   return await GroMoreModule.forceCloseSplashAd();
 }
 
-async function loadRewardVideoAd(adUnitId) {
-  return await GroMoreModule.loadRewardVideoAd(adUnitId);
+async function configureHotSplash(options) {
+  return await GroMoreModule.configureHotSplash(options || {});
+}
+
+async function loadRewardVideoAd(adUnitId, options) {
+  return await GroMoreModule.loadRewardVideoAd(adUnitId, options || null);
 }
 
 async function showRewardVideoAd() {
   return await GroMoreModule.showRewardVideoAd();
 }
 
-async function loadFullScreenVideoAd(adUnitId) {
-  return await GroMoreModule.loadFullScreenVideoAd(adUnitId);
+async function loadFullScreenVideoAd(adUnitId, options) {
+  return await GroMoreModule.loadFullScreenVideoAd(adUnitId, options || null);
 }
 
 async function showFullScreenVideoAd() {
   return await GroMoreModule.showFullScreenVideoAd();
 }
 
-async function loadAd(adType, adUnitId) {
-  return await GroMoreModule.loadAd(adType, adUnitId);
+async function loadAd(adType, adUnitId, options) {
+  return await GroMoreModule.loadAd(adType, adUnitId, options || null);
 }
 
 async function showAd(adType, adUnitId) {
   return await GroMoreModule.showAd(adType, adUnitId);
 }
 
+async function showBestAd(adType, adUnitIds) {
+  return await GroMoreModule.showBestAd(adType, adUnitIds || []);
+}
+
+async function loadAdRace(adType, unitIds, deadlineMs, strategy) {
+  return await GroMoreModule.loadAdRace(adType, unitIds || [], deadlineMs || 5000, strategy || 'first');
+}
+
 async function isAdLoaded(adType, adUnitId) {
   return await GroMoreModule.isAdLoaded(adType, adUnitId);
 }
 
+async function preloadAd(adType, adUnitId) {
+  return await GroMoreModule.preloadAd(adType, adUnitId);
+}
+
+async function setPoolDepth(adType, adUnitId, depth) {
+  return await GroMoreModule.setPoolDepth(adType, adUnitId, depth);
+}
+
+async function setAdTtl(adType, adUnitId, ttlMs) {
+  return await GroMoreModule.setAdTtl(adType, adUnitId || '', ttlMs);
+}
+
+async function setAutoRefill(adType, adUnitId, enabled) {
+  return await GroMoreModule.setAutoRefill(adType, adUnitId, !!enabled);
+}
+
+async function configureRefill(options) {
+  return await GroMoreModule.configureRefill(options || {});
+}
+
+async function getRefillState() {
+  return await GroMoreModule.getRefillState();
+}
+
+async function configurePrefetchPolicy(options) {
+  return await GroMoreModule.configurePrefetchPolicy(options || {});
+}
+
+async function getPrefetchPolicy() {
+  return await GroMoreModule.getPrefetchPolicy();
+}
+
+async function setFrequencyCap(adType, adUnitId, rule) {
+  return await GroMoreModule.setFrequencyCap(adType, adUnitId || null, rule || null);
+}
+
+async function getFrequencyCapState(adType, adUnitId) {
+  return await GroMoreModule.getFrequencyCapState(adType, adUnitId || null);
+}
+
+async function resetFrequencyCap() {
+  return await GroMoreModule.resetFrequencyCap();
+}
+
+function reportFeedScroll(adUnitId, velocity) {
+  GroMoreModule.reportFeedScroll(adUnitId, velocity || 0);
+}
+
+async function prefetchFeedAds(adUnitId, widthDp, count) {
+  return await GroMoreModule.prefetchFeedAds(adUnitId, widthDp || 0, count || 1);
+}
+
+// 同步查询：新架构下是 JSI 直接调用，旧架构下是同步 bridge 方法
+function isSdkReady() {
+  return GroMoreModule.isSdkReady();
+}
+
+function isAdReady(adType, adUnitId) {
+  return GroMoreModule.isAdReady(adType, adUnitId || null);
+}
+
+function getPoolSize(adType, adUnitId) {
+  return GroMoreModule.getPoolSize(adType, adUnitId || null);
+}
+
+function getSDKVersionSync() {
+  return GroMoreModule.getSDKVersionSync();
+}
+
+async function getMetrics() {
+  return await GroMoreModule.getMetrics();
+}
+
+async function resetMetrics() {
+  return await GroMoreModule.resetMetrics();
+}
+
+async function getPerformanceLedger(adType) {
+  return await GroMoreModule.getPerformanceLedger(adType || null);
+}
+
+async function rankAdUnits(adType, unitIds) {
+  return await GroMoreModule.rankAdUnits(adType, unitIds || []);
+}
+
+async function clearPerformanceLedger() {
+  return await GroMoreModule.clearPerformanceLedger();
+}
+
+async function dumpTrace(clear) {
+  return await GroMoreModule.dumpTrace(!!clear);
+}
+
+async function setLogLevel(level) {
+  return await GroMoreModule.setLogLevel(level);
+}
+
+async function runBridgeBenchmark(iterations = 20000) {
+  return await GroMoreModule.runBridgeBenchmark(iterations);
+}
+
+async function configureSimulatedBackend(options) {
+  return await GroMoreModule.configureSimulatedBackend(options || null);
+}
+
 module.exports = {
   on,
+  configureEventDelivery,
   init,
+  getSdkState,
+  awaitSdkReady,
   getSDKVersion,
   loadSplashAd,
+  loadSplashAdWithDeadline,
   closeSplashAd,
   forceCloseSplashAd,
+  configureHotSplash,
   loadRewardVideoAd,
   showRewardVideoAd,
   loadFullScreenVideoAd,
   showFullScreenVideoAd,
   loadAd,
   showAd,
+  showBestAd,
+  loadAdRace,
   isAdLoaded,
+  preloadAd,
+  setPoolDepth,
+  setAdTtl,
+  setAutoRefill,
+  configureRefill,
+  getRefillState,
+  configurePrefetchPolicy,
+  getPrefetchPolicy,
+  setFrequencyCap,
+  getFrequencyCapState,
+  resetFrequencyCap,
+  isSdkReady,
+  isAdReady,
+  getPoolSize,
+  getSDKVersionSync,
+  reportFeedScroll,
+  prefetchFeedAds,
+  getMetrics,
+  resetMetrics,
+  getPerformanceLedger,
+  rankAdUnits,
+  clearPerformanceLedger,
+  dumpTrace,
+  setLogLevel,
+  runBridgeBenchmark,
+  configureSimulatedBackend,
 };
 
 
@@ -361,6 +361,7 @@ export class GromoreAdPlugin {
 
 // 导出便捷函数
 export * from './components/GromoreBannerAd';
+export * from './components/GromoreFeedAd';
 export { useGromoreInterstitialAd } from './components/GromoreInterstitialAd';
 export * from './components/GromoreSplashAd';
 export { getAdConfig, getAdUnitId, getAppId } from './config/adConfig';
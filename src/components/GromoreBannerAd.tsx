@@ -1,45 +1,66 @@
-import React, { useEffect, useRef } from 'react';
-import { StyleSheet, Text, View } from 'react-native';
+import React from 'react';
+import { NativeSyntheticEvent, requireNativeComponent, StyleSheet, ViewStyle } from 'react-native';
+import { DEFAULT_AD_CONFIG } from '../config/adConfig';
 
 interface GromoreBannerAdProps {
   adUnitId: string;
   style?: object;
+  /** 自动刷新间隔（毫秒），0 表示不刷新，最小 10000 */
+  refreshInterval?: number;
+  /** 请求的广告尺寸（dp） */
+  adSize?: { width: number; height: number };
   onAdLoaded?: () => void;
   onAdError?: (error: string) => void;
+  onAdShow?: () => void;
+  onAdClick?: () => void;
+  onAdClose?: () => void;
 }
 
-export const GromoreBannerAd: React.FC<GromoreBannerAdProps> = ({ adUnitId, style, onAdLoaded, onAdError }) => {
-  const adRef = useRef<View>(null);
+type BannerEvent = { adUnitId?: string; code?: number; message?: string; width?: number; height?: number };
 
-  useEffect(() => {
-    const loadBanner = async () => {
-      // Banner广告的加载和显示通常由原生视图处理
-      // 这里我们只模拟一个占位符
-      console.log(`Banner Ad with unit ID ${adUnitId} should be loaded here.`);
-      if (onAdLoaded) {
-        onAdLoaded();
-      }
-    };
+interface NativeBannerProps {
+  adUnitId: string;
+  refreshInterval: number;
+  adSize: { width: number; height: number };
+  style?: ViewStyle | object;
+  onAdLoaded?: (event: NativeSyntheticEvent<BannerEvent>) => void;
+  onAdError?: (event: NativeSyntheticEvent<BannerEvent>) => void;
+  onAdShow?: (event: NativeSyntheticEvent<BannerEvent>) => void;
+  onAdClick?: (event: NativeSyntheticEvent<BannerEvent>) => void;
+  onAdClose?: (event: NativeSyntheticEvent<BannerEvent>) => void;
+}
 
-    loadBanner();
-  }, [adUnitId]);
+// 原生横幅视图，加载、刷新与释放都在原生侧完成
+const GroMoreBannerView = requireNativeComponent<NativeBannerProps>('GroMoreBannerView');
 
+export const GromoreBannerAd: React.FC<GromoreBannerAdProps> = ({
+  adUnitId,
+  style,
+  refreshInterval = DEFAULT_AD_CONFIG.BANNER_CONFIG.refreshInterval,
+  adSize = DEFAULT_AD_CONFIG.BANNER_CONFIG.size,
+  onAdLoaded,
+  onAdError,
+  onAdShow,
+  onAdClick,
+  onAdClose,
+}) => {
   return (
-    <View style={[styles.container, style]}>
-      <Text style={styles.text}>Banner Ad Placeholder</Text>
-    </View>
+    <GroMoreBannerView
+      adUnitId={adUnitId}
+      refreshInterval={refreshInterval}
+      adSize={adSize}
+      style={[styles.container, { width: adSize.width, height: adSize.height }, style]}
+      onAdLoaded={() => onAdLoaded?.()}
+      onAdError={(event) => onAdError?.(event.nativeEvent.message || 'Banner ad error')}
+      onAdShow={() => onAdShow?.()}
+      onAdClick={() => onAdClick?.()}
+      onAdClose={() => onAdClose?.()}
+    />
   );
 };
 
 const styles = StyleSheet.create({
   container: {
-    justifyContent: 'center',
-    alignItems: 'center',
-    backgroundColor: '#f0f0f0',
-    borderWidth: 1,
-    borderColor: '#ccc',
-  },
-  text: {
-    color: '#999',
+    overflow: 'hidden',
   },
 });
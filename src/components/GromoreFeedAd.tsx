@@ -0,0 +1,108 @@
+import React, { useState } from 'react';
+import {
+  NativeModules,
+  NativeScrollEvent,
+  NativeSyntheticEvent,
+  requireNativeComponent,
+  StyleSheet,
+  ViewStyle,
+} from 'react-native';
+
+interface GromoreFeedAdProps {
+  adUnitId: string;
+  /** 行的稳定标识（如 FlatList 的 key），滚回该行时复用同一条广告而不重新请求 */
+  slotKey?: string;
+  /** 广告宽度（dp），高度由广告渲染结果决定 */
+  adWidth?: number;
+  style?: object;
+  onAdLoaded?: (size: { width: number; height: number }) => void;
+  onAdShow?: () => void;
+  onAdClick?: () => void;
+  /** 用户选择不感兴趣，调用方应移除这一行 */
+  onAdClose?: () => void;
+}
+
+type FeedEvent = { adUnitId?: string; width?: number; height?: number; reason?: string };
+
+interface NativeFeedProps {
+  adUnitId: string;
+  slotKey?: string;
+  adWidth?: number;
+  style?: ViewStyle | object;
+  onAdLoaded?: (event: NativeSyntheticEvent<FeedEvent>) => void;
+  onAdShow?: (event: NativeSyntheticEvent<FeedEvent>) => void;
+  onAdClick?: (event: NativeSyntheticEvent<FeedEvent>) => void;
+  onAdClose?: (event: NativeSyntheticEvent<FeedEvent>) => void;
+}
+
+// 原生信息流视图，绑定的是原生预取队列中已渲染好的广告
+const GroMoreFeedAdView = requireNativeComponent<NativeFeedProps>('GroMoreFeedAdView');
+
+export const GromoreFeedAd: React.FC<GromoreFeedAdProps> = ({
+  adUnitId,
+  slotKey,
+  adWidth,
+  style,
+  onAdLoaded,
+  onAdShow,
+  onAdClick,
+  onAdClose,
+}) => {
+  const [height, setHeight] = useState(0);
+
+  return (
+    <GroMoreFeedAdView
+      adUnitId={adUnitId}
+      slotKey={slotKey}
+      adWidth={adWidth}
+      style={[styles.container, { height }, style]}
+      onAdLoaded={(event) => {
+        const { width = 0, height: adHeight = 0 } = event.nativeEvent;
+        setHeight(adHeight);
+        onAdLoaded?.({ width, height: adHeight });
+      }}
+      onAdShow={() => onAdShow?.()}
+      onAdClick={() => onAdClick?.()}
+      onAdClose={() => {
+        setHeight(0);
+        onAdClose?.();
+      }}
+    />
+  );
+};
+
+/**
+ * 生成 FlatList 的滚动回调，把滚动速度上报给原生预取队列
+ * 用法：const feedScroll = createFeedScrollReporter(adUnitId);
+ * <FlatList onScroll={feedScroll.onScroll} onMomentumScrollEnd={feedScroll.onScrollEnd} scrollEventThrottle={100} />
+ */
+export function createFeedScrollReporter(adUnitId: string, intervalMs: number = 200) {
+  const { GroMoreModule } = NativeModules;
+  let lastOffset = 0;
+  let lastTime = 0;
+  let lastReportAt = 0;
+
+  return {
+    onScroll(event: NativeSyntheticEvent<NativeScrollEvent>) {
+      const now = Date.now();
+      const offset = event.nativeEvent.contentOffset.y;
+      if (lastTime > 0 && now - lastReportAt >= intervalMs && now > lastTime) {
+        const velocity = ((offset - lastOffset) * 1000) / (now - lastTime);
+        lastReportAt = now;
+        GroMoreModule?.reportFeedScroll(adUnitId, velocity);
+      }
+      lastOffset = offset;
+      lastTime = now;
+    },
+    onScrollEnd() {
+      lastTime = 0;
+      GroMoreModule?.reportFeedScroll(adUnitId, 0);
+    },
+  };
+}
+
+const styles = StyleSheet.create({
+  container: {
+    overflow: 'hidden',
+  },
+});
@@ -16,6 +16,7 @@ export { useAdStore } from './state/adStore';
 
 // 组件
 export { GromoreBannerAd } from './components/GromoreBannerAd';
+export { GromoreFeedAd, createFeedScrollReporter } from './components/GromoreFeedAd';
 export { useGromoreInterstitialAd } from './components/GromoreInterstitialAd';
 export { GromoreSplashAd } from './components/GromoreSplashAd';
 
@@ -75,22 +75,13 @@ export class AdManager {
         console.log('✅ GroMore SDK初始化成功');
         this._softInitialized = true;
 
-        await new Promise(resolve => setTimeout(resolve, 2000));
-        
-        for (let i = 0; i < 5; i++) {
-          const sdkInfo = await groMoreService.getSDKVersion();
-          if (sdkInfo.initialized) {
-            console.log('✅ GroMore SDK验证就绪');
-            return true;
-          } else {
-            console.warn(`⚠️ GroMore SDK验证未就绪，重试 ${i + 1}/5`);
-            if (i < 4) {
-              await new Promise(resolve => setTimeout(resolve, 800));
-            }
-          }
+        // 由原生侧通知就绪，不再固定等待和轮询
+        const ready = await groMoreService.waitForSdkReady(5000);
+        if (ready) {
+          console.log('✅ GroMore SDK验证就绪');
+        } else {
+          console.warn('⚠️ GroMore SDK初始化成功但等待就绪超时');
         }
-        
-        console.warn('⚠️ GroMore SDK初始化成功但验证未就绪，已达到最大重试次数');
         return true;
       } else {
         console.error('❌ GroMore SDK初始化失败:', result.message);
@@ -139,7 +130,7 @@ export class AdManager {
       await this.waitForAppActive(1000);
       await this.waitForFirstFrame();
       
-      const result = await groMoreService.loadAndShowSplashAd(adUnitId);
+      const result = await groMoreService.loadAndShowSplashAd(adUnitId, adConfig.timeout.splash);
       console.log('**开屏广告预加载结果:', result);
       
       if (result.success) {
@@ -216,7 +207,7 @@ export class AdManager {
       await this.waitForAppActive(2500);
       await this.waitForFirstFrame();
       
-      const result = await groMoreService.loadAndShowSplashAd(adUnitId);
+      const result = await groMoreService.loadAndShowSplashAd(adUnitId, adConfig.timeout.splash);
       console.log('**开屏广告显示结果:', result);
       
       if (result.success) {
@@ -425,6 +416,9 @@ export class AdManager {
     const adUnitId = getAdUnitId(adType, this.config);
     if (!adUnitId) return false;
 
+    const ready = groMoreService.isAdReadySync(adType, adUnitId);
+    if (ready !== null) return ready;
+
     const status = await groMoreService.checkAdStatus(adType, adUnitId);
     return status.isLoaded;
   }
@@ -1,11 +1,14 @@
-import { AppState, NativeEventEmitter, NativeModules } from 'react-native';
+import { AppState, NativeEventEmitter, NativeModules, TurboModuleRegistry } from 'react-native';
 import { AdEventListener, AdEventType, AdLoadResult, AdStatusResult, AdType, SDKVersionResult } from '../types';
 
 // 获取原生模块
 console.log('🔍 检查原生模块注册情况...');
 console.log('📋 所有可用的原生模块:', Object.keys(NativeModules));
 
-const { GroMoreModule } = NativeModules;
+// 新架构下优先取 TurboModule，同步查询直接走 JSI
+const GroMoreModule = ((global as any).__turboModuleProxy != null
+  ? TurboModuleRegistry.get<any>('GroMoreModule')
+  : null) || NativeModules.GroMoreModule;
 const groMoreModule = GroMoreModule;
 
 console.log('📦 GroMoreModule 是否存在:', !!GroMoreModule);
@@ -46,7 +49,7 @@ export class GroMoreService {
   /**
    * 初始化GroMore SDK
    */
-  async init(appId: string, testMode: boolean = false): Promise<AdLoadResult> {
+  async init(appId: string, testMode: boolean = false, options: Record<string, any> | null = null): Promise<AdLoadResult> {
     try {
       console.log('🚀 初始化GroMore SDK, AppId:', appId, 'TestMode:', testMode);
       
@@ -56,7 +59,7 @@ export class GroMoreService {
         throw new Error('groMoreModule not found. Please check native module setup.');
       }
 
-      const result = await groMoreModule.init(appId);
+      const result = await groMoreModule.init(appId, options);
       
       if (result.success) {
         this.isInitialized = true;
@@ -71,18 +74,41 @@ export class GroMoreService {
     }
   }
 
+  /**
+   * 等待原生SDK就绪（含应用启动阶段的预初始化）
+   */
+  async waitForSdkReady(timeoutMs: number = 5000): Promise<boolean> {
+    if (!groMoreModule || typeof groMoreModule.awaitSdkReady !== 'function') {
+      return this.isInitialized;
+    }
+    try {
+      const state = await groMoreModule.awaitSdkReady(timeoutMs);
+      if (state?.ready) {
+        this.isInitialized = true;
+      }
+      return !!state?.ready;
+    } catch {
+      return this.isInitialized;
+    }
+  }
+
   /**
    * 加载广告
+   * options.waitForCache 为 true 时等视频素材缓存完成才返回
    */
-  async loadAd(adType: AdType, adUnitId: string): Promise<AdLoadResult> {
+  async loadAd(
+    adType: AdType,
+    adUnitId: string,
+    options: { waitForCache?: boolean; cacheTimeoutMs?: number } | null = null
+  ): Promise<AdLoadResult> {
     if (!this.isInitialized) {
       return { success: false, message: 'SDK not initialized' };
     }
     try {
       if (adType === AdType.REWARD_VIDEO) {
-        return await groMoreModule.loadRewardVideoAd(adUnitId);
+        return await groMoreModule.loadRewardVideoAd(adUnitId, options);
       }
-      return await groMoreModule.loadAd(adType, adUnitId);
+      return await groMoreModule.loadAd(adType, adUnitId, options);
     } catch (error: any) {
       return { success: false, message: error.message };
     }
@@ -96,11 +122,7 @@ export class GroMoreService {
       return { success: false, message: 'SDK not initialized' };
     }
     try {
-      if (adType === AdType.REWARD_VIDEO) {
-        const loadRes = await groMoreModule.loadRewardVideoAd(adUnitId);
-        if (!loadRes?.success) return loadRes;
-        return await groMoreModule.showRewardVideoAd();
-      }
+      // 原生侧优先使用该广告位的库存，库存为空时才会等待加载
       return await groMoreModule.showAd(adType, adUnitId);
     } catch (error: any) {
       return { success: false, message: error.message };
@@ -110,7 +132,7 @@ export class GroMoreService {
   /**
    * 加载并显示开屏广告
    */
-  async loadAndShowSplashAd(adUnitId: string): Promise<AdLoadResult> {
+  async loadAndShowSplashAd(adUnitId: string, deadlineMs?: number): Promise<AdLoadResult> {
     if (!this.isInitialized) {
       return { success: false, message: 'SDK not initialized' };
     }
@@ -141,7 +163,10 @@ export class GroMoreService {
 
     try {
       console.log('🚀 GroMoreService: 开始加载开屏广告, 广告位ID:', adUnitId);
-      const result = await groMoreModule.loadSplashAd(adUnitId);
+      // 原生侧按时限自行计时，结果一定会返回（loaded / failed / timeout）
+      const result = deadlineMs && typeof groMoreModule.loadSplashAdWithDeadline === 'function'
+        ? await groMoreModule.loadSplashAdWithDeadline(adUnitId, deadlineMs)
+        : await groMoreModule.loadSplashAd(adUnitId);
       console.log('📊 GroMoreService: 开屏广告加载结果:', result);
       return result;
     } catch (error: any) {
@@ -164,6 +189,20 @@ export class GroMoreService {
     }
   }
 
+  /**
+   * 同步检查广告位是否有可展示的广告，原生不支持同步查询时返回 null
+   */
+  isAdReadySync(adType: AdType, adUnitId: string): boolean | null {
+    if (!groMoreModule || typeof groMoreModule.isAdReady !== 'function') {
+      return null;
+    }
+    try {
+      return groMoreModule.isAdReady(adType, adUnitId);
+    } catch {
+      return null;
+    }
+  }
+
   /**
    * 获取SDK版本信息
    */
@@ -187,6 +226,25 @@ export class GroMoreService {
     return { hasModule, hasLoadSplashAd, hasAddListener, hasRemoveListeners };
   }
 
+  /**
+   * 开启或关闭原生事件批量投递
+   * 拆包交给 index.js 的 configureEventDelivery，两个入口共用同一个拆包监听，事件不会重复派发
+   */
+  async setEventBatching(enabled: boolean, intervalMs: number = 16, immediateEvents: string[] = []): Promise<boolean> {
+    if (!groMoreModule || typeof groMoreModule.configureEventDelivery !== 'function') {
+      return false;
+    }
+    try {
+      // 原生模块存在时再加载，index.js 在模块缺失时会直接抛错
+      const { configureEventDelivery } = require('../../index') as typeof import('../../index');
+      const result = await configureEventDelivery({ batching: enabled, intervalMs, immediateEvents });
+      return result.success !== false;
+    } catch (error) {
+      console.warn('⚠️ GroMoreService: 配置事件投递失败:', error);
+      return false;
+    }
+  }
+
   /**
    * 添加事件监听器
    */
@@ -234,6 +292,14 @@ export class GroMoreService {
    * SDK是否已初始化
    */
   get initialized(): boolean {
+    if (!this.isInitialized && groMoreModule && typeof groMoreModule.isSdkReady === 'function') {
+      // 应用启动阶段已预初始化时，同步查询即可得知
+      try {
+        this.isInitialized = groMoreModule.isSdkReady();
+      } catch {
+        // 远程调试等不支持同步调用的环境
+      }
+    }
     return this.isInitialized;
   }
 
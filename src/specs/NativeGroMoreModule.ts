@@ -0,0 +1,77 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+// GroMoreModule 的 TurboModule 规范，新架构下由 codegen 生成 Android 端 NativeGroMoreModuleSpec。
+// 修改原生方法签名时需同步修改这里
+export interface Spec extends TurboModule {
+  // 事件订阅
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+  releaseListener(eventName: string): void;
+  configureEventDelivery(options: Object): Promise<Object>;
+
+  // 初始化
+  init(appId: string, options: Object | null): Promise<Object>;
+  getSdkState(): Promise<Object>;
+  awaitSdkReady(timeoutMs: number): Promise<Object>;
+  getSDKVersion(): Promise<string>;
+
+  // 同步状态查询（JSI 直接调用）
+  isSdkReady(): boolean;
+  isAdReady(adType: string, adUnitId: string | null): boolean;
+  getPoolSize(adType: string, adUnitId: string | null): number;
+  getSDKVersionSync(): string;
+
+  // 开屏
+  loadSplashAd(adUnitId: string): Promise<Object>;
+  loadSplashAdWithDeadline(adUnitId: string, deadlineMs: number): Promise<Object>;
+  closeSplashAd(): Promise<Object>;
+  forceCloseSplashAd(): Promise<Object>;
+  configureHotSplash(options: Object): Promise<Object>;
+
+  // 激励视频 / 全屏视频
+  loadRewardVideoAd(adUnitId: string, options: Object | null): Promise<Object>;
+  showRewardVideoAd(): Promise<Object>;
+  loadFullScreenVideoAd(adUnitId: string, options: Object | null): Promise<Object>;
+  showFullScreenVideoAd(): Promise<Object>;
+  loadAd(adType: string, adUnitId: string, options: Object | null): Promise<Object>;
+  showAd(adType: string, adUnitId: string): Promise<Object>;
+  showBestAd(adType: string, adUnitIds: Array<string>): Promise<Object>;
+  closeAd(adType: string): Promise<Object>;
+  loadAdRace(adType: string, unitIds: Array<string>, deadlineMs: number, strategy: string): Promise<Object>;
+
+  // 库存与补货
+  isAdLoaded(adType: string, adUnitId: string | null): Promise<Object>;
+  preloadAd(adType: string, adUnitId: string): Promise<Object>;
+  setPoolDepth(adType: string, adUnitId: string | null, depth: number): Promise<Object>;
+  setAdTtl(adType: string, adUnitId: string | null, ttlMs: number): Promise<Object>;
+  setAutoRefill(adType: string, adUnitId: string, enabled: boolean): Promise<Object>;
+  configureRefill(options: Object): Promise<Object>;
+  getRefillState(): Promise<Object>;
+  configurePrefetchPolicy(options: Object): Promise<Object>;
+  getPrefetchPolicy(): Promise<Object>;
+
+  // 频次控制
+  setFrequencyCap(adType: string, adUnitId: string | null, rule: Object | null): Promise<Object>;
+  getFrequencyCapState(adType: string, adUnitId: string | null): Promise<Object>;
+  resetFrequencyCap(): Promise<Object>;
+
+  // 信息流
+  reportFeedScroll(adUnitId: string, velocity: number): void;
+  prefetchFeedAds(adUnitId: string, widthDp: number, count: number): Promise<Object>;
+
+  // 指标
+  getMetrics(): Promise<Object>;
+  resetMetrics(): Promise<Object>;
+  getPerformanceLedger(adType: string | null): Promise<Object>;
+  rankAdUnits(adType: string, unitIds: Array<string>): Promise<Object>;
+  clearPerformanceLedger(): Promise<Object>;
+
+  // 诊断
+  dumpTrace(clear: boolean): Promise<Object>;
+  setLogLevel(level: string): Promise<Object>;
+  runBridgeBenchmark(iterations: number): Promise<Object>;
+  configureSimulatedBackend(options: Object | null): Promise<Object>;
+}
+
+export default TurboModuleRegistry.getEnforcing<Spec>('GroMoreModule');
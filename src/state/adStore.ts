@@ -25,7 +25,7 @@ const initialAdState: AdState = {
   adFrequency: 0.01,
 };
 
-export const useAdStore = create<AdStoreState>((set, get) => ({
+export const useAdStore = create<AdStoreState>((set) => ({
   adState: initialAdState,
   
   setAdLoaded: (loaded) => 
@@ -61,20 +61,8 @@ export const useAdStore = create<AdStoreState>((set, get) => ({
     await AsyncStorage.setItem('lastAdShownTime', now.toString());
   },
   
-  shouldShowAd: async () => {
-    const { adState } = get();
-    const lastShown = await AsyncStorage.getItem('lastAdShownTime');
-    
-    console.log('=== 检查是否应该显示广告 ===');
-    console.log('广告状态:', adState);
-    console.log('上次显示时间:', lastShown);
-    console.log('当前时间:', Date.now());
-    console.log('广告频率:', adState.adFrequency, '小时');
-    
-    // 强制显示广告 - 每次进入应用都显示开屏广告
-    console.log('强制显示开屏广告');
-    return true;
-  },
+  // 频次控制由原生层在展示时执行（setFrequencyCap），启动路径上不再读取存储
+  shouldShowAd: async () => true,
   
   resetAdState: () => set({ adState: initialAdState }),
 }));
@@ -9,6 +9,9 @@ export enum AdType {
 
 // 广告事件类型
 export enum AdEventType {
+  // SDK事件
+  SDK_READY = 'onSdkReady',
+
   // 开屏广告事件
   SPLASH_AD_LOADED = 'onSplashAdLoaded',
   SPLASH_AD_SHOW = 'onSplashAdShow',
@@ -32,6 +35,11 @@ export interface AdLoadResult {
   message: string;
   code?: number;
   sdkVersion?: string;
+  // 开屏限时加载的结果状态与耗时
+  status?: 'loaded' | 'failed' | 'timeout' | 'capped';
+  elapsedMs?: number;
+  // 视频素材是否已缓存
+  cached?: boolean;
 }
 
 // 广告状态检查结果接口